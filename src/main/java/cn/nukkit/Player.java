@@ -54,6 +54,7 @@ import cn.nukkit.lang.TranslationContainer;
 import cn.nukkit.level.*;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.level.format.generic.serializer.NetworkChunkSerializer;
 import cn.nukkit.level.particle.ItemBreakParticle;
 import cn.nukkit.level.particle.PunchBlockParticle;
 import cn.nukkit.level.sound.ExperienceOrbSound;
@@ -95,6 +96,7 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import lombok.Getter;
 import lombok.Setter;
@@ -270,9 +272,34 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
 
     private int chunksSent = 0;
     private boolean hasSpawnChunks;
+    /**
+     * Chunks are sent as blobs the client may have cached
+     */
+    private boolean clientCacheEnabled;
+    private static final int CLIENT_CACHE_MAX_BLOBS = 8192;
+    /**
+     * Ticks the client has to report the blobs of a sent chunk
+     */
+    private static final int CLIENT_CACHE_BLOB_EXPIRY = 600;
+    /**
+     * Blobs of sent chunks the client has not reported yet, oldest first. Blobs are dropped after
+     * {@link #CLIENT_CACHE_BLOB_EXPIRY} ticks or when there are more than {@link #CLIENT_CACHE_MAX_BLOBS}, so a client
+     * that never reports them can't keep them in memory.
+     */
+    private final Long2ObjectLinkedOpenHashMap<ClientCacheBlob> clientCacheBlobs = new Long2ObjectLinkedOpenHashMap<>();
     protected final LongLinkedOpenHashSet loadQueue = new LongLinkedOpenHashSet();
     protected int nextChunkOrderRun = 1;
 
+    /**
+     * Barriers of broadcasts still encoded on the batching thread and the packets sent after them, guarded by itself.
+     * Packets are only written directly to the session while it is empty, so they can't overtake an earlier broadcast.
+     */
+    private final ArrayDeque<Object> heldPackets = new ArrayDeque<>();
+    /**
+     * Thread handing over a broadcast, its packets pass the held packets
+     */
+    private Thread batchingThread;
+
     protected final Map<UUID, Player> hiddenPlayers = new HashMap<>();
 
     protected Vector3 newPosition = null;
@@ -1034,6 +1061,17 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
 
         this.usedChunks.clear();
         this.loadQueue.clear();
+
+        this.clearClientCacheBlobs();
+    }
+
+    /**
+     * The client drops its chunks on level or dimension change, so the blobs it has not reported won't be asked for
+     */
+    private void clearClientCacheBlobs() {
+        synchronized (this.clientCacheBlobs) {
+            this.clientCacheBlobs.clear();
+        }
     }
 
     public Position getSpawn() {
@@ -1123,10 +1161,107 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         pk.dimension = dimension;
         pk.subChunkCount = subChunkCount;
         pk.data = payload;
+        if (NetworkChunkSerializer.isSubChunkRequestMode(this.gameVersion)) {
+            pk.requestSubChunks = true;
+            pk.subChunkLimit = subChunkCount;
+        }
 
         this.sendChunk(x, z, pk);
     }
 
+    /**
+     * Send a chunk to a client with the blob cache enabled. The blobs are kept until the client reports them in
+     * a {@link cn.nukkit.network.protocol.ClientCacheBlobStatusPacket}.
+     *
+     * @param x     chunk X
+     * @param z     chunk Z
+     * @param blobs blobs of the chunk
+     */
+    public void sendChunkBlobs(int x, int z, NetworkChunkSerializer.NetworkChunkBlobs blobs) {
+        if (!this.connected) {
+            return;
+        }
+
+        long[] blobIds = blobs.getBlobIds();
+        byte[][] data = blobs.getBlobs();
+        int tick = this.server.getTick();
+        synchronized (this.clientCacheBlobs) {
+            LongOpenHashSet chunkBlobIds = new LongOpenHashSet(blobIds.length);
+            for (int i = 0; i < blobIds.length; i++) {
+                // The client reports every blob once per chunk
+                if (chunkBlobIds.add(blobIds[i])) {
+                    ClientCacheBlob blob = this.clientCacheBlobs.getAndMoveToLast(blobIds[i]);
+                    if (blob == null) {
+                        blob = new ClientCacheBlob(data[i]);
+                        this.clientCacheBlobs.putAndMoveToLast(blobIds[i], blob);
+                    }
+                    blob.chunks++;
+                    blob.sentTick = tick;
+                }
+            }
+
+            while (!this.clientCacheBlobs.isEmpty() && (this.clientCacheBlobs.size() > CLIENT_CACHE_MAX_BLOBS
+                    || tick - this.clientCacheBlobs.get(this.clientCacheBlobs.firstLongKey()).sentTick > CLIENT_CACHE_BLOB_EXPIRY)) {
+                this.clientCacheBlobs.removeFirst();
+            }
+        }
+
+        LevelChunkPacket pk = new LevelChunkPacket();
+        pk.chunkX = x;
+        pk.chunkZ = z;
+        pk.dimension = this.level.getDimension();
+        pk.subChunkCount = blobs.getSubChunkCount();
+        pk.cacheEnabled = true;
+        pk.blobIds = blobIds;
+        pk.data = blobs.getPayload();
+
+        this.sendChunk(x, z, pk);
+    }
+
+    /**
+     * Resolve a blob the client reported as cached or missing
+     *
+     * @param blobId blob id
+     * @return blob or null if no sent chunk is waiting for it
+     */
+    public byte[] resolveClientCacheBlob(long blobId) {
+        synchronized (this.clientCacheBlobs) {
+            ClientCacheBlob blob = this.clientCacheBlobs.get(blobId);
+            if (blob == null) {
+                return null;
+            }
+            if (--blob.chunks <= 0) {
+                this.clientCacheBlobs.remove(blobId);
+            }
+            return blob.data;
+        }
+    }
+
+    /**
+     * Blob of sent chunks the client has not reported yet
+     */
+    private static final class ClientCacheBlob {
+
+        private final byte[] data;
+        /**
+         * Sent chunks waiting for the blob
+         */
+        private int chunks;
+        private int sentTick;
+
+        private ClientCacheBlob(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    public boolean isClientCacheEnabled() {
+        return this.clientCacheEnabled;
+    }
+
+    public void setClientCacheEnabled(boolean clientCacheEnabled) {
+        this.clientCacheEnabled = clientCacheEnabled;
+    }
+
     protected void sendNextChunk() {
         if (!this.connected) {
             return;
@@ -1150,6 +1285,11 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
                     this.usedChunks.put(index, false);
                     this.level.registerChunkLoader(this, chunkX, chunkZ, false);
 
+                    if (server.asyncChunkLoading && !this.level.isChunkLoaded(chunkX, chunkZ) && !this.level.loadChunkAsync(chunkX, chunkZ).isDone()) {
+                        // Sent on a later tick once the chunk has been read
+                        continue;
+                    }
+
                     if (!this.level.populateChunk(chunkX, chunkZ)) {
                         if (this.spawned && this.teleportPosition == null) {
                             continue;
@@ -1407,7 +1547,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         packet.protocol = this.protocol;
         packet.gameVersion = this.gameVersion;
 
-        if (server.callDataPkSendEv) {
+        if (server.callDataPkSendEv && this.server.getPluginManager().hasListeners(DataPacketSendEvent.class)) {
             DataPacketSendEvent ev = new DataPacketSendEvent(this, packet);
             this.server.getPluginManager().callEvent(ev);
             if (ev.isCancelled()) {
@@ -1419,14 +1559,74 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             log.trace("Outbound {}: {}", this.getName(), packet);
         }
 
-        if (packet instanceof BatchPacket) {
-            this.networkSession.sendPacket(packet);
-        } else {
-            this.server.batchPackets(new Player[]{this}, new DataPacket[]{packet});
+        synchronized (this.heldPackets) {
+            if (!this.heldPackets.isEmpty() && this.batchingThread != Thread.currentThread()) {
+                this.heldPackets.add(packet);
+                return true;
+            }
         }
+        // Encoded on the calling thread and queued in the session
+        this.networkSession.sendPacket(packet);
         return true;
     }
 
+    /**
+     * Reserve the place of a broadcast that is encoded on the batching thread. Packets sent to this player afterwards
+     * are held back until the broadcast was handed over with {@link #completeBatch(Object, Runnable)} or the barrier
+     * was released.
+     *
+     * @return barrier of the broadcast
+     */
+    public Object reserveBatch() {
+        Object barrier = new Object();
+        synchronized (this.heldPackets) {
+            this.heldPackets.add(barrier);
+        }
+        return barrier;
+    }
+
+    /**
+     * Hand over a reserved broadcast. The packets sent by {@code send} on the calling thread go to the session before
+     * the packets held back for the broadcast.
+     *
+     * @param barrier barrier returned by {@link #reserveBatch()}
+     * @param send    sends the packets of the broadcast
+     */
+    public void completeBatch(Object barrier, Runnable send) {
+        synchronized (this.heldPackets) {
+            if (!this.heldPackets.contains(barrier)) {
+                return;
+            }
+            this.batchingThread = Thread.currentThread();
+        }
+        // Not sent under the lock, DataPacketSendEvent listeners may send packets to other players
+        try {
+            send.run();
+        } finally {
+            synchronized (this.heldPackets) {
+                this.batchingThread = null;
+            }
+            this.releaseBatch(barrier);
+        }
+    }
+
+    /**
+     * Release a reserved broadcast and send the packets held back for it. Does nothing if it was released already.
+     *
+     * @param barrier barrier returned by {@link #reserveBatch()}
+     */
+    public void releaseBatch(Object barrier) {
+        synchronized (this.heldPackets) {
+            if (!this.heldPackets.remove(barrier)) {
+                return;
+            }
+            while (this.heldPackets.peek() instanceof DataPacket packet) {
+                this.heldPackets.poll();
+                this.networkSession.sendPacket(packet);
+            }
+        }
+    }
+
     public int dataPacket(DataPacket packet, boolean needACK) {
         return this.dataPacket(packet) ? 0 : -1;
     }
@@ -1998,18 +2198,21 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
                     Location from = new Location(this.x, this.y, this.z, this.lastYaw, this.lastPitch, this.level);
                     Location to = this.getLocation();
 
-                    PlayerMoveEvent moveEvent = new PlayerMoveEvent(this, from, to);
-                    this.server.getPluginManager().callEvent(moveEvent);
+                    PlayerMoveEvent moveEvent = null;
+                    if (this.server.getPluginManager().hasListeners(PlayerMoveEvent.class)) {
+                        moveEvent = new PlayerMoveEvent(this, from, to);
+                        this.server.getPluginManager().callEvent(moveEvent);
 
-                    if (moveEvent.isCancelled()) {
-                        this.teleport(from, null);
-                        return;
+                        if (moveEvent.isCancelled()) {
+                            this.teleport(from, null);
+                            return;
+                        }
                     }
 
                     this.lastYaw = to.yaw;
                     this.lastPitch = to.pitch;
 
-                    if (!to.equals(moveEvent.getTo())) { // If plugins modify the destination
+                    if (moveEvent != null && !to.equals(moveEvent.getTo())) { // If plugins modify the destination
                         this.teleport(moveEvent.getTo(), null);
                     } else {
                         this.needSendRotation = true;
@@ -2138,12 +2341,15 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         Location to = this.getLocation();
 
         if (!this.firstMove) {
-            PlayerMoveEvent moveEvent = new PlayerMoveEvent(this, from, to);
-            this.server.getPluginManager().callEvent(moveEvent);
+            PlayerMoveEvent moveEvent = null;
+            if (this.server.getPluginManager().hasListeners(PlayerMoveEvent.class)) {
+                moveEvent = new PlayerMoveEvent(this, from, to);
+                this.server.getPluginManager().callEvent(moveEvent);
 
-            if (moveEvent.isCancelled()) {
-                this.teleport(from, null);
-                return;
+                if (moveEvent.isCancelled()) {
+                    this.teleport(from, null);
+                    return;
+                }
             }
 
             // 甜浆果丛伤害逻辑
@@ -2162,7 +2368,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             this.blocksAround = null;
             this.collisionBlocks = null;
 
-            if (!to.equals(moveEvent.getTo())) { // If plugins modify the destination
+            if (moveEvent != null && !to.equals(moveEvent.getTo())) { // If plugins modify the destination
                 this.teleport(moveEvent.getTo(), null);
             } else {
                 //1.7.0-
@@ -3117,10 +3323,12 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             packet.gameVersion = this.gameVersion;
         }
 
-        DataPacketReceiveEvent ev = new DataPacketReceiveEvent(this, packet);
-        this.server.getPluginManager().callEvent(ev);
-        if (ev.isCancelled()) {
-            return;
+        if (this.server.getPluginManager().hasListeners(DataPacketReceiveEvent.class)) {
+            DataPacketReceiveEvent ev = new DataPacketReceiveEvent(this, packet);
+            this.server.getPluginManager().callEvent(ev);
+            if (ev.isCancelled()) {
+                return;
+            }
         }
 
         if (Nukkit.DEBUG > 2 /*&& !server.isIgnoredPacket(packet.getClass())*/) {
@@ -6365,6 +6573,8 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
 
     @Override
     protected void checkChunks() {
+        this.level.getEntityIndex().update(this);
+
         if (this.chunk == null || (this.chunk.getX() != this.getChunkX() || this.chunk.getZ() != this.getChunkZ())) {
             if (this.chunk != null) {
                 this.chunk.removeEntity(this);
@@ -6446,6 +6656,12 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             return false;
         }
 
+        if (location.level != null && location.level != this.level && this.server.isLevelTickThread()) {
+            // Cross-level teleports are not safe while levels tick in parallel
+            this.server.runAfterLevelTicks(() -> this.teleport(location, cause));
+            return true;
+        }
+
         Location from = this.getLocation();
         Location to = location;
 
@@ -6986,6 +7202,10 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         pk.dimension = dimension;
         pk.subChunkCount = subChunkCount;
         pk.data = payload;
+        if (NetworkChunkSerializer.isSubChunkRequestMode(gameVersion)) {
+            pk.requestSubChunks = true;
+            pk.subChunkLimit = subChunkCount;
+        }
         pk.protocol = protocol;
         pk.gameVersion = gameVersion;
         pk.tryEncode();
@@ -7044,6 +7264,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
      */
     public void setDimension(int dimension) {
         this.dimensionChangeInProgress = true;
+        this.clearClientCacheBlobs();
 
         ChangeDimensionPacket changeDimensionPacket = new ChangeDimensionPacket();
         changeDimensionPacket.dimension = dimension;
@@ -31,8 +31,10 @@ import cn.nukkit.item.RuntimeItems;
 import cn.nukkit.item.enchantment.Enchantment;
 import cn.nukkit.lang.BaseLang;
 import cn.nukkit.lang.TextContainer;
+import cn.nukkit.level.ChunkPacketCache;
 import cn.nukkit.level.EnumLevel;
 import cn.nukkit.level.GlobalBlockPalette;
+import cn.nukkit.level.IncrementalAutoSave;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.Position;
 import cn.nukkit.level.biome.EnumBiome;
@@ -79,7 +81,6 @@ import cn.nukkit.resourcepacks.loader.ResourcePackLoader;
 import cn.nukkit.resourcepacks.loader.ZippedBehaviourPackLoader;
 import cn.nukkit.resourcepacks.loader.ZippedResourcePackLoader;
 import cn.nukkit.scheduler.ServerScheduler;
-import cn.nukkit.scheduler.Task;
 import cn.nukkit.scoreboard.manager.IScoreboardManager;
 import cn.nukkit.scoreboard.manager.ScoreboardManager;
 import cn.nukkit.scoreboard.storage.JSONScoreboardStorage;
@@ -87,6 +88,7 @@ import cn.nukkit.utils.*;
 import cn.nukkit.utils.bugreport.ExceptionHandler;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonParser;
 import io.netty.buffer.ByteBuf;
 import io.sentry.Sentry;
@@ -109,13 +111,16 @@ import java.awt.*;
 import java.io.*;
 import java.net.*;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -184,12 +189,20 @@ public class Server {
     private int autoTickRateLimit;
     private boolean alwaysTickPlayers;
     private int baseTickRate;
+    /**
+     * Tick every level on its own worker thread, see {@link #getTickingLevel()} for the cross-level rules.
+     */
+    private boolean parallelLevelTicking;
+    private ExecutorService levelTickExecutor;
+    private final Queue<Runnable> levelTickDeferredTasks = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Level> TICKING_LEVEL = new ThreadLocal<>();
     private int difficulty;
     private int defaultGameMode = Integer.MAX_VALUE;
     int c_s_spawnThreshold;
 
     private int autoSaveTicker;
     private int autoSaveTicks;
+    private final IncrementalAutoSave incrementalAutoSave = new IncrementalAutoSave(this);
 
     private final BaseLang baseLang;
     private boolean forceLanguage;
@@ -258,8 +271,13 @@ public class Server {
     private Watchdog watchdog;
     private final DB nameLookup;
     private PlayerDataSerializer playerDataSerializer;
+    private final PlayerDataWriter playerDataWriter = new PlayerDataWriter();
     private SpawnerTask spawnerTask;
     private final BatchingHelper batchingHelper;
+    /**
+     * Serialized chunk packets shared across players, null when disabled
+     */
+    private ChunkPacketCache chunkPacketCache;
 
     /**
      * The server's MOTD. Remember to call network.setName() when updated.
@@ -504,6 +522,31 @@ public class Server {
      * Asynchronous chunk sending (Experiment)
      */
     public boolean asyncChunkSending;
+    /**
+     * Read chunks requested by players off the main thread.
+     */
+    public boolean asyncChunkLoading;
+    /**
+     * Calculate block light updates off the main thread
+     */
+    public boolean asyncLightUpdates;
+    /**
+     * Update the sky light when blocks change instead of only calculating it for new chunks
+     */
+    public boolean skyLightUpdates;
+    /**
+     * Milliseconds per tick to spend on saving players and chunks, spreading the autosave over the autosave interval.
+     * 0, the default, saves everything in one tick.
+     */
+    public int autoSaveTickBudget;
+    /**
+     * Send chunks in sub chunk request mode to the clients that support it
+     */
+    public boolean subChunkRequests;
+    /**
+     * Send chunks as cacheable blobs to the clients that have the blob cache enabled
+     */
+    public boolean clientBlobCache;
     /**
      * Show a console message when a plugin uses deprecated API methods
      */
@@ -681,6 +724,20 @@ public class Server {
 
         this.batchingHelper = new BatchingHelper();
 
+        int chunkPacketCacheSize = this.getPropertyInt("chunk-packet-cache-size", 0);
+        if (chunkPacketCacheSize > 0) {
+            this.chunkPacketCache = new ChunkPacketCache(chunkPacketCacheSize * 1024L * 1024L);
+        }
+
+        if (this.parallelLevelTicking) {
+            int threads = this.getPropertyInt("parallel-level-ticking-threads", 0);
+            if (threads <= 0) {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            this.levelTickExecutor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Level Tick Executor #%d").setDaemon(true).build());
+            log.info("Parallel level ticking is enabled with {} threads", threads);
+        }
+
         if (this.getPropertyBoolean("enable-rcon", false)) {
             try {
                 this.rcon = new RCON(this, this.getPropertyString("rcon.password", ""), (!this.getIp().isEmpty()) ? this.getIp() : "0.0.0.0", this.getPropertyInt("rcon.port", this.getPort()));
@@ -1014,18 +1071,37 @@ public class Server {
 
 
     public static void broadcastPacket(Collection<Player> players, DataPacket packet) {
+        if (players.size() > 1 && canShareBroadcast(packet)) {
+            instance.batchPackets(players.toArray(Player.EMPTY_ARRAY), new DataPacket[]{packet.clone()});
+            return;
+        }
+
         for (Player player : players) {
             player.dataPacket(packet);
         }
     }
 
     public static void broadcastPacket(Player[] players, DataPacket packet) {
+        if (players.length > 1 && canShareBroadcast(packet)) {
+            instance.batchPackets(players, new DataPacket[]{packet.clone()});
+            return;
+        }
+
         for (Player player : players) {
             player.dataPacket(packet);
         }
     }
 
     public static void broadcastPackets(Player[] players, DataPacket[] packets) {
+        if (players.length > 1 && canShareBroadcast(packets)) {
+            DataPacket[] clones = new DataPacket[packets.length];
+            for (int i = 0; i < packets.length; i++) {
+                clones[i] = packets[i].clone();
+            }
+            instance.batchPackets(players, clones);
+            return;
+        }
+
         for (Player player : players) {
             for (DataPacket packet : packets) {
                 player.dataPacket(packet);
@@ -1033,6 +1109,22 @@ public class Server {
         }
     }
 
+    /**
+     * Broadcasts are encoded and compressed once per game version and written to all players as one shared frame,
+     * unless DataPacketSendEvent has to be called for each player or the packets are already batched.
+     */
+    private static boolean canShareBroadcast(DataPacket... packets) {
+        if (instance.callDataPkSendEv) {
+            return false;
+        }
+        for (DataPacket packet : packets) {
+            if (packet instanceof BatchPacket) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void batchPackets(Player[] players, DataPacket[] packets) {
         this.batchingHelper.batchPackets(players, packets);
     }
@@ -1042,6 +1134,24 @@ public class Server {
         this.batchingHelper.batchPackets(players, packets);
     }
 
+    /**
+     * Get the helper that encodes and compresses packet broadcasts
+     *
+     * @return batching helper
+     */
+    public BatchingHelper getBatchingHelper() {
+        return this.batchingHelper;
+    }
+
+    /**
+     * Get the serialized chunk cache shared by all levels
+     *
+     * @return chunk packet cache or null if disabled by chunk-packet-cache-size
+     */
+    public ChunkPacketCache getChunkPacketCache() {
+        return this.chunkPacketCache;
+    }
+
     public void enablePlugins(PluginLoadOrder type) {
         for (Plugin plugin : new ArrayList<>(this.pluginManager.getPlugins().values())) {
             if (!plugin.isEnabled() && type == plugin.getDescription().getOrder()) {
@@ -1162,6 +1272,9 @@ public class Server {
                 this.nextTick = System.currentTimeMillis(); // Fix Watchdog killing the server while saving worlds
             }
 
+            this.getLogger().debug("Writing player data...");
+            this.playerDataWriter.shutdown();
+
             this.getLogger().debug("Removing event handlers...");
             HandlerList.unregisterAll();
 
@@ -1175,6 +1288,11 @@ public class Server {
             this.getLogger().debug("Closing BatchingHelper...");
             this.batchingHelper.shutdown();
 
+            if (this.levelTickExecutor != null) {
+                this.getLogger().debug("Stopping level tick executor...");
+                this.levelTickExecutor.shutdownNow();
+            }
+
             this.getLogger().debug("Stopping network interfaces...");
             for (SourceInterface interfaz : this.network.getInterfaces()) {
                 interfaz.shutdown();
@@ -1406,45 +1524,146 @@ public class Server {
         }
 
         // Do level ticks
-        for (Level level : this.levelArray) {
-            if (level.isBeingConverted || (level.getTickRate() > this.baseTickRate && --level.tickRateCounter > 0)) {
+        if (this.levelTickExecutor != null) {
+            this.tickLevelsParallel(currentTick);
+        } else {
+            for (Level level : this.levelArray) {
+                if (this.isLevelTickDue(level)) {
+                    this.tickLevel(level, currentTick);
+                }
+            }
+        }
+    }
+
+    private boolean isLevelTickDue(Level level) {
+        return !level.isBeingConverted && (level.getTickRate() <= this.baseTickRate || --level.tickRateCounter <= 0);
+    }
+
+    /**
+     * Tick all due levels concurrently on the level tick executor and wait for every one of them to finish.
+     * Tasks deferred by the level threads using {@link #runAfterLevelTicks(Runnable)} are run on the main thread afterwards.
+     *
+     * @param currentTick current server tick
+     */
+    private void tickLevelsParallel(int currentTick) {
+        Level[] levels = this.levelArray;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[levels.length];
+        int count = 0;
+        for (Level level : levels) {
+            if (!this.isLevelTickDue(level)) {
                 continue;
             }
+            futures[count++] = CompletableFuture.runAsync(() -> {
+                TICKING_LEVEL.set(level);
+                try {
+                    this.tickLevel(level, currentTick);
+                } finally {
+                    TICKING_LEVEL.remove();
+                }
+            }, this.levelTickExecutor);
+        }
 
+        // Barrier: the server tick continues only after every level has finished its tick
+        try {
+            CompletableFuture.allOf(count == futures.length ? futures : Arrays.copyOf(futures, count)).join();
+        } catch (CompletionException e) {
+            log.error("Exception while ticking levels in parallel", e.getCause());
+        }
+
+        Runnable task;
+        while ((task = this.levelTickDeferredTasks.poll()) != null) {
             try {
-                long levelTime = System.currentTimeMillis();
-                level.providerLock.readLock().lock();
-                if (level.getProvider() == null) {//世界在其他线程上卸载
-                    continue;
-                }
-                level.doTick(currentTick);
-                int tickMs = (int) (System.currentTimeMillis() - levelTime);
-                level.tickRateTime = tickMs;
-
-                if (this.autoTickRate) {
-                    if (tickMs < 50 && level.getTickRate() > this.baseTickRate) {
-                        int r;
-                        level.setTickRate(r = level.getTickRate() - 1);
-                        if (r > this.baseTickRate) {
-                            level.tickRateCounter = level.getTickRate();
-                        }
-                        this.getLogger().debug("Raising level \"" + level.getName() + "\" tick rate to " + level.getTickRate() + " ticks");
-                    } else if (tickMs >= 50) {
-                        if (level.getTickRate() == this.baseTickRate) {
-                            level.setTickRate(Math.max(this.baseTickRate + 1, Math.min(this.autoTickRateLimit, tickMs / 50)));
-                            this.getLogger().debug("Level \"" + level.getName() + "\" took " + tickMs + "ms, setting tick rate to " + level.getTickRate() + " ticks");
-                        } else if ((tickMs / level.getTickRate()) >= 50 && level.getTickRate() < this.autoTickRateLimit) {
-                            level.setTickRate(level.getTickRate() + 1);
-                            this.getLogger().debug("Level \"" + level.getName() + "\" took " + tickMs + "ms, setting tick rate to " + level.getTickRate() + " ticks");
-                        }
+                task.run();
+            } catch (Exception e) {
+                log.error("Exception while running a deferred level task", e);
+            }
+        }
+    }
+
+    private void tickLevel(Level level, int currentTick) {
+        try {
+            long levelTime = System.currentTimeMillis();
+            level.providerLock.readLock().lock();
+            if (level.getProvider() == null) {//世界在其他线程上卸载
+                return;
+            }
+            level.doTick(currentTick);
+            int tickMs = (int) (System.currentTimeMillis() - levelTime);
+            level.tickRateTime = tickMs;
+
+            if (this.autoTickRate) {
+                if (tickMs < 50 && level.getTickRate() > this.baseTickRate) {
+                    int r;
+                    level.setTickRate(r = level.getTickRate() - 1);
+                    if (r > this.baseTickRate) {
                         level.tickRateCounter = level.getTickRate();
                     }
+                    this.getLogger().debug("Raising level \"" + level.getName() + "\" tick rate to " + level.getTickRate() + " ticks");
+                } else if (tickMs >= 50) {
+                    if (level.getTickRate() == this.baseTickRate) {
+                        level.setTickRate(Math.max(this.baseTickRate + 1, Math.min(this.autoTickRateLimit, tickMs / 50)));
+                        this.getLogger().debug("Level \"" + level.getName() + "\" took " + tickMs + "ms, setting tick rate to " + level.getTickRate() + " ticks");
+                    } else if ((tickMs / level.getTickRate()) >= 50 && level.getTickRate() < this.autoTickRateLimit) {
+                        level.setTickRate(level.getTickRate() + 1);
+                        this.getLogger().debug("Level \"" + level.getName() + "\" took " + tickMs + "ms, setting tick rate to " + level.getTickRate() + " ticks");
+                    }
+                    level.tickRateCounter = level.getTickRate();
                 }
-            } catch (Exception e) {
-                log.error(this.baseLang.translateString("nukkit.level.tickError", new String[]{level.getFolderName(), Utils.getExceptionMessage(e)}));
-            } finally {
-                level.providerLock.readLock().unlock();
             }
+        } catch (Exception e) {
+            log.error(this.baseLang.translateString("nukkit.level.tickError", new String[]{level.getFolderName(), Utils.getExceptionMessage(e)}));
+        } finally {
+            level.providerLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Is parallel level ticking enabled on this server
+     *
+     * @return parallel level ticking enabled
+     */
+    public boolean isParallelLevelTicking() {
+        return this.levelTickExecutor != null;
+    }
+
+    /**
+     * Get the level that is being ticked by the current thread when parallel level ticking is enabled.
+     * <p>
+     * Rules for code running inside a parallel level tick:
+     * <ul>
+     *     <li>Only the ticking level and the entities, chunks and block entities in it may be modified.</li>
+     *     <li>Teleports to another level are deferred and performed on the main thread after all levels have finished ticking.</li>
+     *     <li>Packets may be sent to any player ({@link Player#dataPacket(DataPacket)}, {@link #broadcastPacket(Collection, DataPacket)}),
+     *     the encoding happens on the batching thread. Events are called on the level thread.</li>
+     *     <li>Anything else touching other levels or global server state must be passed to {@link #runAfterLevelTicks(Runnable)}.</li>
+     * </ul>
+     *
+     * @return level ticked by the current thread or null when not called from a level tick thread
+     */
+    public Level getTickingLevel() {
+        return TICKING_LEVEL.get();
+    }
+
+    /**
+     * Check whether the current thread is a parallel level tick thread
+     *
+     * @return true if the current thread is ticking a level in parallel
+     */
+    public boolean isLevelTickThread() {
+        return TICKING_LEVEL.get() != null;
+    }
+
+    /**
+     * Run a task on the main thread once all levels have finished ticking.
+     * When called outside of a parallel level tick the task is run immediately.
+     *
+     * @param task task to run
+     */
+    public void runAfterLevelTicks(Runnable task) {
+        if (TICKING_LEVEL.get() == null) {
+            task.run();
+        } else {
+            this.levelTickDeferredTasks.offer(task);
         }
     }
 
@@ -1466,6 +1685,24 @@ public class Server {
         }
     }
 
+    /**
+     * Start an autosave that is spread over the ticks until the next autosave
+     */
+    private void startIncrementalAutoSave() {
+        if (this.autoSave) {
+            List<Player> players = new ArrayList<>();
+            for (Player player : new ArrayList<>(this.players.values())) {
+                if (player.isOnline()) {
+                    players.add(player);
+                } else if (!player.isConnected()) {
+                    this.removePlayer(player);
+                }
+            }
+
+            this.incrementalAutoSave.start(players, this.autoSaveTicks);
+        }
+    }
+
     private void tick() {
         long tickTime = System.currentTimeMillis();
 
@@ -1522,8 +1759,13 @@ public class Server {
 
         if (++this.autoSaveTicker >= this.autoSaveTicks) {
             this.autoSaveTicker = 0;
-            this.doAutoSave();
+            if (this.autoSaveTickBudget > 0) {
+                this.startIncrementalAutoSave();
+            } else {
+                this.doAutoSave();
+            }
         }
+        this.incrementalAutoSave.tick(this.autoSaveTickBudget);
 
         if (this.tickCounter % 100 == 0) {
             for (Level level : this.levelArray) {
@@ -1942,6 +2184,11 @@ public class Server {
             pluginManager.callEvent(event);
         }
 
+        CompoundTag pending = this.playerDataWriter.getPending(name, event.getSerializer());
+        if (pending != null) {
+            return pending.copy();
+        }
+
         Optional<InputStream> dataStream = Optional.empty();
         try {
             dataStream = event.getSerializer().read(name, event.getUuid().orElse(null));
@@ -2024,45 +2271,15 @@ public class Server {
             }
 
             if (async) {
-                this.getScheduler().scheduleTask(InternalPlugin.INSTANCE, new Task() {
-                    boolean hasRun = false;
-
-                    @Override
-                    public void onRun(int currentTick) {
-                        this.onCancel();
-                    }
-
-                    // Doing it like this ensures that the player data will be saved in a server shutdown
-                    @Override
-                    public void onCancel() {
-                        if (!this.hasRun) {
-                            this.hasRun = true;
-                            saveOfflinePlayerDataInternal(event.getSerializer(), tag, nameLower, event.getUuid().orElse(null));
-                        }
-                    }
-                }, true);
+                // Written in the background, the data may be changed as soon as this returns
+                this.playerDataWriter.queue(event.getSerializer(), nameLower, event.getUuid().orElse(null), tag.copy());
             } else {
-                saveOfflinePlayerDataInternal(event.getSerializer(), tag, nameLower, event.getUuid().orElse(null));
+                // Written here without waiting for the saves of other players queued before
+                this.playerDataWriter.write(event.getSerializer(), nameLower, event.getUuid().orElse(null), tag);
             }
         }
     }
 
-    /**
-     * Internal: Save offline player data
-     *
-     * @param serializer serializer
-     * @param tag compound tag
-     * @param name player name
-     * @param uuid player uuid
-     */
-    private void saveOfflinePlayerDataInternal(PlayerDataSerializer serializer, CompoundTag tag, String name, UUID uuid) {
-        try (OutputStream dataStream = serializer.write(name, uuid)) {
-            NBTIO.writeGZIPCompressed(tag, dataStream, ByteOrder.BIG_ENDIAN);
-        } catch (Exception e) {
-            log.error(this.getLanguage().translateString("nukkit.data.saveError", name, e));
-        }
-    }
-
     /**
      * Internal: Convert legacy player saves to the uuid based saving
      */
@@ -3097,6 +3314,42 @@ public class Server {
         return this.enableRaytracing;
     }
 
+    /**
+     * Check whether clients with a protocol from the given range may join. Data only used by protocols that can't join
+     * doesn't have to be loaded.
+     *
+     * @param fromProtocol lowest protocol of the range
+     * @param toProtocol   protocol after the range
+     * @return whether any protocol of the range is allowed
+     */
+    public boolean isProtocolRangeAllowed(int fromProtocol, int toProtocol) {
+        if (toProtocol <= this.minimumProtocol) {
+            return false;
+        }
+        // The maximum is only checked when it isn't below the minimum, see the login handling
+        return this.maximumProtocol < Math.max(0, this.minimumProtocol) || fromProtocol <= this.maximumProtocol;
+    }
+
+    /**
+     * Check whether clients of a game version may join. A game version is used for all protocols up to the next
+     * version.
+     *
+     * @param gameVersion game version
+     * @return whether clients of the version may join
+     */
+    public boolean isVersionAllowed(GameVersion gameVersion) {
+        if (gameVersion.isNetEase() && !this.netEaseMode) {
+            return false;
+        }
+        int toProtocol = Integer.MAX_VALUE;
+        for (GameVersion version : GameVersion.getValues()) {
+            if (version.isNetEase() == gameVersion.isNetEase() && version.getProtocol() > gameVersion.getProtocol()) {
+                toProtocol = Math.min(toProtocol, version.getProtocol());
+            }
+        }
+        return this.isProtocolRangeAllowed(gameVersion.getProtocol(), toProtocol);
+    }
+
     public boolean isWaterdogCapable() {
         return this.useWaterdog;
     }
@@ -3119,6 +3372,24 @@ public class Server {
         this.playerDataSerializer = Preconditions.checkNotNull(playerDataSerializer, "playerDataSerializer");
     }
 
+    /**
+     * Get the writer that saves player data in the background
+     *
+     * @return player data writer
+     */
+    public PlayerDataWriter getPlayerDataWriter() {
+        return playerDataWriter;
+    }
+
+    /**
+     * Get the autosave that is spread over multiple ticks, with its progress and statistics
+     *
+     * @return incremental autosave
+     */
+    public IncrementalAutoSave getIncrementalAutoSave() {
+        return incrementalAutoSave;
+    }
+
     public TickingAreaManager getTickingAreaManager() {
         return tickingAreaManager;
     }
@@ -3152,6 +3423,7 @@ public class Server {
         this.autoTickRateLimit = this.getPropertyInt("auto-tick-rate-limit", 20);
         this.alwaysTickPlayers = this.getPropertyBoolean("always-tick-players", false);
         this.baseTickRate = this.getPropertyInt("base-tick-rate", 1);
+        this.parallelLevelTicking = this.getPropertyBoolean("parallel-level-ticking", false);
         this.callDataPkSendEv = this.getPropertyBoolean("call-data-pk-send-event", true);
         this.callBatchPkEv = this.getPropertyBoolean("call-batch-pk-send-event", true);
         this.doLevelGC = this.getPropertyBoolean("do-level-gc", true);
@@ -3231,6 +3503,12 @@ public class Server {
         this.whitelistReason = this.getPropertyString("whitelist-reason", "§cServer is white-listed").replace("§n", "\n");
         this.enableExperimentMode = this.getPropertyBoolean("enable-experiment-mode", true);
         this.asyncChunkSending = this.getPropertyBoolean("async-chunks", true);
+        this.asyncChunkLoading = this.getPropertyBoolean("async-chunk-loading", true);
+        this.asyncLightUpdates = this.getPropertyBoolean("async-light-updates", true);
+        this.skyLightUpdates = this.getPropertyBoolean("sky-light-updates", false);
+        this.autoSaveTickBudget = Math.max(0, this.getPropertyInt("autosave-tick-budget", 0));
+        this.subChunkRequests = this.getPropertyBoolean("sub-chunk-requests", false);
+        this.clientBlobCache = this.getPropertyBoolean("client-blob-cache", false);
         this.deprecatedVerbose = this.getPropertyBoolean("deprecated-verbose", true);
         switch (this.getPropertyString("server-authoritative-movement")) {
             case "client-auth" -> this.serverAuthoritativeMovementMode = 0;
@@ -3363,6 +3641,8 @@ public class Server {
             put("auto-tick-rate-limit", 20);
             put("base-tick-rate", 1);
             put("always-tick-players", false);
+            put("parallel-level-ticking", false);
+            put("parallel-level-ticking-threads", 0);
             put("light-updates", false);
             put("clear-chunk-tick-list", true);
             put("spawn-threshold", 56);
@@ -3372,6 +3652,7 @@ public class Server {
             put("chunk-generation-queue-size", 8);
             put("chunk-generation-population-queue-size", 8);
             put("ticks-per-autosave", 6000);
+            put("autosave-tick-budget", 0);
             put("ticks-per-entity-spawns", 200);
             put("ticks-per-entity-despawns", 12000);
             put("thread-watchdog", true);
@@ -3412,6 +3693,12 @@ public class Server {
             put("bstats-metrics", true);
             put("cache-chunks", false);
             put("async-chunks", true);
+            put("async-chunk-loading", true);
+            put("async-light-updates", true);
+            put("sky-light-updates", false);
+            put("chunk-packet-cache-size", 0);
+            put("sub-chunk-requests", false);
+            put("client-blob-cache", false);
             put("deprecated-verbose", true);
             put("server-authoritative-movement", "server-auth");
             put("server-authoritative-block-breaking", true);
@@ -30,9 +30,11 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
@@ -58,7 +60,32 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
 
     @SuppressWarnings("rawtypes")
     public static Class[] list = null;
+    /**
+     * Block states by full ID. Block states are created when they are first used, so states of blocks with meta are
+     * null here until then or until {@link #getFullList()} is called.
+     *
+     * @deprecated use {@link #getState(int)}
+     */
+    @Deprecated
     public static Block[] fullList = null;
+    /**
+     * Whether {@link #getFullList()} has created the states of all blocks
+     */
+    private static boolean fullListFilled = false;
+    /**
+     * Block states by ID and meta, created when they are first requested. The arrays grow to the highest meta requested
+     * and are replaced instead of modified, so they can be read without locking.
+     */
+    private static AtomicReferenceArray<Block[]> states = null;
+    /**
+     * Constructors taking the meta, null for blocks without meta
+     */
+    @SuppressWarnings("rawtypes")
+    private static Constructor[] metaConstructors = null;
+    /**
+     * Blocks created by the default constructor, blocks without meta use them for every meta
+     */
+    private static Block[] defaultStates = null;
     public static int[] light = null;
     public static int[] lightFilter = null;
     public static boolean[] solid = null;
@@ -80,7 +107,9 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
     public static void init() {
         if (list == null) {
             list = new Class[MAX_BLOCK_ID];
-            fullList = new Block[MAX_BLOCK_ID * (1 << DATA_BITS)];
+            states = new AtomicReferenceArray<>(MAX_BLOCK_ID);
+            metaConstructors = new Constructor[MAX_BLOCK_ID];
+            defaultStates = new Block[MAX_BLOCK_ID];
             light = new int[MAX_BLOCK_ID];
             lightFilter = new int[MAX_BLOCK_ID];
             solid = new boolean[MAX_BLOCK_ID];
@@ -88,6 +117,7 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
             transparent = new boolean[MAX_BLOCK_ID];
             diffusesSkyLight = new boolean[MAX_BLOCK_ID];
             hasMeta = new boolean[MAX_BLOCK_ID];
+            fullList = new Block[FULL_SIZE];
 
             Blocks.init();
 
@@ -100,37 +130,17 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
                     try {
                         block = (Block) c.getDeclaredConstructor().newInstance();
                         try {
+                            // The states are created on first use by getState
                             @SuppressWarnings("rawtypes")
                             Constructor constructor = c.getDeclaredConstructor(int.class);
                             constructor.setAccessible(true);
-                            for (int data = 0; data < DATA_SIZE; ++data) {
-                                int fullId = (id << DATA_BITS) | data;
-                                Block b;
-                                try {
-                                    b = (Block) constructor.newInstance(data);
-                                    if (b.getDamage() != data) {
-                                        //b = new BlockUnknown(id, data);
-                                        continue;
-                                    }
-                                } catch (Exception e) {
-                                    Server.getInstance().getLogger().error("Error while registering " + c.getName(), e);
-                                    //b = new BlockUnknown(id, data);
-                                    continue;
-                                }
-                                fullList[fullId] = b;
-                            }
+                            metaConstructors[id] = constructor;
                             hasMeta[id] = true;
                         } catch (NoSuchMethodException ignore) {
-                            for (int data = 0; data < DATA_SIZE; ++data) {
-                                int fullId = (id << DATA_BITS) | data;
-                                fullList[fullId] = block;
-                            }
+                            defaultStates[id] = block;
                         }
                     } catch (Exception e) {
                         Server.getInstance().getLogger().error("Error while registering " + c.getName(), e);
-                        /*for (int data = 0; data < DATA_SIZE; ++data) {
-                            fullList[(id << DATA_BITS) | data] = new BlockUnknown(id, data);
-                        }*/
                         return;
                     }
 
@@ -159,95 +169,183 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
                     }
                 } else {
                     lightFilter[id] = 1;
-                    /*for (int data = 0; data < DATA_SIZE; ++data) {
-                        fullList[(id << DATA_BITS) | data] = new BlockUnknown(id, data);
-                    }*/
                 }
             });
+
+            for (int id = 0; id < MAX_BLOCK_ID; id++) {
+                if (defaultStates[id] != null) {
+                    Arrays.fill(fullList, id << DATA_BITS, (id + 1) << DATA_BITS, defaultStates[id]);
+                }
+            }
         }
     }
 
-    public static Block get(int id) {
-        return get(id, null);
+    /**
+     * Get the shared instance of a block state. It must not be modified, use {@link #get(int, int)} for a block that
+     * can be changed.
+     *
+     * @param fullId block ID shifted by {@link #DATA_BITS} combined with the meta
+     * @return block state, an unknown block if the state doesn't exist
+     */
+    public static Block getState(int fullId) {
+        return getState(fullId >> DATA_BITS, fullId & DATA_MASK);
     }
 
-    public static Block get(int id, Integer meta) {
-        if (id < 0) {
-            id = 255 - id;
+    /**
+     * Get the shared instance of a block state. It must not be modified, use {@link #get(int, int)} for a block that
+     * can be changed.
+     *
+     * @param id   block ID
+     * @param meta meta below {@link #DATA_SIZE}
+     * @return block state, an unknown block if the state doesn't exist
+     */
+    public static Block getState(int id, int meta) {
+        if (id < 0 || id >= MAX_BLOCK_ID || meta < 0 || meta >= DATA_SIZE) {
+            log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
+            return new BlockUnknown(id, meta);
         }
 
-        if (id >= CustomBlockManager.LOWEST_CUSTOM_BLOCK_ID) {
-            return CustomBlockManager.get().getBlock(id, meta == null ? 0 : meta);
+        Block block = defaultStates[id];
+        if (block != null) {
+            return block;
         }
 
-        int fullId = id << DATA_BITS;
-        if (meta != null) {
-            int iMeta = meta;
-            if (iMeta <= DATA_SIZE) {
-                fullId = fullId | meta;
-                if (fullId >= fullList.length || fullList[fullId] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, iMeta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, iMeta);
-                    fullList[fullId] = blockUnknown;
-                    return blockUnknown.clone();
-                }
-                return fullList[fullId].clone();
+        Block[] metas = states.get(id);
+        if (metas != null && meta < metas.length) {
+            block = metas[meta];
+            if (block != null) {
+                return block;
+            }
+        }
+
+        block = createState(id, meta);
+        synchronized (states) {
+            metas = states.get(id);
+            if (metas == null) {
+                metas = new Block[meta + 1];
+            } else if (meta >= metas.length) {
+                metas = Arrays.copyOf(metas, meta + 1);
+            } else if (metas[meta] != null) {
+                // Created by another thread meanwhile
+                return metas[meta];
             } else {
-                if (fullId >= fullList.length || fullList[fullId] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, iMeta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, iMeta);
-                    fullList[fullId] = blockUnknown;
-                    return blockUnknown.clone();
+                // Copied so readers never see a partly written array
+                metas = metas.clone();
+            }
+            metas[meta] = block;
+            states.set(id, metas);
+            if (!(block instanceof BlockUnknown)) {
+                fullList[(id << DATA_BITS) | meta] = block;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Get every block state by full ID, like the {@link #fullList} that used to be filled on startup. The first call
+     * creates all states of all blocks, which takes a lot of time and memory.
+     *
+     * @return block states by full ID, null for states that don't exist
+     * @deprecated use {@link #getState(int)}
+     */
+    @Deprecated
+    public static synchronized Block[] getFullList() {
+        if (!fullListFilled) {
+            for (int id = 0; id < MAX_BLOCK_ID; id++) {
+                if (metaConstructors[id] == null) {
+                    continue;
+                }
+
+                Block[] created = new Block[DATA_SIZE];
+                for (int data = 0; data < DATA_SIZE; data++) {
+                    if (fullList[(id << DATA_BITS) | data] == null) {
+                        created[data] = newState(id, data);
+                    }
+                }
+
+                synchronized (states) {
+                    Block[] metas = states.get(id);
+                    Block[] filled = new Block[DATA_SIZE];
+                    int length = 0;
+                    for (int data = 0; data < DATA_SIZE; data++) {
+                        // Keep the states getState has handed out
+                        Block block = metas != null && data < metas.length ? metas[data] : null;
+                        if (block == null) {
+                            block = created[data];
+                        }
+                        if (block != null) {
+                            filled[data] = block;
+                            length = data + 1;
+                            if (!(block instanceof BlockUnknown)) {
+                                fullList[(id << DATA_BITS) | data] = block;
+                            }
+                        }
+                    }
+                    states.set(id, Arrays.copyOf(filled, length));
                 }
-                Block block = fullList[fullId].clone();
-                block.setDamage(iMeta);
-                return block;
             }
-        } else {
-            if (fullId >= fullList.length || fullList[fullId] == null) {
-                log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, 0);
-                return new BlockUnknown(id, 0);
+            fullListFilled = true;
+        }
+        return fullList;
+    }
+
+    private static Block createState(int id, int meta) {
+        Block block = newState(id, meta);
+        if (block == null) {
+            log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
+            return new BlockUnknown(id, meta);
+        }
+        return block;
+    }
+
+    /**
+     * Create a block state with the meta constructor of the block
+     *
+     * @return block state, null if the block has no meta constructor or the state doesn't exist
+     */
+    private static Block newState(int id, int meta) {
+        @SuppressWarnings("rawtypes")
+        Constructor constructor = metaConstructors[id];
+        if (constructor != null) {
+            try {
+                Block block = (Block) constructor.newInstance(meta);
+                if (block.getDamage() == meta) {
+                    return block;
+                }
+            } catch (Exception e) {
+                Server.getInstance().getLogger().error("Error while registering " + list[id].getName(), e);
             }
-            return fullList[fullId].clone();
         }
+        return null;
     }
 
-    public static Block get(int id, Integer meta, Position pos) {
-        return get(id, meta, pos, 0);
+    public static Block get(int id) {
+        return get(id, null);
     }
 
-    public static Block get(int id, Integer meta, Position pos, int layer) {
+    public static Block get(int id, Integer meta) {
         if (id < 0) {
             id = 255 - id;
         }
 
-        Block block;
         if (id >= CustomBlockManager.LOWEST_CUSTOM_BLOCK_ID) {
-            block = CustomBlockManager.get().getBlock(id, meta == null ? 0 : meta);
-        } else {
-            int fullId = id << DATA_BITS;
-            if (meta != null && meta > DATA_SIZE) {
-                if (fullId >= fullList.length || fullList[fullId] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, meta);
-                    fullList[fullId] = blockUnknown;
-                    return blockUnknown.clone();
-                }
-                block = fullList[fullId].clone();
-                block.setDamage(meta);
-            } else {
-                meta = meta == null ? 0 : meta;
-                fullId = fullId | meta;
-                if (fullId >= fullList.length || fullList[fullId] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, meta);
-                    fullList[fullId] = blockUnknown;
-                    return blockUnknown.clone();
-                }
-                block = fullList[fullId].clone();
-            }
+            return CustomBlockManager.get().getBlock(id, meta == null ? 0 : meta);
+        }
+
+        if (meta != null && meta >= DATA_SIZE) {
+            Block block = getState(id, 0).clone();
+            block.setDamage(meta);
+            return block;
         }
+        return getState(id, meta == null ? 0 : meta).clone();
+    }
 
+    public static Block get(int id, Integer meta, Position pos) {
+        return get(id, meta, pos, 0);
+    }
+
+    public static Block get(int id, Integer meta, Position pos, int layer) {
+        Block block = get(id, meta);
         if (pos != null) {
             block.x = pos.x;
             block.y = pos.y;
@@ -267,25 +365,12 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
             return CustomBlockManager.get().getBlock(id, 0);
         }
 
-        int fullId = id << DATA_BITS;
-        if (fullId >= fullList.length) {
-            log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, data);
-            return new BlockUnknown(id, data);
-        }
-        if (data < DATA_SIZE) {
-            fullId = fullId | data;
-            if (fullList[fullId] == null) {
-                log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, data);
-                BlockUnknown blockUnknown = new BlockUnknown(id, data);
-                fullList[fullId] = blockUnknown;
-                return blockUnknown.clone();
-            }
-            return fullList[fullId].clone();
-        } else {
-            Block block = fullList[fullId].clone();
+        if (data >= DATA_SIZE) {
+            Block block = getState(id, 0).clone();
             block.setDamage(data);
             return block;
         }
+        return getState(id, data).clone();
     }
 
     public static Block get(int fullId, Level level, int x, int y, int z) {
@@ -293,20 +378,13 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
     }
 
     public static Block get(int fullId, Level level, int x, int y, int z, int layer) {
-        int id = fullId << DATA_BITS;
+        int id = fullId >> DATA_BITS;
 
         Block block;
         if (id >= CustomBlockManager.LOWEST_CUSTOM_BLOCK_ID) {
             block = CustomBlockManager.get().getBlock(id, 0);
         } else {
-            if (fullId >= fullList.length || fullList[fullId] == null) {
-                int meta = fullId & DATA_BITS;
-                log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
-                BlockUnknown blockUnknown = new BlockUnknown(id, meta);
-                fullList[fullId] = blockUnknown;
-                return blockUnknown.clone();
-            }
-            block = fullList[fullId].clone();
+            block = getState(fullId).clone();
         }
         block.x = x;
         block.y = y;
@@ -324,27 +402,11 @@ public abstract class Block extends Position implements Metadatable, Cloneable,
         Block block;
         if (id >= CustomBlockManager.LOWEST_CUSTOM_BLOCK_ID) {
             block = CustomBlockManager.get().getBlock(id, 0);
+        } else if (meta >= DATA_SIZE) {
+            block = getState(id, 0).clone();
+            block.setDamage(meta);
         } else {
-            if (meta <= DATA_SIZE) {
-                int index = id << DATA_BITS | meta;
-                if (fullList[index] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, meta);
-                    fullList[index] = blockUnknown;
-                    return blockUnknown.clone();
-                }
-                block = fullList[index].clone();
-            } else {
-                int index = id << DATA_BITS;
-                if (fullList[index] == null) {
-                    log.debug("Found an unknown BlockId:Meta combination: {}:{}", id, meta);
-                    BlockUnknown blockUnknown = new BlockUnknown(id, meta);
-                    fullList[index] = blockUnknown;
-                    return blockUnknown.clone();
-                }
-                block = fullList[index].clone();
-                block.setDamage(meta);
-            }
+            block = getState(id, meta).clone();
         }
         block.x = x;
         block.y = y;
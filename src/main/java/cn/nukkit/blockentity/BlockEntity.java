@@ -9,11 +9,14 @@ import cn.nukkit.level.persistence.impl.PersistentDataContainerBlockWrapper;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.utils.ChunkException;
+import cn.nukkit.utils.ConstructorHandles;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * @author MagicDroidX
@@ -62,7 +65,19 @@ public abstract class BlockEntity extends Position {
     // Not a vanilla block entity
     public static final String PERSISTENT_CONTAINER = "PersistentContainer";
 
-    public static long count = 1;
+    /**
+     * Next block entity id. Chunks of different levels can be loaded concurrently, so it is taken atomically.
+     */
+    public static volatile long count = 1;
+    private static final VarHandle COUNT;
+
+    static {
+        try {
+            COUNT = MethodHandles.lookup().findStaticVarHandle(BlockEntity.class, "count", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     private static final BiMap<String, Class<? extends BlockEntity>> knownBlockEntities = HashBiMap.create(30);
 
@@ -88,7 +103,7 @@ public abstract class BlockEntity extends Position {
         this.setLevel(chunk.getProvider().getLevel());
         this.namedTag = nbt;
         this.name = "";
-        this.id = BlockEntity.count++;
+        this.id = (long) COUNT.getAndAdd(1L);
         this.x = this.namedTag.getInt("x");
         this.y = this.namedTag.getInt("y");
         this.z = this.namedTag.getInt("z");
@@ -107,38 +122,28 @@ public abstract class BlockEntity extends Position {
     }
 
     public static BlockEntity createBlockEntity(String type, FullChunk chunk, CompoundTag nbt, Object... args) {
-        BlockEntity blockEntity = null;
-
         Class<? extends BlockEntity> clazz = knownBlockEntities.get(type);
-        if (clazz != null) {
-            for (Constructor<?> constructor : clazz.getConstructors()) {
-                if (blockEntity != null) {
-                    break;
-                }
-
-                if (constructor.getParameterCount() != (args == null ? 2 : args.length + 2)) {
-                    continue;
-                }
-
-                try {
-                    if (args == null || args.length == 0) {
-                        blockEntity = (BlockEntity) constructor.newInstance(chunk, nbt);
-                    } else {
-                        Object[] objects = new Object[args.length + 2];
-
-                        objects[0] = chunk;
-                        objects[1] = nbt;
-                        System.arraycopy(args, 0, objects, 2, args.length);
-                        blockEntity = (BlockEntity) constructor.newInstance(objects);
-
-                    }
-                } catch (Exception ignored) {}
-            }
-        } else {
+        if (clazz == null) {
             Server.getInstance().getLogger().warning("Tried to create block entity that doesn't exists: " + type);
+            return null;
         }
 
-        return blockEntity;
+        Object[] objects;
+        if (args == null || args.length == 0) {
+            objects = new Object[]{chunk, nbt};
+        } else {
+            objects = new Object[args.length + 2];
+            objects[0] = chunk;
+            objects[1] = nbt;
+            System.arraycopy(args, 0, objects, 2, args.length);
+        }
+
+        for (MethodHandle constructor : ConstructorHandles.get(clazz, objects.length)) {
+            try {
+                return (BlockEntity) (Object) constructor.invokeExact(objects);
+            } catch (Throwable ignored) {}
+        }
+        return null;
     }
 
     public static boolean registerBlockEntity(String name, Class<? extends BlockEntity> c) {
@@ -71,7 +71,7 @@ public abstract class BaseEntity extends EntityCreature implements EntityAgeable
      * Empty inventory
      * Used to fix the problem of getting the player's hand-held item null pointer
      */
-    protected static PlayerInventory EMPTY_INVENTORY;
+    protected static volatile PlayerInventory EMPTY_INVENTORY;
 
     public int stayTime = 0;
     protected int moveTime = 0;
@@ -95,6 +95,9 @@ public abstract class BaseEntity extends EntityCreature implements EntityAgeable
     @Getter
     private boolean persistent;
 
+    private EntityCreature nearestTarget;
+    private double nearestTargetDistance;
+
     public Item[] armor;
 
     public BaseEntity(FullChunk chunk, CompoundTag nbt) {
@@ -249,6 +252,47 @@ public abstract class BaseEntity extends EntityCreature implements EntityAgeable
         return false;
     }
 
+    /**
+     * Get the radius creatures are looked up in when choosing a target. {@link #targetOption(EntityCreature, double)}
+     * must not accept creatures further away than this.
+     *
+     * @return search radius in blocks
+     */
+    public double getTargetSearchRadius() {
+        return 64;
+    }
+
+    /**
+     * Find the closest creature this entity can target
+     *
+     * @param sameFriendliness whether creatures as friendly as this entity can be targeted
+     * @return closest target or null
+     */
+    protected EntityCreature findNearestTarget(boolean sameFriendliness) {
+        this.nearestTarget = null;
+        this.nearestTargetDistance = Integer.MAX_VALUE;
+        this.level.getEntityIndex().forEachInRadius(this.x, this.y, this.z, this.getTargetSearchRadius(), EntityCreature.class, creature -> {
+            if (creature == this || !this.canTarget(creature)) {
+                return;
+            }
+
+            if (!sameFriendliness && creature instanceof BaseEntity baseEntity && baseEntity.isFriendly() == this.isFriendly()) {
+                return;
+            }
+
+            double distance = this.distanceSquared(creature);
+            if (distance > this.nearestTargetDistance || !this.targetOption(creature, distance)) {
+                return;
+            }
+            this.nearestTargetDistance = distance;
+            this.nearestTarget = creature;
+        });
+
+        EntityCreature target = this.nearestTarget;
+        this.nearestTarget = null;
+        return target;
+    }
+
     @Override
     public boolean entityBaseTick(int tickDiff) {
         if (this.canDespawn() && this.age > Server.getInstance().mobDespawnTicks && !this.hasCustomName() && !(this instanceof EntityBoss)) {
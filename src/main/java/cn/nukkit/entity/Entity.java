@@ -38,6 +38,7 @@ import cn.nukkit.plugin.Plugin;
 import cn.nukkit.potion.Effect;
 import cn.nukkit.scheduler.AsyncTask;
 import cn.nukkit.utils.ChunkException;
+import cn.nukkit.utils.ConstructorHandles;
 import cn.nukkit.utils.Identifier;
 import cn.nukkit.utils.MainLogger;
 import cn.nukkit.utils.Utils;
@@ -48,7 +49,9 @@ import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
@@ -389,7 +392,20 @@ public abstract class Entity extends Location implements Metadatable {
     public static final double STEP_CLIP_MULTIPLIER = 0.4;
     public static final int ENTITY_COORDINATES_MAX_VALUE = 2100000000;
 
-    public static long entityCount = 1;
+    /**
+     * Next runtime entity id. Levels can create entities concurrently, so new code should take ids with
+     * {@link #nextEntityId()}, which updates this field atomically.
+     */
+    public static volatile long entityCount = 1;
+    private static final VarHandle ENTITY_COUNT;
+
+    static {
+        try {
+            ENTITY_COUNT = MethodHandles.lookup().findStaticVarHandle(Entity.class, "entityCount", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     private static final Map<String, Class<? extends Entity>> knownEntities = new HashMap<>();
     private static final Map<String, String> shortNames = new HashMap<>();
@@ -442,6 +458,11 @@ public abstract class Entity extends Location implements Metadatable {
 
     public FullChunk chunk;
 
+    /**
+     * Section this entity is filed under in the spatial index of its level
+     */
+    private long indexedSection = EntitySpatialIndex.NOT_INDEXED;
+
     protected EntityDamageEvent lastDamageCause = null;
 
     public List<Block> blocksAround = new ArrayList<>();
@@ -596,6 +617,15 @@ public abstract class Entity extends Location implements Metadatable {
         this.init(chunk, nbt);
     }
 
+    /**
+     * Create an entity that is not in a level yet. The subclass has to call {@link #init(FullChunk, CompoundTag)}
+     * before the entity is spawned, like {@link Player} does.
+     */
+    protected Entity() {
+        this.isPlayer = this instanceof Player;
+        initEntityProperties();
+    }
+
     protected void initEntity() {
         if (this.initEntity) {
             throw new RuntimeException("Entity is already initialized: " + this.getName() + " (" + this.id + ')');
@@ -661,21 +691,12 @@ public abstract class Entity extends Location implements Metadatable {
 
         this.temporalVector = new Vector3();
 
-        if (Server.getInstance().netEaseMode) {
-            // 2^31 - 2^33 给网易uid预留使用
-            if (entityCount >= Integer.MAX_VALUE && entityCount < Integer.MAX_VALUE * 4L) {
-                entityCount = Integer.MAX_VALUE * 4L;
-            }
-
-            if (this instanceof Player player) {
-                long uid = player.getLoginChainData().getNetEaseUID();
-                this.id = uid > Integer.MAX_VALUE ? uid : entityCount;
-            } else {
-                this.id = entityCount;
+        this.id = nextEntityId();
+        if (Server.getInstance().netEaseMode && this instanceof Player player) {
+            long uid = player.getLoginChainData().getNetEaseUID();
+            if (uid > Integer.MAX_VALUE) {
+                this.id = uid;
             }
-            entityCount++;
-        } else {
-            this.id = entityCount++;
         }
 
         this.justCreated = true;
@@ -1167,39 +1188,47 @@ public abstract class Entity extends Location implements Metadatable {
     }
 
     private static Entity createEntity(Class<? extends Entity> clazz, FullChunk chunk, CompoundTag nbt, Object... args) {
-        Entity entity = null;
-
         if (clazz == null) {
             return null;
         }
 
-        for (Constructor constructor : clazz.getConstructors()) {
-            if (entity != null) {
-                break;
-            }
-
-            if (constructor.getParameterCount() != (args == null ? 2 : args.length + 2)) {
-                continue;
-            }
+        Object[] objects;
+        if (args == null || args.length == 0) {
+            objects = new Object[]{chunk, nbt};
+        } else {
+            objects = new Object[args.length + 2];
+            objects[0] = chunk;
+            objects[1] = nbt;
+            System.arraycopy(args, 0, objects, 2, args.length);
+        }
 
+        for (MethodHandle constructor : ConstructorHandles.get(clazz, objects.length)) {
             try {
-                if (args == null || args.length == 0) {
-                    entity = (Entity) constructor.newInstance(chunk, nbt);
-                } else {
-                    Object[] objects = new Object[args.length + 2];
-
-                    objects[0] = chunk;
-                    objects[1] = nbt;
-                    System.arraycopy(args, 0, objects, 2, args.length);
-                    entity = (Entity) constructor.newInstance(objects);
-
-                }
-            } catch (Exception e) {
+                return (Entity) (Object) constructor.invokeExact(objects);
+            } catch (Throwable e) {
                 MainLogger.getLogger().logException(e);
             }
         }
+        return null;
+    }
 
-        return entity;
+    /**
+     * Take the next runtime entity id
+     *
+     * @return unique runtime entity id
+     */
+    public static long nextEntityId() {
+        if (!Server.getInstance().netEaseMode) {
+            return (long) ENTITY_COUNT.getAndAdd(1L);
+        }
+        while (true) {
+            long count = entityCount;
+            // 2^31 - 2^33 给网易uid预留使用
+            long id = count >= Integer.MAX_VALUE && count < Integer.MAX_VALUE * 4L ? Integer.MAX_VALUE * 4L : count;
+            if (ENTITY_COUNT.compareAndSet(count, id + 1)) {
+                return id;
+            }
+        }
     }
 
     public static boolean registerEntity(String name, Class<? extends Entity> clazz) {
@@ -2405,6 +2434,14 @@ public abstract class Entity extends Location implements Metadatable {
         return this.boundingBox;
     }
 
+    public long getIndexedSection() {
+        return this.indexedSection;
+    }
+
+    public void setIndexedSection(long indexedSection) {
+        this.indexedSection = indexedSection;
+    }
+
     public void fall(float fallDistance) {
         if (fallDistance > 0.75) {
             int block = this.level.getBlockIdAt(this.chunk, this.getFloorX(), this.getFloorY(), this.getFloorZ());
@@ -2993,6 +3030,8 @@ public abstract class Entity extends Location implements Metadatable {
     }
 
     protected void checkChunks() {
+        this.level.getEntityIndex().update(this);
+
         int cx = (int) this.x >> 4;
         int cz = (int) this.z >> 4;
         if (this.chunk == null || (this.chunk.getX() != cx) || this.chunk.getZ() != cz) {
@@ -3140,6 +3179,12 @@ public abstract class Entity extends Location implements Metadatable {
     }
 
     public boolean teleport(Location location, PlayerTeleportEvent.TeleportCause cause) {
+        if (location.level != null && location.level != this.level && this.server.isLevelTickThread()) {
+            // Cross-level teleports are not safe while levels tick in parallel
+            this.server.runAfterLevelTicks(() -> this.teleport(location, cause));
+            return true;
+        }
+
         Location from = this.getLocation();
         Location to = location;
         if (cause != null) {
@@ -26,22 +26,8 @@ public abstract class EntityFlying extends BaseEntity {
 
         Vector3 target = this.target;
         if (!(target instanceof EntityCreature) || (!((EntityCreature) target).closed && !this.targetOption((EntityCreature) target, this.distanceSquared(target))) || !((Entity) target).canBeFollowed()) {
-            double near = Integer.MAX_VALUE;
-            for (Entity entity : this.getLevel().getEntities()) {
-                if (entity == this || !(entity instanceof EntityCreature creature) || entity.closed || !this.canTarget(entity)) {
-                    continue;
-                }
-
-                if (creature instanceof BaseEntity && ((BaseEntity) creature).isFriendly() == this.isFriendly()) {
-                    continue;
-                }
-
-                double distance = this.distanceSquared(creature);
-                if (distance > near || !this.targetOption(creature, distance)) {
-                    continue;
-                }
-                near = distance;
-
+            EntityCreature creature = this.findNearestTarget(false);
+            if (creature != null) {
                 this.stayTime = 0;
                 this.moveTime = 0;
                 this.target = creature;
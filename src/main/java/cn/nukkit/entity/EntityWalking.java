@@ -47,22 +47,8 @@ public abstract class EntityWalking extends BaseEntity {
             return;
         }
 
-        double near = Integer.MAX_VALUE;
-        for (Entity entity : this.getLevel().getEntities()) {
-            if (entity == this || !(entity instanceof EntityCreature creature) || entity.closed || !this.canTarget(entity)) {
-                continue;
-            }
-
-            if (creature instanceof BaseEntity baseEntity && baseEntity.isFriendly() == this.isFriendly() && !this.isInLove()) {
-                continue;
-            }
-
-            double distance = this.distanceSquared(creature);
-            if (distance > near || !this.targetOption(creature, distance)) {
-                continue;
-            }
-            near = distance;
-
+        EntityCreature creature = this.findNearestTarget(this.isInLove());
+        if (creature != null) {
             this.stayTime = 0;
             this.moveTime = 0;
             this.followTarget = creature;
@@ -157,6 +157,31 @@ public class EntityItem extends Entity {
         return false;
     }
 
+    private void tryMerge(EntityItem entity) {
+        if (entity == this || entity.closed || !entity.isAlive()) {
+            return;
+        }
+        Item closeItem = entity.item;
+        if (!closeItem.equals(item, true, true)) {
+            return;
+        }
+        if (!entity.isOnGround()) {
+            return;
+        }
+        int newAmount = this.item.getCount() + closeItem.getCount();
+        if (newAmount > this.item.getMaxStackSize()) {
+            return;
+        }
+        closeItem.setCount(0);
+        entity.close();
+        this.item.setCount(newAmount);
+        EntityEventPacket packet = new EntityEventPacket();
+        packet.eid = getId();
+        packet.data = newAmount;
+        packet.event = EntityEventPacket.MERGE_ITEMS;
+        Server.broadcastPacket(this.getViewers().values(), packet);
+    }
+
     @Override
     public boolean onUpdate(int currentTick) {
         if (this.closed) {
@@ -211,36 +236,7 @@ public class EntityItem extends Entity {
 
             if (this.age % 200 == 0 && this.onGround && this.item != null) {
                 if (this.item.getCount() < this.item.getMaxStackSize()) {
-                    //if (e == null) {
-                    Entity[] e = this.getLevel().getNearbyEntities(getBoundingBox().grow(1, 1, 1), this, false);
-                    //}
-
-                    for (Entity entity : e) {
-                        if (entity instanceof EntityItem) {
-                            if (entity.closed || !entity.isAlive()) {
-                                continue;
-                            }
-                            Item closeItem = ((EntityItem) entity).item;
-                            if (!closeItem.equals(item, true, true)) {
-                                continue;
-                            }
-                            if (!entity.isOnGround()) {
-                                continue;
-                            }
-                            int newAmount = this.item.getCount() + closeItem.getCount();
-                            if (newAmount > this.item.getMaxStackSize()) {
-                                continue;
-                            }
-                            closeItem.setCount(0);
-                            entity.close();
-                            this.item.setCount(newAmount);
-                            EntityEventPacket packet = new EntityEventPacket();
-                            packet.eid = getId();
-                            packet.data = newAmount;
-                            packet.event = EntityEventPacket.MERGE_ITEMS;
-                            Server.broadcastPacket(this.getViewers().values(), packet);
-                        }
-                    }
+                    this.getLevel().getEntityIndex().forEach(getBoundingBox().grow(1, 1, 1), EntityItem.class, this::tryMerge);
                 }
             }
 
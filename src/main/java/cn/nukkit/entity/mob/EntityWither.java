@@ -112,6 +112,11 @@ public class EntityWither extends EntityFlyingMob implements EntityBoss, EntityS
         return creature.isAlive() && !creature.closed && distance <= 10000;
     }
 
+    @Override
+    public double getTargetSearchRadius() {
+        return 100;
+    }
+
     @Override
     public int getKillExperience() {
         return 50;
@@ -18,6 +18,7 @@ import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.zip.Deflater;
 
 /**
@@ -146,15 +147,29 @@ public class CraftingManager {
         this.registerMultiRecipe(new FireworkRecipe());
         this.registerMultiRecipe(new DecoratedPotRecipe());
 
-        ConfigSection recipes_649_config = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes649.json")).getRootSection();
-        ConfigSection recipes_419_config = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes419.json")).getRootSection();
-        List<Map> recipes_388 = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes388.json")).getRootSection().getMapList("recipes");
-        List<Map> recipes_332 = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes332.json")).getMapList("recipes");
-        List<Map> recipes_313 = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes313.json")).getMapList("recipes");
-
-        ConfigSection recipes_smithing_config = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes_smithing.json")).getRootSection();
-        ConfigSection recipes_extras_440 = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes/recipes_extras_440.json")).getRootSection();
-        Config furnaceXpConfig = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes/furnace_xp.json"));
+        // The recipe files are parsed in parallel. Recipes of protocols that can't join aren't loaded.
+        boolean load313 = Server.getInstance().isProtocolRangeAllowed(0, ProtocolInfo.v1_10_0);
+        boolean load332 = Server.getInstance().isProtocolRangeAllowed(ProtocolInfo.v1_10_0, ProtocolInfo.v1_11_0);
+        CompletableFuture<Config> config649 = loadConfig("recipes649.json");
+        CompletableFuture<Config> config419 = loadConfig("recipes419.json");
+        CompletableFuture<Config> config388 = loadConfig("recipes388.json");
+        CompletableFuture<Config> config332 = load332 ? loadConfig("recipes332.json") : null;
+        CompletableFuture<Config> config313 = load313 ? loadConfig("recipes313.json") : null;
+        CompletableFuture<Config> configSmithing = loadConfig("recipes_smithing.json");
+        CompletableFuture<Config> configExtras440 = loadConfig("recipes/recipes_extras_440.json");
+        CompletableFuture<Config> configFurnaceXp = loadConfig("recipes/furnace_xp.json");
+        CompletableFuture<Config> configExtras407 = loadConfig("extras_407.json");
+
+        ConfigSection recipes_649_config = config649.join().getRootSection();
+        ConfigSection recipes_419_config = config419.join().getRootSection();
+        Config extras = config388.join();
+        List<Map> recipes_388 = extras.getRootSection().getMapList("recipes");
+        List<Map> recipes_332 = load332 ? config332.join().getMapList("recipes") : Collections.emptyList();
+        List<Map> recipes_313 = load313 ? config313.join().getMapList("recipes") : Collections.emptyList();
+
+        ConfigSection recipes_smithing_config = configSmithing.join().getRootSection();
+        ConfigSection recipes_extras_440 = configExtras440.join().getRootSection();
+        Config furnaceXpConfig = configFurnaceXp.join();
 
         this.loadRecipes(649, recipes_649_config, furnaceXpConfig);
 
@@ -413,7 +428,6 @@ public class CraftingManager {
             }
         }
 
-        Config extras = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("recipes388.json"));
         List<Map> potionMixes = extras.getMapList("potionMixes");
         for (Map potionMix : potionMixes) {
             int fromPotionId = ((Number) potionMix.get("fromPotionId")).intValue();
@@ -430,7 +444,7 @@ public class CraftingManager {
             registerContainerRecipeOld(new ContainerRecipe(Item.get(fromItemId), Item.get(ingredient), Item.get(toItemId)));
         }
 
-        Config extras407 = new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("extras_407.json"));
+        Config extras407 = configExtras407.join();
         List<Map> potionMixes407 = extras407.getMapList("potionMixes");
         for (Map potionMix : potionMixes407) {
             int fromPotionId = ((Number) potionMix.get("inputId")).intValue();
@@ -454,6 +468,11 @@ public class CraftingManager {
         MainLogger.getLogger().debug("Loaded " + this.recipes.size() + " recipes");
     }
 
+    private static CompletableFuture<Config> loadConfig(String file) {
+        return CompletableFuture.supplyAsync(() -> new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream(file)),
+                Server.getInstance().computeThreadPool);
+    }
+
     private void loadRecipes(int protocol, ConfigSection configSection, Config furnaceXpConfig) {
         List<Map<String, Object>> shapedRecipesList = new ArrayList<>();
         List<Map<String, Object>> shapelessRecipesList = new ArrayList<>();
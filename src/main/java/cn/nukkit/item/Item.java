@@ -37,6 +37,9 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.ByteOrder;
@@ -74,6 +77,21 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
 
     public static final String UNKNOWN_STR = "Unknown";
     public static Class<?>[] list = null;
+    /**
+     * The (Integer meta, int count) constructors of the classes in {@link #list}, null if a class has none
+     */
+    private static final ClassValue<MethodHandle> ITEM_CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findConstructor(type, MethodType.methodType(void.class, Integer.class, int.class))
+                        .asType(MethodType.methodType(Item.class, Integer.class, int.class));
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    };
     public static final Map<String, Supplier<Item>> NAMESPACED_ID_ITEM = new HashMap<>();
 
     private static final HashMap<String, Supplier<Item>> CUSTOM_ITEMS = new HashMap<>();
@@ -618,6 +636,9 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
     }
 
     private static void registerCreativeItems(GameVersion gameVersion) {
+        if (!isCreativeItemsUsed(getCreativeItemsAndGroups(gameVersion))) {
+            return;
+        }
         for (Map map : new Config(Config.YAML).loadFromStream(Server.class.getClassLoader().getResourceAsStream("creativeitems" + gameVersion.getProtocol() + ".json")).getMapList("items")) {
             try {
                 Item item = fromJson(map);
@@ -631,6 +652,9 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
     }
 
     private static void registerCreativeItemsNew(GameVersion gameVersion, GameVersion blockPaletteVersion, CreativeItems creativeItems) {
+        if (!isCreativeItemsUsed(creativeItems)) {
+            return;
+        }
         int protocol = gameVersion.getProtocol();
         JsonObject root;
         JsonArray itemsArray;
@@ -701,6 +725,25 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
         }
     }
 
+    /**
+     * Creative items that no allowed version uses don't have to be loaded
+     */
+    private static boolean isCreativeItemsUsed(CreativeItems creativeItems) {
+        for (GameVersion version : GameVersion.getValues()) {
+            if (!Server.getInstance().isVersionAllowed(version)) {
+                continue;
+            }
+            try {
+                if (getCreativeItemsAndGroups(version) == creativeItems) {
+                    return true;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // Version without creative items
+            }
+        }
+        return false;
+    }
+
     public static void clearCreativeItems() {
         Item.creative113.clear();
         Item.creative137.clear();
@@ -1076,7 +1119,7 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
     public static void registerNamespacedIdItem(@NotNull Class<? extends StringItem> item) {
         Constructor<? extends StringItem> declaredConstructor = item.getDeclaredConstructor();
         var Item = declaredConstructor.newInstance();
-        registerNamespacedIdItem(Item.getNamespaceId(), stringItemSupplier(declaredConstructor));
+        registerNamespacedIdItem(Item.getNamespaceId(), itemSupplier(declaredConstructor));
     }
 
     public static void registerNamespacedIdItem(@NotNull String namespacedId, @NotNull Constructor<? extends Item> constructor) {
@@ -1092,22 +1135,17 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
     }
 
     @NotNull
-    private static Supplier<Item> itemSupplier(@NotNull Constructor<? extends Item> constructor) {
-        return () -> {
-            try {
-                return constructor.newInstance();
-            } catch (ReflectiveOperationException e) {
-                throw new UnsupportedOperationException(e);
-            }
-        };
-    }
-
-    @NotNull
-    private static Supplier<Item> stringItemSupplier(@NotNull Constructor<? extends StringItem> constructor) {
+    private static Supplier<Item> itemSupplier(@NotNull Constructor<?> constructor) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Item.class));
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException(e);
+        }
         return () -> {
             try {
-                return (Item) constructor.newInstance();
-            } catch (ReflectiveOperationException e) {
+                return (Item) handle.invokeExact();
+            } catch (Throwable e) {
                 throw new UnsupportedOperationException(e);
             }
         };
@@ -1140,13 +1178,7 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
             var method = clazz.getDeclaredConstructor();
             method.setAccessible(true);
             customItem = method.newInstance();
-            supplier = () -> {
-                try {
-                    return (Item) method.newInstance();
-                } catch (ReflectiveOperationException e) {
-                    throw new UnsupportedOperationException(e);
-                }
-            };
+            supplier = itemSupplier(method);
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
                  NoSuchMethodException e) {
             return new OK<>(false, e);
@@ -1323,7 +1355,15 @@ public class Item implements Cloneable, BlockID, ItemID, ItemNamespaceId, Protoc
                     item = new ItemBlock(Block.get(id), meta, count);
                 }
             } else {
-                item = ((Item) c.getConstructor(Integer.class, int.class).newInstance(meta, count));
+                MethodHandle constructor = ITEM_CONSTRUCTORS.get(c);
+                if (constructor == null) {
+                    throw new NoSuchMethodException(c.getName() + ".<init>(Integer, int)");
+                }
+                try {
+                    item = (Item) constructor.invokeExact(meta, count);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
             }
 
             if (tags.length != 0) {
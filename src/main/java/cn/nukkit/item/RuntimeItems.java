@@ -13,8 +13,12 @@ import lombok.extern.log4j.Log4j2;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Log4j2
 @UtilityClass
@@ -104,42 +108,45 @@ public class RuntimeItems {
             }
         }
 
-        mapping361 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_12_0);
-        mapping419 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_16_100);
-        mapping440 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_17_0);
-        mapping448 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_17_10);
-        mapping475 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_18_0);
-        mapping486 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_18_10);
-        mapping503 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_18_30);
-        mapping527 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_0);
-        mapping534 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_10);
-        mapping560 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_50);
-        mapping567 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_60);
-        mapping575 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_70);
-        mapping582 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_19_80);
-        mapping589 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_0);
-        mapping594 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_10);
-        mapping618 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_30);
-        mapping630 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_50);
-        mapping649 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_60);
-        mapping662 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_70);
-        mapping671 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_80);
-        mapping685 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_0);
-        mapping712 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_20);
-        mapping729 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_30);
-        mapping748 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_40);
-        mapping766 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_50);
-        mapping776 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_60);
-        mapping786 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_70);
-        mapping800 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_80);
-        mapping818 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_90);
-        mapping827 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_100);
-        mapping844 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_110);
-        mapping859 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_120);
-        mapping898 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_130);
+        // The mappings don't depend on each other, so they are loaded in parallel
+        List<CompletableFuture<Void>> loading = new ArrayList<>();
+        loading.add(load(mappingEntries, GameVersion.V1_12_0, mapping -> mapping361 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_16_100, mapping -> mapping419 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_17_0, mapping -> mapping440 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_17_10, mapping -> mapping448 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_18_0, mapping -> mapping475 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_18_10, mapping -> mapping486 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_18_30, mapping -> mapping503 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_0, mapping -> mapping527 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_10, mapping -> mapping534 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_50, mapping -> mapping560 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_60, mapping -> mapping567 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_70, mapping -> mapping575 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_19_80, mapping -> mapping582 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_0, mapping -> mapping589 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_10, mapping -> mapping594 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_30, mapping -> mapping618 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_50, mapping -> mapping630 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_60, mapping -> mapping649 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_70, mapping -> mapping662 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_20_80, mapping -> mapping671 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_0, mapping -> mapping685 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_20, mapping -> mapping712 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_30, mapping -> mapping729 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_40, mapping -> mapping748 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_50, mapping -> mapping766 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_60, mapping -> mapping776 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_70, mapping -> mapping786 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_80, mapping -> mapping800 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_90, mapping -> mapping818 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_100, mapping -> mapping827 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_110, mapping -> mapping844 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_120, mapping -> mapping859 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_130, mapping -> mapping898 = mapping));
 
-        mapping_netease_630 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_20_50_NETEASE);
-        mapping_netease_686 = new RuntimeItemMapping(mappingEntries, GameVersion.V1_21_2_NETEASE);
+        loading.add(load(mappingEntries, GameVersion.V1_20_50_NETEASE, mapping -> mapping_netease_630 = mapping));
+        loading.add(load(mappingEntries, GameVersion.V1_21_2_NETEASE, mapping -> mapping_netease_686 = mapping));
+        CompletableFuture.allOf(loading.toArray(new CompletableFuture[0])).join();
 
         VALUES = new RuntimeItemMapping[]{
                 mapping361,
@@ -181,6 +188,11 @@ public class RuntimeItems {
         };
     }
 
+    private static CompletableFuture<Void> load(Map<String, MappingEntry> mappingEntries, GameVersion gameVersion, Consumer<RuntimeItemMapping> consumer) {
+        return CompletableFuture.supplyAsync(() -> new RuntimeItemMapping(mappingEntries, gameVersion), Server.getInstance().computeThreadPool)
+                .thenAccept(consumer);
+    }
+
     @Deprecated
     public static RuntimeItemMapping getMapping(int protocolId) {
         return getMapping(GameVersion.byProtocol(protocolId, Server.getInstance().onlyNetEaseMode));
@@ -0,0 +1,211 @@
+package cn.nukkit.level;
+
+import cn.nukkit.GameVersion;
+import cn.nukkit.network.protocol.BatchPacket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized chunk packets shared by all players and kept after the chunk is unloaded.
+ * <p>
+ * Entries are keyed by (level, chunk) and hold the packets of every game version that requested the chunk. Changing a
+ * chunk removes its entry, so outdated packets are never served again and nothing is left behind for chunks that are
+ * no longer cached. The cache is bounded by the total payload size.
+ * <p>
+ * Packets compressed off the level thread are reserved with {@link #reserve(Level, int, int, GameVersion)} while the
+ * chunk is known to be up to date and only stored by {@link #complete} if the chunk wasn't changed in the meantime.
+ */
+public class ChunkPacketCache {
+
+    private final Cache<Key, Entry> packets;
+    /**
+     * Hits and misses are counted per game version, not per cache entry
+     */
+    private final StatsCounter stats = new ConcurrentStatsCounter();
+    /**
+     * Reservations of packets that are still being compressed, by chunk and game version. The maps of the tokens are
+     * replaced instead of modified.
+     */
+    private final Map<Key, Map<GameVersion, Object>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBytes maximum total payload size of the cached packets
+     */
+    public ChunkPacketCache(long maxBytes) {
+        this.packets = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Key, Entry>weigher((key, entry) -> entry.size)
+                .evictionListener((key, entry, cause) -> this.stats.recordEviction(entry == null ? 0 : entry.size, cause))
+                .build();
+    }
+
+    /**
+     * Get the cached packet of a chunk
+     *
+     * @param level  level of the chunk
+     * @param chunkX chunk X
+     * @param chunkZ chunk Z
+     * @param gameVersion game version of the packet
+     * @return cached packet or null
+     */
+    public BatchPacket get(Level level, int chunkX, int chunkZ, GameVersion gameVersion) {
+        Entry entry = this.packets.getIfPresent(new Key(level.getId(), Level.chunkHash(chunkX, chunkZ)));
+        BatchPacket packet = entry == null || entry.antiXray != level.antiXrayEnabled() ? null : entry.packets.get(gameVersion);
+        if (packet == null) {
+            this.stats.recordMisses(1);
+        } else {
+            this.stats.recordHits(1);
+        }
+        return packet;
+    }
+
+    /**
+     * Cache the packet of a chunk. The chunk must not have been changed since the packet was serialized.
+     *
+     * @param level  level of the chunk
+     * @param chunkX chunk X
+     * @param chunkZ chunk Z
+     * @param gameVersion game version of the packet
+     * @param packet chunk packet
+     */
+    public void put(Level level, int chunkX, int chunkZ, GameVersion gameVersion, BatchPacket packet) {
+        packet.trim();
+        boolean antiXray = level.antiXrayEnabled();
+        this.packets.asMap().compute(new Key(level.getId(), Level.chunkHash(chunkX, chunkZ)), (key, old) -> {
+            // Entries are replaced instead of modified so the cache weighs them again
+            Map<GameVersion, BatchPacket> packets = new EnumMap<>(GameVersion.class);
+            if (old != null && old.antiXray == antiXray) {
+                packets.putAll(old.packets);
+            }
+            packets.put(gameVersion, packet);
+            return new Entry(antiXray, packets);
+        });
+    }
+
+    /**
+     * Reserve the packet of a chunk that is going to be compressed asynchronously. The chunk must not have been changed
+     * since the packet was serialized.
+     *
+     * @param level  level of the chunk
+     * @param chunkX chunk X
+     * @param chunkZ chunk Z
+     * @param gameVersion game version of the packet
+     * @return token to pass to {@link #complete}
+     */
+    public Object reserve(Level level, int chunkX, int chunkZ, GameVersion gameVersion) {
+        Object token = new Object();
+        this.pending.compute(new Key(level.getId(), Level.chunkHash(chunkX, chunkZ)), (key, tokens) -> {
+            Map<GameVersion, Object> reserved = tokens == null ? new EnumMap<>(GameVersion.class) : new EnumMap<>(tokens);
+            reserved.put(gameVersion, token);
+            return reserved;
+        });
+        return token;
+    }
+
+    /**
+     * Cache a reserved packet unless the chunk was changed or reserved again for the same game version since the
+     * reservation
+     *
+     * @param level  level of the chunk
+     * @param chunkX chunk X
+     * @param chunkZ chunk Z
+     * @param token  token returned by {@link #reserve(Level, int, int, GameVersion)}
+     * @param gameVersion game version of the packet
+     * @param packet chunk packet, null if it couldn't be created
+     */
+    public void complete(Level level, int chunkX, int chunkZ, Object token, GameVersion gameVersion, BatchPacket packet) {
+        this.pending.computeIfPresent(new Key(level.getId(), Level.chunkHash(chunkX, chunkZ)), (key, tokens) -> {
+            if (tokens.get(gameVersion) != token) {
+                return tokens;
+            }
+            if (packet != null) {
+                this.put(level, chunkX, chunkZ, gameVersion, packet);
+            }
+            if (tokens.size() == 1) {
+                return null;
+            }
+            Map<GameVersion, Object> reserved = new EnumMap<>(tokens);
+            reserved.remove(gameVersion);
+            return reserved;
+        });
+    }
+
+    /**
+     * Invalidate the cached packets of a chunk after it was changed
+     *
+     * @param level  level of the chunk
+     * @param chunkX chunk X
+     * @param chunkZ chunk Z
+     */
+    public void invalidate(Level level, int chunkX, int chunkZ) {
+        Key key = new Key(level.getId(), Level.chunkHash(chunkX, chunkZ));
+        // Reservations of all game versions first, a packet completed in between is removed below
+        this.pending.remove(key);
+        this.packets.invalidate(key);
+    }
+
+    /**
+     * Remove all cached packets of a level
+     *
+     * @param level level
+     */
+    public void invalidateAll(Level level) {
+        int levelId = level.getId();
+        this.pending.keySet().removeIf(key -> key.level == levelId);
+        this.packets.asMap().keySet().removeIf(key -> key.level == levelId);
+    }
+
+    /**
+     * Get the hit and miss statistics of the cache
+     *
+     * @return cache statistics
+     */
+    public CacheStats getStats() {
+        return this.stats.snapshot();
+    }
+
+    /**
+     * Get the number of cached chunks
+     *
+     * @return cached chunks
+     */
+    public long size() {
+        return this.packets.estimatedSize();
+    }
+
+    /**
+     * Get the total payload size of the cached packets
+     *
+     * @return cached bytes
+     */
+    public long getCachedBytes() {
+        return this.packets.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private record Key(int level, long chunk) {
+    }
+
+    private static final class Entry {
+
+        private final boolean antiXray;
+        private final Map<GameVersion, BatchPacket> packets;
+        private final int size;
+
+        private Entry(boolean antiXray, Map<GameVersion, BatchPacket> packets) {
+            this.antiXray = antiXray;
+            this.packets = packets;
+            int size = 0;
+            for (BatchPacket packet : packets.values()) {
+                size += packet.payload == null ? 0 : packet.payload.length;
+            }
+            this.size = size;
+        }
+    }
+}
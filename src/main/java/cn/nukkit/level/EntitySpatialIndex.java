@@ -0,0 +1,366 @@
+package cn.nukkit.level;
+
+import cn.nukkit.entity.Entity;
+import cn.nukkit.math.AxisAlignedBB;
+import cn.nukkit.utils.collection.nb.Long2ObjectNonBlockingMap;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Entities of a level bucketed by the 16x16x16 section their position is in, for range queries that only look at the
+ * entities close to the queried area.
+ * <p>
+ * Entities are filed again by {@link #update(Entity)} whenever their chunk is checked after moving. Buckets are
+ * copy-on-write arrays, so queries don't lock and can run on any thread. Queries only allocate when the area spans more
+ * sections than there are buckets and the buckets are iterated instead. Sections are looked up with the area grown by
+ * the largest bounding box reach of the indexed entities, at least {@link #QUERY_MARGIN} blocks like the chunk based
+ * queries of the level.
+ */
+public class EntitySpatialIndex {
+
+    /**
+     * Section key of entities that are not in the index
+     */
+    public static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    /**
+     * Minimum distance in blocks the queried area is grown by, so entities whose bounding box reaches into the area are
+     * found
+     */
+    public static final double QUERY_MARGIN = 2;
+
+    private static final int MIN_SECTION_Y = -2048;
+    private static final int MAX_SECTION_Y = 2047;
+
+    private static final Entity[] EMPTY = new Entity[0];
+
+    private static final int MODE_BOX = 0;
+    private static final int MODE_SPHERE = 1;
+    private static final int MODE_COLUMN = 2;
+
+    private final Long2ObjectNonBlockingMap<Bucket> buckets = new Long2ObjectNonBlockingMap<>();
+
+    /**
+     * Largest horizontal distance from the position to the bounding box edge of an indexed entity. Only grows, like
+     * the two below.
+     */
+    private volatile double maxHalfWidth = QUERY_MARGIN;
+    /**
+     * Largest distance the bounding box of an indexed entity reaches above its position
+     */
+    private volatile double maxHeightAbove = QUERY_MARGIN;
+    /**
+     * Largest distance the bounding box of an indexed entity reaches below its position
+     */
+    private volatile double maxDepthBelow = QUERY_MARGIN;
+
+    public static long sectionKey(int sectionX, int sectionY, int sectionZ) {
+        int y = Math.max(MIN_SECTION_Y, Math.min(MAX_SECTION_Y, sectionY));
+        return (((long) sectionX & 0x3ffffff) << 38) | (((long) sectionZ & 0x3ffffff) << 12) | (y & 0xfff);
+    }
+
+    public static long sectionKey(double x, double y, double z) {
+        return sectionKey((int) Math.floor(x) >> 4, (int) Math.floor(y) >> 4, (int) Math.floor(z) >> 4);
+    }
+
+    /**
+     * File an entity under the section of its current position
+     *
+     * @param entity entity
+     */
+    public void update(Entity entity) {
+        // Checked on every update, the bounding box can change without the section changing
+        this.growMargins(entity);
+
+        long section = sectionKey(entity.x, entity.y, entity.z);
+        long previous = entity.getIndexedSection();
+        if (section == previous) {
+            return;
+        }
+
+        if (previous != NOT_INDEXED) {
+            this.removeFromBucket(previous, entity);
+        }
+        this.addToBucket(section, entity);
+        entity.setIndexedSection(section);
+    }
+
+    /**
+     * Remove an entity from the index
+     *
+     * @param entity entity
+     */
+    public void remove(Entity entity) {
+        long previous = entity.getIndexedSection();
+        if (previous != NOT_INDEXED) {
+            this.removeFromBucket(previous, entity);
+            entity.setIndexedSection(NOT_INDEXED);
+        }
+    }
+
+    /**
+     * Visit the entities whose bounding box intersects with an area
+     *
+     * @param bb       area
+     * @param type     class the entities must be an instance of
+     * @param consumer visitor
+     */
+    public <T extends Entity> void forEach(AxisAlignedBB bb, Class<T> type, Consumer<? super T> consumer) {
+        this.forEach(bb, type, null, consumer);
+    }
+
+    /**
+     * Visit the entities whose bounding box intersects with an area
+     *
+     * @param bb        area
+     * @param type      class the entities must be an instance of
+     * @param predicate filter of the entities or null
+     * @param consumer  visitor
+     */
+    public <T extends Entity> void forEach(AxisAlignedBB bb, Class<T> type, Predicate<? super T> predicate, Consumer<? super T> consumer) {
+        this.scan(MODE_BOX, bb.getMinX(), bb.getMinY(), bb.getMinZ(), bb.getMaxX(), bb.getMaxY(), bb.getMaxZ(), 0, 0, 0, 0, type, predicate, consumer);
+    }
+
+    /**
+     * Check whether any entity whose bounding box intersects with an area matches a predicate
+     *
+     * @param bb        area
+     * @param type      class the entities must be an instance of
+     * @param predicate filter of the entities or null
+     * @return whether an entity matched
+     */
+    public <T extends Entity> boolean anyMatch(AxisAlignedBB bb, Class<T> type, Predicate<? super T> predicate) {
+        return this.scan(MODE_BOX, bb.getMinX(), bb.getMinY(), bb.getMinZ(), bb.getMaxX(), bb.getMaxY(), bb.getMaxZ(), 0, 0, 0, 0, type, predicate, null);
+    }
+
+    /**
+     * Visit the entities whose position is within a distance of a point
+     *
+     * @param x        point X
+     * @param y        point Y
+     * @param z        point Z
+     * @param radius   maximum distance
+     * @param type     class the entities must be an instance of
+     * @param consumer visitor
+     */
+    public <T extends Entity> void forEachInRadius(double x, double y, double z, double radius, Class<T> type, Consumer<? super T> consumer) {
+        this.scan(MODE_SPHERE, x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, x, y, z, radius * radius, type, null, consumer);
+    }
+
+    /**
+     * Visit the entities whose position is within a horizontal distance of a point, at any height
+     *
+     * @param x        point X
+     * @param z        point Z
+     * @param radius   maximum horizontal distance
+     * @param type     class the entities must be an instance of
+     * @param consumer visitor
+     */
+    public <T extends Entity> void forEachInColumn(double x, double z, double radius, Class<T> type, Consumer<? super T> consumer) {
+        this.scan(MODE_COLUMN, x - radius, Double.NEGATIVE_INFINITY, z - radius, x + radius, Double.POSITIVE_INFINITY, z + radius, x, 0, z, radius * radius, type, null, consumer);
+    }
+
+    /**
+     * Get the number of indexed entities
+     *
+     * @return entity count
+     */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : this.buckets.values()) {
+            size += bucket.entities.length;
+        }
+        return size;
+    }
+
+    /**
+     * Visit the matching entities of the sections an area touches
+     *
+     * @return whether an entity matched, the scan stops at the first match without a consumer
+     */
+    private <T extends Entity> boolean scan(int mode, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                            double x, double y, double z, double radiusSquared,
+                                            Class<T> type, Predicate<? super T> predicate, Consumer<? super T> consumer) {
+        // Entities are filed by position, so look where the position of an entity reaching into the area can be
+        double halfWidth = this.maxHalfWidth;
+        int minSectionX = (int) Math.floor(minX - halfWidth) >> 4;
+        int minSectionY = sectionY(minY - this.maxHeightAbove);
+        int minSectionZ = (int) Math.floor(minZ - halfWidth) >> 4;
+        int maxSectionX = (int) Math.floor(maxX + halfWidth) >> 4;
+        int maxSectionY = sectionY(maxY + this.maxDepthBelow);
+        int maxSectionZ = (int) Math.floor(maxZ + halfWidth) >> 4;
+
+        long sections = (long) (maxSectionX - minSectionX + 1) * (maxSectionY - minSectionY + 1) * (maxSectionZ - minSectionZ + 1);
+        if (sections > this.buckets.size()) {
+            // Fewer buckets than sections in the area, so check the section of each bucket instead
+            for (Bucket bucket : this.buckets.values()) {
+                if (bucket.x >= minSectionX && bucket.x <= maxSectionX
+                        && bucket.y >= minSectionY && bucket.y <= maxSectionY
+                        && bucket.z >= minSectionZ && bucket.z <= maxSectionZ
+                        && visit(bucket, mode, minX, minY, minZ, maxX, maxY, maxZ, x, y, z, radiusSquared, type, predicate, consumer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+            for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+                for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                    Bucket bucket = this.buckets.get(sectionKey(sectionX, sectionY, sectionZ));
+                    if (bucket != null && visit(bucket, mode, minX, minY, minZ, maxX, maxY, maxZ, x, y, z, radiusSquared, type, predicate, consumer)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <T extends Entity> boolean visit(Bucket bucket, int mode, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                                    double x, double y, double z, double radiusSquared,
+                                                    Class<T> type, Predicate<? super T> predicate, Consumer<? super T> consumer) {
+        for (Entity entity : bucket.entities) {
+            if (entity.closed || !type.isInstance(entity)) {
+                continue;
+            }
+
+            switch (mode) {
+                case MODE_BOX -> {
+                    AxisAlignedBB bb = entity.getBoundingBox();
+                    if (bb == null
+                            || bb.getMaxX() <= minX || bb.getMinX() >= maxX
+                            || bb.getMaxY() <= minY || bb.getMinY() >= maxY
+                            || bb.getMaxZ() <= minZ || bb.getMinZ() >= maxZ) {
+                        continue;
+                    }
+                }
+                case MODE_SPHERE -> {
+                    double dx = entity.x - x;
+                    double dy = entity.y - y;
+                    double dz = entity.z - z;
+                    if (dx * dx + dy * dy + dz * dz > radiusSquared) {
+                        continue;
+                    }
+                }
+                default -> {
+                    double dx = entity.x - x;
+                    double dz = entity.z - z;
+                    if (dx * dx + dz * dz > radiusSquared) {
+                        continue;
+                    }
+                }
+            }
+
+            T matched = type.cast(entity);
+            if (predicate != null && !predicate.test(matched)) {
+                continue;
+            }
+            if (consumer == null) {
+                return true;
+            }
+            consumer.accept(matched);
+        }
+        return false;
+    }
+
+    private void growMargins(Entity entity) {
+        AxisAlignedBB bb = entity.getBoundingBox();
+        if (bb == null) {
+            return;
+        }
+
+        double halfWidth = Math.max(Math.max(entity.x - bb.getMinX(), bb.getMaxX() - entity.x), Math.max(entity.z - bb.getMinZ(), bb.getMaxZ() - entity.z));
+        double heightAbove = bb.getMaxY() - entity.y;
+        double depthBelow = entity.y - bb.getMinY();
+        // Also false for NaN
+        if (halfWidth > this.maxHalfWidth || heightAbove > this.maxHeightAbove || depthBelow > this.maxDepthBelow) {
+            synchronized (this) {
+                this.maxHalfWidth = grow(this.maxHalfWidth, halfWidth);
+                this.maxHeightAbove = grow(this.maxHeightAbove, heightAbove);
+                this.maxDepthBelow = grow(this.maxDepthBelow, depthBelow);
+            }
+        }
+    }
+
+    private static double grow(double margin, double reach) {
+        return reach > margin && reach < Double.POSITIVE_INFINITY ? reach : margin;
+    }
+
+    private static int sectionY(double y) {
+        if (y <= MIN_SECTION_Y << 4) {
+            return MIN_SECTION_Y;
+        }
+        if (y >= (MAX_SECTION_Y + 1) << 4) {
+            return MAX_SECTION_Y;
+        }
+        return (int) Math.floor(y) >> 4;
+    }
+
+    private void addToBucket(long section, Entity entity) {
+        while (true) {
+            Bucket bucket = this.buckets.get(section);
+            if (bucket == null) {
+                Bucket created = new Bucket(section);
+                bucket = this.buckets.putIfAbsent(section, created);
+                if (bucket == null) {
+                    bucket = created;
+                }
+            }
+
+            synchronized (bucket) {
+                // Emptied and removed concurrently, retry with a new bucket
+                if (bucket.removed) {
+                    continue;
+                }
+                Entity[] entities = Arrays.copyOf(bucket.entities, bucket.entities.length + 1);
+                entities[entities.length - 1] = entity;
+                bucket.entities = entities;
+                return;
+            }
+        }
+    }
+
+    private void removeFromBucket(long section, Entity entity) {
+        Bucket bucket = this.buckets.get(section);
+        if (bucket == null) {
+            return;
+        }
+
+        synchronized (bucket) {
+            Entity[] entities = bucket.entities;
+            for (int i = 0; i < entities.length; i++) {
+                if (entities[i] == entity) {
+                    if (entities.length == 1) {
+                        bucket.entities = EMPTY;
+                        bucket.removed = true;
+                        this.buckets.remove(section, bucket);
+                    } else {
+                        Entity[] copy = new Entity[entities.length - 1];
+                        System.arraycopy(entities, 0, copy, 0, i);
+                        System.arraycopy(entities, i + 1, copy, i, entities.length - i - 1);
+                        bucket.entities = copy;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class Bucket {
+
+        private final int x;
+        private final int y;
+        private final int z;
+        private volatile Entity[] entities = EMPTY;
+        private boolean removed;
+
+        private Bucket(long section) {
+            this.x = (int) (section >> 38);
+            this.y = (int) (section << 52 >> 52);
+            this.z = (int) (section << 26 >> 38);
+        }
+    }
+}
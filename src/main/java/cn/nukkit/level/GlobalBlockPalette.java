@@ -22,6 +22,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.zip.GZIPInputStream;
 
 @Log4j2
@@ -29,6 +30,7 @@ public class GlobalBlockPalette {
 
     private static final Gson GSON = new Gson();
     private static boolean initialized;
+    private static volatile boolean legacyTablesLoaded;
 
     private static final AtomicInteger runtimeIdAllocator282 = new AtomicInteger(0);
     private static final AtomicInteger runtimeIdAllocator291 = new AtomicInteger(0);
@@ -55,6 +57,8 @@ public class GlobalBlockPalette {
     private static final Int2IntMap legacyToRuntimeId389 = new Int2IntOpenHashMap();
     private static final Int2IntMap legacyToRuntimeId407 = new Int2IntOpenHashMap();
 
+    private static final AtomicReferenceArray<BlockPalette> paletteCache = new AtomicReferenceArray<>(GameVersion.values().length);
+
     private static BlockPalette blockPalette419;
     private static BlockPalette blockPalette428;
     private static BlockPalette blockPalette440;
@@ -130,6 +134,17 @@ public class GlobalBlockPalette {
             throw new IllegalStateException("BlockPalette was already generated!");
         }
         initialized = true;
+
+        // Only needed for versions before 1.16.100, loaded when first used otherwise
+        if (Server.getInstance().isProtocolRangeAllowed(0, ProtocolInfo.v1_16_100)) {
+            loadLegacyTables();
+        }
+    }
+
+    private static synchronized void loadLegacyTables() {
+        if (legacyTablesLoaded) {
+            return;
+        }
         log.debug("Loading block palette...");
 
         // 223
@@ -307,6 +322,7 @@ public class GlobalBlockPalette {
         } catch (IOException e) {
             throw new AssertionError("Unable to write block palette 407", e);
         }
+        legacyTablesLoaded = true;
     }
 
     @Deprecated
@@ -315,6 +331,18 @@ public class GlobalBlockPalette {
     }
 
     public static BlockPalette getPaletteByProtocol(GameVersion gameVersion) {
+        BlockPalette palette = paletteCache.get(gameVersion.ordinal());
+        if (palette == null) {
+            palette = loadPaletteByProtocol(gameVersion);
+            paletteCache.set(gameVersion.ordinal(), palette);
+        }
+        return palette;
+    }
+
+    /**
+     * Palettes are created when first used, possibly by several level threads at once
+     */
+    private static synchronized BlockPalette loadPaletteByProtocol(GameVersion gameVersion) {
         int protocol = gameVersion.getProtocol();
 
         if (gameVersion.isNetEase()) {
@@ -519,6 +547,9 @@ public class GlobalBlockPalette {
         }
 
         if (protocol < 223) throw new IllegalArgumentException("Tried to get block runtime id for unsupported protocol version: " + protocol);
+        if (!legacyTablesLoaded) {
+            loadLegacyTables();
+        }
         int legacyId = protocol >= 388 ? ((id << 6) | meta) : ((id << 4) | meta);
         int runtimeId;
         switch (protocol) {
@@ -597,6 +628,9 @@ public class GlobalBlockPalette {
     }
 
     public static byte[] getCompiledTable(int protocol) {
+        if (!legacyTablesLoaded) {
+            loadLegacyTables();
+        }
         switch (protocol) {
             // Versions before this doesn't send compiled table in StartGamePacket
             case 281:
@@ -638,6 +672,9 @@ public class GlobalBlockPalette {
     public static int getOrCreateRuntimeId(GameVersion gameVersion, int legacyId) throws NoSuchElementException {
         int protocol = gameVersion.getProtocol();
         if (protocol < 223) throw new IllegalArgumentException("Tried to get block runtime id for unsupported protocol version: " + protocol);
+        if (protocol < ProtocolInfo.v1_16_100 && !legacyTablesLoaded) {
+            loadLegacyTables();
+        }
         int runtimeId;
         switch (protocol) {
             case 223:
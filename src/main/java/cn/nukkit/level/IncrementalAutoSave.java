@@ -0,0 +1,307 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.level.format.LevelProvider;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Autosave that is spread over the ticks of the autosave interval instead of saving everything in one tick.
+ * <p>
+ * A round collects the online players and the changed chunks of every level when it starts. Every tick saves players
+ * and chunks until the tick budget is used up, taking one from each level and the players in turn. Each tick saves at
+ * least its share of the remaining work for the rest of the interval, so everything collected is saved before the next
+ * round starts, even if that exceeds the budget.
+ * <p>
+ * A round is dropped when autosave is turned off or saving is put on hold while it runs, and a level is skipped once its
+ * own autosave is turned off. Their chunks stay changed and are saved by a later round.
+ */
+@Log4j2
+public class IncrementalAutoSave {
+
+    private final Server server;
+    private final List<Source> sources = new ArrayList<>();
+    private int sourceIndex;
+    private int remaining;
+    private int ticksLeft;
+
+    private int roundItems;
+    private int roundTicks;
+    private long roundNanos;
+    private long roundMaxTickNanos;
+    private int roundTicksOverBudget;
+
+    private int lastRoundItems;
+    private int lastRoundTicks;
+    private long lastRoundNanos;
+    private long lastRoundMaxTickNanos;
+    private int lastRoundTicksOverBudget;
+
+    public IncrementalAutoSave(Server server) {
+        this.server = server;
+    }
+
+    /**
+     * Start a new round, the rest of a running round is saved first
+     *
+     * @param players       players to save
+     * @param intervalTicks ticks until the next round starts
+     */
+    public void start(Collection<Player> players, int intervalTicks) {
+        if (this.isRunning()) {
+            log.debug("Autosave round didn't finish in time, saving {} remaining items now", this.remaining);
+            this.finish();
+        }
+
+        if (!players.isEmpty()) {
+            this.sources.add(new PlayerSource(new ArrayDeque<>(players)));
+        }
+
+        for (Level level : this.server.getLevels().values()) {
+            if (Server.nonAutoSaveWorlds.contains(level.getName()) || !level.prepareSave(false)) {
+                continue;
+            }
+            ArrayDeque<FullChunk> chunks = new ArrayDeque<>();
+            for (FullChunk chunk : level.requireProvider().getLoadedChunks().values()) {
+                if (chunk.hasChanged()) {
+                    chunks.add(chunk);
+                }
+            }
+            this.sources.add(new LevelSource(level, chunks));
+        }
+
+        this.remaining = 0;
+        for (Source source : this.sources) {
+            this.remaining += source.size();
+        }
+        this.ticksLeft = Math.max(1, intervalTicks);
+        this.sourceIndex = 0;
+        this.roundItems = this.remaining;
+        this.roundTicks = 0;
+        this.roundNanos = 0;
+        this.roundMaxTickNanos = 0;
+        this.roundTicksOverBudget = 0;
+    }
+
+    /**
+     * Save the next part of the running round
+     *
+     * @param budgetMillis time that may be spent in this tick
+     */
+    public void tick(int budgetMillis) {
+        if (!this.isRunning()) {
+            return;
+        }
+        if (!this.server.getAutoSave() || this.server.holdWorldSave) {
+            log.debug("Autosave was turned off or put on hold, dropping {} remaining items", this.remaining);
+            this.sources.clear();
+            this.remaining = 0;
+            this.endRound();
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1_000_000L;
+        int required = (this.remaining + this.ticksLeft - 1) / this.ticksLeft;
+        int saved = 0;
+        while (this.isRunning() && (saved < required || System.nanoTime() < deadline)) {
+            this.saveNext();
+            saved++;
+        }
+        this.ticksLeft = Math.max(1, this.ticksLeft - 1);
+
+        long time = System.nanoTime() - start;
+        this.roundTicks++;
+        this.roundNanos += time;
+        this.roundMaxTickNanos = Math.max(this.roundMaxTickNanos, time);
+        if (time > budgetMillis * 1_000_000L) {
+            this.roundTicksOverBudget++;
+        }
+
+        if (!this.isRunning()) {
+            this.endRound();
+        }
+    }
+
+    /**
+     * Save the rest of the running round now
+     */
+    public void finish() {
+        if (!this.isRunning()) {
+            return;
+        }
+        long start = System.nanoTime();
+        while (this.isRunning()) {
+            this.saveNext();
+        }
+        long time = System.nanoTime() - start;
+        this.roundTicks++;
+        this.roundNanos += time;
+        this.roundMaxTickNanos = Math.max(this.roundMaxTickNanos, time);
+        this.roundTicksOverBudget++;
+        this.endRound();
+    }
+
+    private void saveNext() {
+        Source source = this.sources.get(this.sourceIndex);
+        int size = source.size();
+        try {
+            source.saveNext();
+        } catch (Exception e) {
+            log.error("Exception while autosaving", e);
+        }
+        this.remaining -= size - source.size();
+
+        if (source.size() == 0) {
+            this.sources.remove(this.sourceIndex);
+        } else {
+            this.sourceIndex++;
+        }
+        if (this.sourceIndex >= this.sources.size()) {
+            this.sourceIndex = 0;
+        }
+        if (this.sources.isEmpty()) {
+            this.remaining = 0;
+        }
+    }
+
+    private void endRound() {
+        this.sources.clear();
+        this.lastRoundItems = this.roundItems;
+        this.lastRoundTicks = this.roundTicks;
+        this.lastRoundNanos = this.roundNanos;
+        this.lastRoundMaxTickNanos = this.roundMaxTickNanos;
+        this.lastRoundTicksOverBudget = this.roundTicksOverBudget;
+        log.debug("Autosave saved {} players and chunks in {} ticks, {} ms total, {} ms longest tick, {} ticks over budget",
+                this.lastRoundItems, this.lastRoundTicks, this.getLastRoundTime(), this.getLastRoundMaxTickTime(), this.lastRoundTicksOverBudget);
+    }
+
+    /**
+     * @return whether a round has players or chunks left to save
+     */
+    public boolean isRunning() {
+        return this.remaining > 0;
+    }
+
+    /**
+     * @return part of the running round that was saved, from 0 to 1
+     */
+    public double getProgress() {
+        return this.roundItems == 0 ? 1 : 1 - (double) this.remaining / this.roundItems;
+    }
+
+    /**
+     * @return number of players, chunks and level data left to save in the running round
+     */
+    public int getRemaining() {
+        return this.remaining;
+    }
+
+    public int getLastRoundItems() {
+        return this.lastRoundItems;
+    }
+
+    public int getLastRoundTicks() {
+        return this.lastRoundTicks;
+    }
+
+    /**
+     * @return time spent saving in the last round in milliseconds
+     */
+    public double getLastRoundTime() {
+        return this.lastRoundNanos / 1_000_000d;
+    }
+
+    /**
+     * @return longest time spent saving in one tick of the last round in milliseconds
+     */
+    public double getLastRoundMaxTickTime() {
+        return this.lastRoundMaxTickNanos / 1_000_000d;
+    }
+
+    /**
+     * @return number of ticks of the last round that exceeded the budget to save everything in time
+     */
+    public int getLastRoundTicksOverBudget() {
+        return this.lastRoundTicksOverBudget;
+    }
+
+    private interface Source {
+
+        int size();
+
+        void saveNext();
+    }
+
+    private record PlayerSource(ArrayDeque<Player> players) implements Source {
+
+        @Override
+        public int size() {
+            return this.players.size();
+        }
+
+        @Override
+        public void saveNext() {
+            Player player = this.players.poll();
+            if (player != null && player.isOnline()) {
+                player.save(true);
+            }
+        }
+    }
+
+    /**
+     * Saves the changed chunks of a level, the level data is saved last
+     */
+    private static class LevelSource implements Source {
+
+        private final Level level;
+        private final ArrayDeque<FullChunk> chunks;
+        private boolean levelDataSaved;
+
+        private LevelSource(Level level, ArrayDeque<FullChunk> chunks) {
+            this.level = level;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int size() {
+            return this.levelDataSaved ? 0 : this.chunks.size() + 1;
+        }
+
+        @Override
+        public void saveNext() {
+            LevelProvider provider = this.level.getProvider();
+            if (provider == null) {
+                // Unloaded, the chunks were saved when the level was closed
+                this.chunks.clear();
+                this.levelDataSaved = true;
+                return;
+            }
+            Server server = this.level.getServer();
+            if (!server.getAutoSave() || server.holdWorldSave || !this.level.getAutoSave()) {
+                // Nothing may be written now, e.g. during a backup. The chunks stay changed for a later save.
+                this.chunks.clear();
+                this.levelDataSaved = true;
+                return;
+            }
+
+            FullChunk chunk = this.chunks.poll();
+            if (chunk == null) {
+                this.levelDataSaved = true;
+                provider.saveLevelData();
+                return;
+            }
+            // Unloaded chunks were saved when they were unloaded
+            if (chunk.hasChanged() && provider.getLoadedChunk(chunk.getX(), chunk.getZ()) == chunk) {
+                chunk.setChanged(false);
+                provider.saveChunk(chunk.getX(), chunk.getZ(), chunk);
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import cn.nukkit.level.format.ChunkSection;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.level.format.LevelProvider;
 import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.format.generic.BaseChunk;
 import cn.nukkit.level.format.generic.BaseFullChunk;
 import cn.nukkit.level.format.generic.EmptyChunkSection;
 import cn.nukkit.level.format.generic.serializer.NetworkChunkSerializer;
@@ -44,12 +45,14 @@ import cn.nukkit.level.generator.PopChunkManager;
 import cn.nukkit.level.generator.task.GenerationTask;
 import cn.nukkit.level.generator.task.LightPopulationTask;
 import cn.nukkit.level.generator.task.PopulationTask;
+import cn.nukkit.level.light.LightUpdater;
 import cn.nukkit.level.particle.DestroyBlockParticle;
 import cn.nukkit.level.particle.ItemBreakParticle;
 import cn.nukkit.level.particle.Particle;
 import cn.nukkit.level.persistence.PersistentDataContainer;
 import cn.nukkit.level.persistence.impl.DelegatePersistentDataContainer;
 import cn.nukkit.level.sound.Sound;
+import cn.nukkit.level.util.BlockCollisionShapes;
 import cn.nukkit.math.*;
 import cn.nukkit.math.BlockFace.Plane;
 import cn.nukkit.metadata.BlockMetadataStore;
@@ -95,8 +98,8 @@ import java.util.function.Predicate;
  */
 public class Level implements ChunkManager, Metadatable {
 
-    private static int levelIdCounter = 1;
-    private static int chunkLoaderCounter = 1;
+    private static final AtomicInteger levelIdCounter = new AtomicInteger(1);
+    private static final AtomicInteger chunkLoaderCounter = new AtomicInteger(1);
 
     public static final int BLOCK_UPDATE_NORMAL = 1;
     public static final int BLOCK_UPDATE_RANDOM = 2;
@@ -237,6 +240,10 @@ public class Level implements ChunkManager, Metadatable {
 
     @NonComputationAtomic
     private final Long2ObjectNonBlockingMap<Entity> entities = new Long2ObjectNonBlockingMap<>();
+    /**
+     * Entities by section for range queries
+     */
+    private final EntitySpatialIndex entityIndex = new EntitySpatialIndex();
 
     private final ConcurrentLinkedQueue<BlockEntity> updateBlockEntities = new ConcurrentLinkedQueue<>();
 
@@ -280,7 +287,7 @@ public class Level implements ChunkManager, Metadatable {
 
     private final BlockUpdateScheduler updateQueue;
     private final Queue<QueuedUpdate> normalUpdateQueue = new ConcurrentLinkedDeque<>();
-    private final Map<Long, Set<Integer>> lightQueue = new ConcurrentHashMap<>(8, 0.9f, 1);
+    private final LightUpdater lightUpdater = new LightUpdater(this);
 
     private final Object2ObjectMap<GameVersion, ConcurrentMap<Long, Int2ObjectMap<Player>>> chunkSendQueues = new Object2ObjectOpenHashMap<>();
     private final Object2ObjectMap<GameVersion, LongSet> chunkSendTasks = new Object2ObjectOpenHashMap<>();
@@ -362,6 +369,7 @@ public class Level implements ChunkManager, Metadatable {
     @Getter
     private ExecutorService asyncChuckExecutor;
     private final Queue<NetworkChunkSerializer.NetworkChunkSerializerCallbackData> asyncChunkRequestCallbackQueue = new ConcurrentLinkedQueue<>();
+    private final Long2ObjectMap<CompletableFuture<BaseFullChunk>> asyncChunkLoads = new Long2ObjectOpenHashMap<>();
 
     private Iterator<LongObjectEntry<Long>> lastUsingUnloadingIter;
 
@@ -373,7 +381,7 @@ public class Level implements ChunkManager, Metadatable {
     private final Int2ObjectMap<BiConsumer<Long, DataPacket>> callbackChunkPacketSend = new Int2ObjectOpenHashMap<>();
 
     public Level(Server server, String name, String path, Class<? extends LevelProvider> provider) {
-        this.levelId = levelIdCounter++;
+        this.levelId = levelIdCounter.getAndIncrement();
         this.blockMetadata = new BlockMetadataStore(this);
         this.server = server;
         this.autoSave = server.getAutoSave();
@@ -502,7 +510,7 @@ public class Level implements ChunkManager, Metadatable {
 
     public static int generateChunkLoaderId(ChunkLoader loader) {
         if (loader.getLoaderId() == 0) {
-            return chunkLoaderCounter++;
+            return chunkLoaderCounter.getAndIncrement();
         } else {
             throw new IllegalStateException("ChunkLoader has a loader id already assigned: " + loader.getLoaderId());
         }
@@ -591,6 +599,11 @@ public class Level implements ChunkManager, Metadatable {
             this.provider = null;
             this.blockMetadata = null;
             this.server.getLevels().remove(this.levelId);
+
+            ChunkPacketCache chunkPacketCache = this.server.getChunkPacketCache();
+            if (chunkPacketCache != null) {
+                chunkPacketCache.invalidateAll(this);
+            }
             this.generators.remove();
         } finally {
             this.providerLock.writeLock().unlock();
@@ -1017,7 +1030,7 @@ public class Level implements ChunkManager, Metadatable {
 
     @SuppressWarnings("unchecked")
     public void doTick(int currentTick) {
-        updateBlockLight(lightQueue);
+        this.lightUpdater.startBatch(this.server.asyncLightUpdates);
         this.checkTime();
 
         if (/*stopTime || !this.gameRules.getBoolean(GameRule.DO_DAYLIGHT_CYCLE) ||*/ currentTick % 6000 == 0) { // Keep the time in sync
@@ -1074,15 +1087,21 @@ public class Level implements ChunkManager, Metadatable {
 
         this.unloadChunks();
 
+        this.requireProvider().processChunkLoads();
+
         this.updateQueue.tick(this.levelCurrentTick);
 
         QueuedUpdate queuedUpdate;
         while ((queuedUpdate = this.normalUpdateQueue.poll()) != null) {
             Block block = getBlock(queuedUpdate.block, queuedUpdate.block.layer);
-            BlockUpdateEvent event = new BlockUpdateEvent(block);
-            this.server.getPluginManager().callEvent(event);
+            boolean cancelled = false;
+            if (this.server.getPluginManager().hasListeners(BlockUpdateEvent.class)) {
+                BlockUpdateEvent event = new BlockUpdateEvent(block);
+                this.server.getPluginManager().callEvent(event);
+                cancelled = event.isCancelled();
+            }
 
-            if (!event.isCancelled()) {
+            if (!cancelled) {
                 block.onUpdate(BLOCK_UPDATE_NORMAL);
                 if (queuedUpdate.neighbor != null) {
                     block.onNeighborChange(queuedUpdate.neighbor.getOpposite());
@@ -1163,9 +1182,7 @@ public class Level implements ChunkManager, Metadatable {
             Map<Integer, Player> map = this.getChunkPlayers(chunkX, chunkZ);
             if (!map.isEmpty()) {
                 Player[] chunkPlayers = map.values().toArray(Player.EMPTY_ARRAY);
-                for (DataPacket pk : entry.getValue()) {
-                    Server.broadcastPacket(chunkPlayers, pk);
-                }
+                Server.broadcastPackets(chunkPlayers, entry.getValue().toArray(new DataPacket[0]));
             }
         }
         this.chunkPackets.clear();
@@ -1176,6 +1193,8 @@ public class Level implements ChunkManager, Metadatable {
             Server.broadcastPacket(players.values().toArray(Player.EMPTY_ARRAY), packet);
             gameRules.refresh();
         }
+
+        this.lightUpdater.mergeResults();
     }
 
     private void performThunder(long index, FullChunk chunk) {
@@ -1503,6 +1522,23 @@ public class Level implements ChunkManager, Metadatable {
     }
 
     public boolean save(boolean force) {
+        if (!this.prepareSave(force)) {
+            return false;
+        }
+
+        this.saveChunks();
+        this.requireProvider().saveLevelData();
+
+        return true;
+    }
+
+    /**
+     * Call the save event and pass the level state to the provider, without saving chunks or level data yet
+     *
+     * @param force save even if autosave is disabled for this level or saving is on hold
+     * @return whether the level should be saved
+     */
+    public boolean prepareSave(boolean force) {
         if ((!this.autoSave || server.holdWorldSave) && !force) {
             return false;
         }
@@ -1517,8 +1553,6 @@ public class Level implements ChunkManager, Metadatable {
         levelProvider.setThunderTime(this.thunderTime);
         levelProvider.setCurrentTick(this.levelCurrentTick);
         levelProvider.setGameRules(this.gameRules);
-        this.saveChunks();
-        levelProvider.saveLevelData();
 
         return true;
     }
@@ -1763,12 +1797,45 @@ public class Level implements ChunkManager, Metadatable {
         int maxY = NukkitMath.ceilDouble(bb.getMaxY());
         int maxZ = NukkitMath.ceilDouble(bb.getMaxZ());
 
+        if (entity instanceof EntityEnderPearl) {
+            for (int z = minZ; z <= maxZ; ++z) {
+                for (int x = minX; x <= maxX; ++x) {
+                    for (int y = minY; y <= maxY; ++y) {
+                        Block block = this.getBlock(entity.chunk, x, y, z, 0, false);
+                        if ((!checkCanPassThrough || !block.canPassThrough()) && block.collidesWithBB(bb)) {
+                            if (block instanceof BlockFenceGate && ((BlockFenceGate) block).isOpen()) continue;
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        FullChunk chunk = entity != null ? entity.chunk : null;
         for (int z = minZ; z <= maxZ; ++z) {
             for (int x = minX; x <= maxX; ++x) {
+                int cx = x >> 4;
+                int cz = z >> 4;
+                if (chunk == null || chunk.getX() != cx || chunk.getZ() != cz) {
+                    chunk = this.getChunkIfLoaded(cx, cz);
+                    if (chunk == null) {
+                        // Unloaded chunks are air
+                        continue;
+                    }
+                }
                 for (int y = minY; y <= maxY; ++y) {
-                    Block block = this.getBlock(entity != null ? entity.chunk : null, x, y, z, 0, false);
-                    if ((!checkCanPassThrough || !block.canPassThrough()) && block.collidesWithBB(bb)) {
-                        if (entity instanceof EntityEnderPearl && block instanceof BlockFenceGate && ((BlockFenceGate) block).isOpen()) continue;
+                    if (!isYInRange(y)) {
+                        continue;
+                    }
+                    int fullId = chunk.getFullBlock(x & 0x0f, y, z & 0x0f, 0);
+                    BlockCollisionShapes.Shape shape = BlockCollisionShapes.get(fullId);
+                    if (shape.getType() == BlockCollisionShapes.DYNAMIC) {
+                        Block block = Block.get(fullId >> Block.DATA_BITS, fullId & Block.DATA_MASK, this, x, y, z, 0);
+                        if ((!checkCanPassThrough || !block.canPassThrough()) && block.collidesWithBB(bb)) {
+                            return true;
+                        }
+                    } else if ((!checkCanPassThrough || !shape.canPassThrough()) && shape.intersects(x, y, z, bb)) {
                         return true;
                     }
                 }
@@ -1810,26 +1877,43 @@ public class Level implements ChunkManager, Metadatable {
 
         List<AxisAlignedBB> collides = new ArrayList<>();
 
+        FullChunk chunk = null;
         for (int z = minZ; z <= maxZ; ++z) {
             for (int x = minX; x <= maxX; ++x) {
+                int cx = x >> 4;
+                int cz = z >> 4;
+                if (chunk == null || chunk.getX() != cx || chunk.getZ() != cz) {
+                    chunk = this.getChunkIfLoaded(cx, cz);
+                    if (chunk == null) {
+                        // Unloaded chunks are air
+                        continue;
+                    }
+                }
                 for (int y = minY; y <= maxY; ++y) {
-                    Block block = this.getBlock(x, y, z, false);
-                    if (block.getId() == BlockID.BARRIER && entity.canPassThroughBarrier()) {
+                    if (!isYInRange(y)) {
                         continue;
                     }
-                    if (!block.canPassThrough() && block.collidesWithBB(bb)) {
-                        collides.add(block.getBoundingBox());
+                    int fullId = chunk.getFullBlock(x & 0x0f, y, z & 0x0f, 0);
+                    BlockCollisionShapes.Shape shape = BlockCollisionShapes.get(fullId);
+                    if (shape.getType() == BlockCollisionShapes.DYNAMIC) {
+                        Block block = Block.get(fullId >> Block.DATA_BITS, fullId & Block.DATA_MASK, this, x, y, z, 0);
+                        if (block.getId() == BlockID.BARRIER && entity.canPassThroughBarrier()) {
+                            continue;
+                        }
+                        if (!block.canPassThrough() && block.collidesWithBB(bb)) {
+                            collides.add(block.getBoundingBox());
+                        }
+                    } else if (!shape.canPassThrough() && shape.intersects(x, y, z, bb)) {
+                        collides.add(shape.toBoundingBox(x, y, z));
                     }
                 }
             }
         }
 
-        if (entities || solidEntities) {
-            for (Entity ent : this.getCollidingEntities(bb.grow(0.25f, 0.25f, 0.25f), entity)) {
-                if (solidEntities || !ent.canPassThrough()) {
-                    collides.add(ent.boundingBox.clone());
-                }
-            }
+        if ((entities || solidEntities) && (entity == null || entity.canCollide())) {
+            this.forEachEntityIn(bb.grow(0.25f, 0.25f, 0.25f),
+                    ent -> (entity == null || (ent != entity && entity.canCollideWith(ent))) && (solidEntities || !ent.canPassThrough()),
+                    ent -> collides.add(ent.boundingBox.clone()));
         }
 
         return collides.toArray(AxisAlignedBB.EMPTY_ARRAY);
@@ -1841,7 +1925,8 @@ public class Level implements ChunkManager, Metadatable {
         }
 
         if (entities) {
-            return this.getCollidingEntities(bb.grow(0.25f, 0.25f, 0.25f), entity).length > 0;
+            return (entity == null || entity.canCollide())
+                    && this.anyEntityIn(bb.grow(0.25f, 0.25f, 0.25f), ent -> entity == null || (ent != entity && entity.canCollideWith(ent)));
         }
         return false;
     }
@@ -2012,129 +2097,48 @@ public class Level implements ChunkManager, Metadatable {
         this.addLightUpdate((int) pos.x, (int) pos.y, (int) pos.z);
     }
 
+    /**
+     * Queue a sky light update of a block whose sky light filtering changed. Ignored in dimensions without sky light
+     * and when sky light updates are disabled.
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     */
     public void updateBlockSkyLight(int x, int y, int z) {
+        if (this.server.skyLightUpdates && this.isOverWorld()) {
+            this.lightUpdater.queueSkyLight(x, y, z);
+        }
     }
 
-    public void updateBlockLight(Map<Long, Set<Integer>> map) {
-        int size = map.size();
-        if (size == 0) {
-            return;
-        }
-        Queue<Long> lightPropagationQueue = new ConcurrentLinkedQueue<>();
-        Queue<Object[]> lightRemovalQueue = new ConcurrentLinkedQueue<>();
-        LongOpenHashSet visited = new LongOpenHashSet();
-        LongOpenHashSet removalVisited = new LongOpenHashSet();
+    /**
+     * Process the queued light updates now instead of during the next tick
+     */
+    public void updateBlockLight() {
+        this.lightUpdater.updateNow();
+    }
 
+    /**
+     * @deprecated queue the updates with {@link #addLightUpdate(int, int, int)} instead
+     */
+    @Deprecated
+    public void updateBlockLight(Map<Long, Set<Integer>> map) {
         Iterator<Map.Entry<Long, Set<Integer>>> iter = map.entrySet().iterator();
-        while (iter.hasNext() && size-- > 0) {
+        while (iter.hasNext()) {
             Map.Entry<Long, Set<Integer>> entry = iter.next();
             iter.remove();
             long index = entry.getKey();
-            BaseFullChunk chunk = getChunk(getHashX(index), getHashZ(index), false);
-            Set<Integer> blocks = entry.getValue();
-
-            for (int blockHash : blocks) {
+            for (int blockHash : entry.getValue()) {
                 Vector3 pos = getBlockXYZ(index, blockHash, this.getDimensionData());
-                if (chunk != null) {
-                    int lcx = pos.getFloorX() & 0xF;
-                    int lcz = pos.getFloorZ() & 0xF;
-                    int oldLevel = chunk.getBlockLight(lcx, pos.getFloorY(), lcz);
-                    int newLevel = Block.getBlockLight(chunk.getBlockId(lcx, pos.getFloorY(), lcz));
-                    if (oldLevel != newLevel) {
-                        chunk.setBlockLight(((int) pos.x) & 0x0f, (int) pos.y, ((int) pos.z) & 0x0f, newLevel & 0x0f);
-
-                        long hash = Hash.hashBlock(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
-                        if (newLevel < oldLevel) {
-                            removalVisited.add(hash);
-                            lightRemovalQueue.add(new Object[]{hash, oldLevel});
-                        } else {
-                            visited.add(hash);
-                            lightPropagationQueue.add(hash);
-                        }
-                    }
-                }
-            }
-        }
-
-        while (!lightRemovalQueue.isEmpty()) {
-            Object[] val = lightRemovalQueue.poll();
-            long node = (long) val[0];
-            int x = Hash.hashBlockX(node);
-            int y = Hash.hashBlockY(node);
-            int z = Hash.hashBlockZ(node);
-
-            int lightLevel = (int) val[1];
-
-            this.computeRemoveBlockLight(x - 1, y, z, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-            this.computeRemoveBlockLight(x + 1, y, z, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-            this.computeRemoveBlockLight(x, y - 1, z, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-            this.computeRemoveBlockLight(x, y + 1, z, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-            this.computeRemoveBlockLight(x, y, z - 1, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-            this.computeRemoveBlockLight(x, y, z + 1, lightLevel, lightRemovalQueue, lightPropagationQueue, removalVisited, visited);
-        }
-
-        while (!lightPropagationQueue.isEmpty()) {
-            long node = lightPropagationQueue.poll();
-
-            int x = Hash.hashBlockX(node);
-            int y = Hash.hashBlockY(node);
-            int z = Hash.hashBlockZ(node);
-
-            int id = this.getBlockIdAt(x, y, z);
-            int lightFilter = id >= Block.MAX_BLOCK_ID ? 15 : Block.lightFilter[id];
-            int lightLevel = this.getBlockLightAt(x, y, z) - lightFilter;
-
-            if (lightLevel >= 1) {
-                this.computeSpreadBlockLight(x - 1, y, z, lightLevel, lightPropagationQueue, visited);
-                this.computeSpreadBlockLight(x + 1, y, z, lightLevel, lightPropagationQueue, visited);
-                this.computeSpreadBlockLight(x, y - 1, z, lightLevel, lightPropagationQueue, visited);
-                this.computeSpreadBlockLight(x, y + 1, z, lightLevel, lightPropagationQueue, visited);
-                this.computeSpreadBlockLight(x, y, z - 1, lightLevel, lightPropagationQueue, visited);
-                this.computeSpreadBlockLight(x, y, z + 1, lightLevel, lightPropagationQueue, visited);
-            }
-        }
-    }
-
-    private void computeRemoveBlockLight(int x, int y, int z, int currentLight, Queue<Object[]> queue,
-                                         Queue<Long> spreadQueue, Set<Long> visited, Set<Long> spreadVisited) {
-        int current = this.getBlockLightAt(x, y, z);
-        if (current != 0 && current < currentLight) {
-            this.setBlockLightAt(x, y, z, 0);
-            if (current > 1) {
-                long index = Hash.hashBlock(x, y, z);
-                if (!visited.contains(index)) {
-                    visited.add(index);
-                    queue.add(new Object[]{index, current});
-                }
-            }
-        } else if (current >= currentLight) {
-            long index = Hash.hashBlock(x, y, z);
-            if (!spreadVisited.contains(index)) {
-                spreadVisited.add(index);
-                spreadQueue.add(index);
-            }
-        }
-    }
-
-    private void computeSpreadBlockLight(int x, int y, int z, int currentLight, Queue<Long> queue, Set<Long> visited) {
-        int current = this.getBlockLightAt(x, y, z);
-        if (current < currentLight - 1) {
-            this.setBlockLightAt(x, y, z, currentLight);
-
-            long index = Hash.hashBlock(x, y, z);
-            if (!visited.contains(index)) {
-                visited.add(index);
-                if (currentLight > 1) {
-                    queue.add(index);
-                }
+                this.lightUpdater.queueBlockLight(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
             }
         }
+        this.lightUpdater.updateNow();
     }
 
     public void addLightUpdate(int x, int y, int z) {
-        long index = chunkHash(x >> 4, z >> 4);
-        Set<Integer> currentMap = this.lightQueue.computeIfAbsent(index, k -> ConcurrentHashMap.newKeySet(8));
-        currentMap.add(Level.localBlockHash(x, y, z, this.getDimensionData()));
+        this.lightUpdater.queueBlockLight(x, y, z);
+        this.updateBlockSkyLight(x, y, z);
     }
 
     @Override
@@ -2144,11 +2148,7 @@ public class Level implements ChunkManager, Metadatable {
 
     @Override
     public void setBlockFullIdAt(int x, int y, int z, int layer, int fullId) {
-        Block block = Block.fullList[fullId];
-        if (block == null) {
-            block = new BlockUnknown(fullId >> Block.DATA_BITS, fullId & Block.DATA_MASK);
-        }
-        this.setBlock(x, y, z, layer, block, false, false);
+        this.setBlock(x, y, z, layer, Block.getState(fullId).clone(), false, false);
     }
 
     public boolean setBlock(Vector3 pos, Block block) {
@@ -2232,7 +2232,8 @@ public class Level implements ChunkManager, Metadatable {
             loader.onBlockChanged(block);
         }
         if (update) {
-            if (blockPrevious.isTransparent() != block.isTransparent() || blockPrevious.getLightLevel() != block.getLightLevel()) {
+            if (blockPrevious.isTransparent() != block.isTransparent() || blockPrevious.getLightLevel() != block.getLightLevel()
+                    || Block.getBlockLightFilter(blockPrevious.getId()) != Block.getBlockLightFilter(block.getId()) || blockPrevious.diffusesSkyLight() != block.diffusesSkyLight()) {
                 addLightUpdate(x, y, z);
             }
             BlockUpdateEvent ev = new BlockUpdateEvent(block);
@@ -2952,27 +2953,17 @@ public class Level implements ChunkManager, Metadatable {
     }
 
     public Entity[] getCollidingEntities(AxisAlignedBB bb, Entity entity) {
-        List<Entity> nearby = new ArrayList<>();
-
-        if (entity == null || entity.canCollide()) {
-            int minX = NukkitMath.floorDouble((bb.getMinX() - 2) / 16);
-            int maxX = NukkitMath.ceilDouble((bb.getMaxX() + 2) / 16);
-            int minZ = NukkitMath.floorDouble((bb.getMinZ() - 2) / 16);
-            int maxZ = NukkitMath.ceilDouble((bb.getMaxZ() + 2) / 16);
-
-            for (int x = minX; x <= maxX; ++x) {
-                for (int z = minZ; z <= maxZ; ++z) {
-                    for (Entity ent : this.getChunkEntities(x, z, false).values()) {
-                        if ((entity == null || (ent != entity && entity.canCollideWith(ent)))
-                                && ent.boundingBox.intersectsWith(bb)) {
-                            nearby.add(ent);
-                        }
-                    }
-                }
-            }
+        if (entity != null && !entity.canCollide()) {
+            return EMPTY_ENTITY_ARR;
         }
 
-        return nearby.toArray(new Entity[0]);
+        List<Entity> buffer = takeEntityBuffer();
+        try {
+            this.forEachEntityIn(bb, ent -> entity == null || (ent != entity && entity.canCollideWith(ent)), buffer::add);
+            return buffer.isEmpty() ? EMPTY_ENTITY_ARR : buffer.toArray(EMPTY_ENTITY_ARR);
+        } finally {
+            releaseEntityBuffer(buffer);
+        }
     }
 
     public Entity[] getNearbyEntities(AxisAlignedBB bb) {
@@ -2980,51 +2971,84 @@ public class Level implements ChunkManager, Metadatable {
     }
 
     private static final Entity[] EMPTY_ENTITY_ARR = new Entity[0];
-    private static final Entity[] ENTITY_BUFFER = new Entity[512];
+    /**
+     * Reusable result buffer of entity queries that return arrays
+     */
+    private static final ThreadLocal<List<Entity>> ENTITY_BUFFER = ThreadLocal.withInitial(() -> new ArrayList<>(512));
+
+    private static List<Entity> takeEntityBuffer() {
+        List<Entity> buffer = ENTITY_BUFFER.get();
+        // Queries made by predicates while the buffer is in use get their own
+        ENTITY_BUFFER.remove();
+        return buffer;
+    }
+
+    private static void releaseEntityBuffer(List<Entity> buffer) {
+        buffer.clear();
+        ENTITY_BUFFER.set(buffer);
+    }
 
     public Entity[] getNearbyEntities(AxisAlignedBB bb, Entity entity) {
         return getNearbyEntities(bb, entity, false);
     }
 
     public Entity[] getNearbyEntities(AxisAlignedBB bb, Entity entity, boolean loadChunks) {
-        int index = 0;
-
-        int minX = NukkitMath.floorDouble((bb.getMinX() - 2) * 0.0625);
-        int maxX = NukkitMath.ceilDouble((bb.getMaxX() + 2) * 0.0625);
-        int minZ = NukkitMath.floorDouble((bb.getMinZ() - 2) * 0.0625);
-        int maxZ = NukkitMath.ceilDouble((bb.getMaxZ() + 2) * 0.0625);
-
-        ArrayList<Entity> overflow = null;
-
-        for (int x = minX; x <= maxX; ++x) {
-            for (int z = minZ; z <= maxZ; ++z) {
-                for (Entity ent : this.getChunkEntities(x, z, loadChunks).values()) {
-                    if (ent != entity && ent.boundingBox.intersectsWith(bb)) {
-                        if (index < ENTITY_BUFFER.length) {
-                            ENTITY_BUFFER[index] = ent;
-                        } else {
-                            if (overflow == null) overflow = new ArrayList<>(1024);
-                            overflow.add(ent);
-                        }
-                        index++;
-                    }
+        if (loadChunks) {
+            // Load the chunks first, their entities are added to the index once loaded
+            int minX = NukkitMath.floorDouble((bb.getMinX() - 2) * 0.0625);
+            int maxX = NukkitMath.ceilDouble((bb.getMaxX() + 2) * 0.0625);
+            int minZ = NukkitMath.floorDouble((bb.getMinZ() - 2) * 0.0625);
+            int maxZ = NukkitMath.ceilDouble((bb.getMaxZ() + 2) * 0.0625);
+            for (int x = minX; x <= maxX; ++x) {
+                for (int z = minZ; z <= maxZ; ++z) {
+                    this.getChunk(x, z, true);
                 }
             }
         }
 
-        if (index == 0) return EMPTY_ENTITY_ARR;
-        Entity[] copy;
-        if (overflow == null) {
-            copy = Arrays.copyOfRange(ENTITY_BUFFER, 0, index);
-            Arrays.fill(ENTITY_BUFFER, 0, index, null);
-        } else {
-            copy = new Entity[ENTITY_BUFFER.length + overflow.size()];
-            System.arraycopy(ENTITY_BUFFER, 0, copy, 0, ENTITY_BUFFER.length);
-            for (int i = 0; i < overflow.size(); i++) {
-                copy[ENTITY_BUFFER.length + i] = overflow.get(i);
-            }
+        List<Entity> buffer = takeEntityBuffer();
+        try {
+            this.getNearbyEntities(bb, entity, buffer);
+            return buffer.isEmpty() ? EMPTY_ENTITY_ARR : buffer.toArray(EMPTY_ENTITY_ARR);
+        } finally {
+            releaseEntityBuffer(buffer);
         }
-        return copy;
+    }
+
+    /**
+     * Add the entities whose bounding box intersects with an area to a collection
+     *
+     * @param bb     area
+     * @param entity entity to leave out or null
+     * @param result collection the entities are added to
+     * @return the collection
+     */
+    public <C extends Collection<? super Entity>> C getNearbyEntities(AxisAlignedBB bb, Entity entity, C result) {
+        this.entityIndex.forEach(bb, Entity.class, ent -> ent != entity, result::add);
+        return result;
+    }
+
+    /**
+     * Visit the entities whose bounding box intersects with an area. This doesn't allocate and is safe to call from
+     * any thread.
+     *
+     * @param bb        area
+     * @param predicate filter of the entities or null
+     * @param consumer  visitor
+     */
+    public void forEachEntityIn(AxisAlignedBB bb, Predicate<? super Entity> predicate, Consumer<? super Entity> consumer) {
+        this.entityIndex.forEach(bb, Entity.class, predicate, consumer);
+    }
+
+    /**
+     * Check whether an entity whose bounding box intersects with an area matches a predicate
+     *
+     * @param bb        area
+     * @param predicate filter of the entities or null
+     * @return whether an entity matched
+     */
+    public boolean anyEntityIn(AxisAlignedBB bb, Predicate<? super Entity> predicate) {
+        return this.entityIndex.anyMatch(bb, Entity.class, predicate);
     }
 
     @NonComputationAtomic
@@ -3779,6 +3803,17 @@ public class Level implements ChunkManager, Metadatable {
         Preconditions.checkState(player.getLoaderId() > 0, player.getName() + " has no chunk loader");
         long index = Level.chunkHash(x, z);
 
+        if (player.isClientCacheEnabled() && this.getChunkIfLoaded(x, z) instanceof BaseChunk chunk) {
+            // The sub chunks are mostly cached sections, so the blobs are cheap enough to build right away
+            NetworkChunkSerializer.NetworkChunkBlobs blobs = chunk.getChunkBlobs(player.getGameVersion());
+            if (blobs == null) {
+                blobs = NetworkChunkSerializer.serializeBlobs(player.getGameVersion(), chunk, this.antiXrayEnabled(), this.getDimensionData());
+                chunk.setChunkBlobs(player.getGameVersion(), blobs);
+            }
+            player.sendChunkBlobs(x, z, blobs);
+            return;
+        }
+
         this.getChunkSendQueue(player.getGameVersion()).computeIfAbsent(index, k ->
                 new Int2ObjectOpenHashMap<>()).put(player.getLoaderId(), player);
     }
@@ -3828,10 +3863,22 @@ public class Level implements ChunkManager, Metadatable {
             int x = getHashX(index);
             int z = getHashZ(index);
 
+            if (this.server.asyncChunkLoading && !this.isChunkLoaded(x, z) && !this.loadChunkAsync(x, z).isDone()) {
+                // Retry the request once the chunk has been read
+                for (GameVersion protocol : protocols) {
+                    this.getChunkSendTasks(protocol).remove(index);
+                }
+                continue;
+            }
+
+            ChunkPacketCache chunkPacketCache = this.server.getChunkPacketCache();
             for (GameVersion protocol : chunkRequests.get(index)) {
                 BaseFullChunk chunk = this.getChunk(x, z);
                 if (chunk != null) {
                     BatchPacket packet = chunk.getChunkPacket(protocol);
+                    if (packet == null && chunkPacketCache != null) {
+                        packet = chunkPacketCache.get(this, x, z, protocol);
+                    }
                     if (packet != null) {
                         //this.sendChunk(x, z, index, packet);
                         this.sendChunkInternal(x, z, index, packet, protocol);
@@ -3860,17 +3907,32 @@ public class Level implements ChunkManager, Metadatable {
     public void chunkRequestCallback(GameVersion protocol, long timestamp, int x, int z, int subChunkCount, byte[] payload) {
         long index = Level.chunkHash(x, z);
 
+        ChunkPacketCache chunkPacketCache = server.getChunkPacketCache();
         if (server.cacheChunks) {
             BatchPacket data = Player.getChunkCacheFromData(protocol, x, z, subChunkCount, payload, this.getDimension());
             BaseFullChunk chunk = getChunkIfLoaded(x, z);
             if (chunk != null && chunk.getChanges() <= timestamp) {
                 chunk.setChunkPacket(protocol, data);
+                if (chunkPacketCache != null) {
+                    chunkPacketCache.put(this, x, z, protocol, data);
+                }
             }
             //this.sendChunk(x, z, index, data);
             this.sendChunkInternal(x, z, index, data, protocol);
             return;
         }
 
+        if (chunkPacketCache != null) {
+            BaseFullChunk chunk = getChunkIfLoaded(x, z);
+            if (chunk != null && chunk.getChanges() <= timestamp) {
+                // The chunk is still sent as usual, the shared packet is compressed off the level thread
+                Object token = chunkPacketCache.reserve(this, x, z, protocol);
+                int dimension = this.getDimension();
+                CompletableFuture.supplyAsync(() -> Player.getChunkCacheFromData(protocol, x, z, subChunkCount, payload, dimension), this.server.computeThreadPool)
+                        .whenComplete((packet, error) -> chunkPacketCache.complete(this, x, z, token, protocol, packet));
+            }
+        }
+
         LongSet tasks = this.getChunkSendTasks(protocol);
         if (tasks.contains(index)) {
             ConcurrentMap<Long, Int2ObjectMap<Player>> queue = this.getChunkSendQueue(protocol);
@@ -3904,6 +3966,7 @@ public class Level implements ChunkManager, Metadatable {
 
         this.entities.remove(entity.getId());
         this.updateEntities.remove(entity.getId());
+        this.entityIndex.remove(entity);
     }
 
     public void addEntity(Entity entity) {
@@ -3915,6 +3978,28 @@ public class Level implements ChunkManager, Metadatable {
             this.players.put(entity.getId(), (Player) entity);
         }
         this.entities.put(entity.getId(), entity);
+        this.entityIndex.update(entity);
+    }
+
+    /**
+     * Get the index of the entities of this level by position
+     *
+     * @return entity index
+     */
+    public EntitySpatialIndex getEntityIndex() {
+        return this.entityIndex;
+    }
+
+    /**
+     * Visit the entities of a class whose position is within a distance of a point
+     *
+     * @param pos      point
+     * @param radius   maximum distance
+     * @param type     class the entities must be an instance of
+     * @param consumer visitor
+     */
+    public <T extends Entity> void forEachNearbyEntity(Vector3 pos, double radius, Class<T> type, Consumer<? super T> consumer) {
+        this.entityIndex.forEachInRadius(pos.x, pos.y, pos.z, radius, type, consumer);
     }
 
     public void addBlockEntity(BlockEntity blockEntity) {
@@ -3963,6 +4048,58 @@ public class Level implements ChunkManager, Metadatable {
         return forceLoadChunk(index, x, z, generate) != null;
     }
 
+    /**
+     * Load a chunk without blocking the level tick on disk IO. The chunk is read on the provider's IO threads and
+     * added to the level during the level tick. A new chunk is created if it doesn't exist yet.
+     *
+     * @param x chunk X
+     * @param z chunk Z
+     * @return future completed with the loaded chunk
+     */
+    public CompletableFuture<BaseFullChunk> loadChunkAsync(int x, int z) {
+        long index = Level.chunkHash(x, z);
+        LevelProvider provider = this.requireProvider();
+        BaseFullChunk loaded = provider.getLoadedChunk(index);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        }
+
+        CompletableFuture<BaseFullChunk> future = this.asyncChunkLoads.get(index);
+        if (future == null) {
+            future = provider.loadChunkAsync(x, z).thenApply(chunk -> {
+                this.asyncChunkLoads.remove(index);
+                if (chunk == null) {
+                    return this.provider != null ? this.createMissingChunk(index, x, z) : null;
+                }
+                return chunk.isInit() ? chunk : this.onChunkLoad(index, x, z, chunk);
+            });
+            if (!future.isDone()) {
+                this.asyncChunkLoads.put(index, future);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Add an empty chunk for a chunk the provider doesn't have and queue its generation. The provider was already read
+     * asynchronously, so it isn't read again.
+     */
+    private BaseFullChunk createMissingChunk(long index, int x, int z) {
+        LevelProvider provider = this.requireProvider();
+        BaseFullChunk chunk = provider.getLoadedChunk(index);
+        if (chunk == null) {
+            chunk = provider.getEmptyChunk(x, z);
+            provider.setChunk(x, z, chunk);
+        }
+        if (!chunk.isInit()) {
+            chunk = this.onChunkLoad(index, x, z, chunk);
+        }
+        if (!chunk.isGenerated()) {
+            this.generateChunk(x, z);
+        }
+        return chunk;
+    }
+
     private synchronized BaseFullChunk forceLoadChunk(long index, int x, int z, boolean generate) {
         BaseFullChunk chunk = this.requireProvider().getChunk(x, z, generate);
 
@@ -3973,6 +4110,10 @@ public class Level implements ChunkManager, Metadatable {
             return null;
         }
 
+        return this.onChunkLoad(index, x, z, chunk);
+    }
+
+    private BaseFullChunk onChunkLoad(long index, int x, int z, BaseFullChunk chunk) {
         if (chunk.getProvider() != null) {
             this.server.getPluginManager().callEvent(new ChunkLoadEvent(chunk, !chunk.isGenerated()));
         } else {
@@ -11,6 +11,7 @@ import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author MagicDroidX
@@ -57,6 +58,26 @@ public interface LevelProvider {
 
     boolean loadChunk(int X, int Z, boolean create);
 
+    /**
+     * Read a chunk without blocking the calling thread.
+     * The returned future completes during {@link #processChunkLoads()} once the chunk was added to the loaded chunks,
+     * or with null if the chunk does not exist. Providers without asynchronous reading load the chunk directly.
+     *
+     * @param X chunk X
+     * @param Z chunk Z
+     * @return future completed with the loaded chunk
+     */
+    default CompletableFuture<BaseFullChunk> loadChunkAsync(int X, int Z) {
+        return CompletableFuture.completedFuture(this.getChunk(X, Z, false));
+    }
+
+    /**
+     * Add the chunks read by {@link #loadChunkAsync(int, int)} to the loaded chunks.
+     * Called from the level tick.
+     */
+    default void processChunkLoads() {
+    }
+
     boolean unloadChunk(int X, int Z);
 
     boolean unloadChunk(int X, int Z, boolean safe);
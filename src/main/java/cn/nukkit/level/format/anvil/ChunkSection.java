@@ -6,6 +6,7 @@ import cn.nukkit.level.format.anvil.util.BlockStorage;
 import cn.nukkit.level.format.anvil.util.NibbleArray;
 import cn.nukkit.level.format.generic.BaseChunk;
 import cn.nukkit.level.format.generic.EmptyChunkSection;
+import cn.nukkit.level.util.SubChunkNetworkCache;
 import cn.nukkit.nbt.tag.ByteArrayTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
@@ -47,6 +48,12 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
 
     private int contentVersion;
 
+    /**
+     * Incremented whenever the network representation of the section changes, guarded by the storage monitor
+     */
+    private long modCount;
+    private SubChunkNetworkCache networkCache = new SubChunkNetworkCache();
+
     private ChunkSection(int y, List<BlockStorage> storage, byte[] blockLight, byte[] skyLight, byte[] compressedLight,
                          boolean hasBlockLight, boolean hasSkyLight) {
         this.y = y;
@@ -614,15 +621,29 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
 
     @Override
     public void writeTo(GameVersion gameVersion, BinaryStream stream, boolean antiXray) {
-        synchronized (storage) {
-            stream.putByte((byte) STREAM_STORAGE_VERSION);
-            stream.putByte((byte) storage.size());
-            for (BlockStorage blockStorage : storage) {
-                if (blockStorage == null) {
-                    blockStorage = new BlockStorage();
+        // The read lock keeps setters from changing a storage after they incremented modCount
+        sectionLock.readLock().lock();
+        try {
+            synchronized (storage) {
+                byte[] encoded = networkCache.get(modCount, gameVersion, antiXray);
+                if (encoded == null) {
+                    BinaryStream sectionStream = new BinaryStream(1024);
+                    sectionStream.putByte((byte) STREAM_STORAGE_VERSION);
+                    sectionStream.putByte((byte) storage.size());
+                    for (BlockStorage blockStorage : storage) {
+                        if (blockStorage == null) {
+                            blockStorage = new BlockStorage();
+                        }
+                        blockStorage.writeTo(gameVersion, sectionStream, antiXray);
+                    }
+
+                    encoded = sectionStream.getBuffer();
+                    networkCache.put(modCount, gameVersion, antiXray, encoded);
                 }
-                blockStorage.writeTo(gameVersion, stream, antiXray);
+                stream.put(encoded);
             }
+        } finally {
+            sectionLock.readLock().unlock();
         }
     }
 
@@ -694,6 +715,7 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
 
     public void compressStorageLayers() {
         synchronized (storage) {
+            int layers = storage.size();
             // Remove unused storage layers
             for (int i = storage.size() - 1; i > 0; i--) {
                 BlockStorage storage = this.storage.get(i);
@@ -710,6 +732,10 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
                     this.storage.remove(i);
                 }
             }
+
+            if (storage.size() != layers) {
+                modCount++;
+            }
         }
     }
 
@@ -756,6 +782,9 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
         Preconditions.checkArgument(layer >= 0, "Negative storage layer");
         Preconditions.checkArgument(layer <= getMaximumLayer(), "Only layer 0 to %d are supported", getMaximumLayer());
         synchronized (storage) {
+            // Only called to modify the storage
+            modCount++;
+
             BlockStorage blockStorage = layer < storage.size()? storage.get(layer) : null;
             if (blockStorage == null) {
                 blockStorage = new BlockStorage();
@@ -785,20 +814,35 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
 
     @Override
     public ChunkSection copy() {
-        BlockStorage[] storageCopy = new BlockStorage[Math.min(this.storage.size(), getMaximumLayer() + 1)];
-        for (int i = 0; i < storageCopy.length; i++) {
-            BlockStorage blockStorage = this.getStorageIfExists(i);
-            storageCopy[i] = blockStorage != null? blockStorage.copy() : null;
-        }
-        return new ChunkSection(
-                this.y,
-                Arrays.asList(storageCopy),
-                this.blockLight == null ? null : this.blockLight.clone(),
-                this.skyLight == null ? null : this.skyLight.clone(),
-                this.compressedLight == null ? null : this.compressedLight.clone(),
-                this.hasBlockLight,
-                this.hasSkyLight
-        );
+        // The read lock keeps setters from changing a storage after they incremented modCount, like writeTo
+        sectionLock.readLock().lock();
+        try {
+            long modCount;
+            BlockStorage[] storageCopy;
+            synchronized (storage) {
+                modCount = this.modCount;
+                storageCopy = new BlockStorage[Math.min(this.storage.size(), getMaximumLayer() + 1)];
+                for (int i = 0; i < storageCopy.length; i++) {
+                    BlockStorage blockStorage = this.storage.get(i);
+                    storageCopy[i] = blockStorage != null ? blockStorage.copy() : null;
+                }
+            }
+            ChunkSection section = new ChunkSection(
+                    this.y,
+                    Arrays.asList(storageCopy),
+                    this.blockLight == null ? null : this.blockLight.clone(),
+                    this.skyLight == null ? null : this.skyLight.clone(),
+                    this.compressedLight == null ? null : this.compressedLight.clone(),
+                    this.hasBlockLight,
+                    this.hasSkyLight
+            );
+            // Copies are made for chunk sending, let them fill the cache of this section
+            section.modCount = modCount;
+            section.networkCache = this.networkCache;
+            return section;
+        } finally {
+            sectionLock.readLock().unlock();
+        }
     }
 
     @Override
@@ -9,9 +9,11 @@ import cn.nukkit.blockentity.BlockEntity;
 import cn.nukkit.blockentity.PersistentDataContainerBlockEntity;
 import cn.nukkit.entity.Entity;
 import cn.nukkit.level.ChunkManager;
+import cn.nukkit.level.ChunkPacketCache;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.level.format.LevelProvider;
+import cn.nukkit.level.format.generic.serializer.NetworkChunkSerializer;
 import cn.nukkit.level.persistence.PersistentDataContainer;
 import cn.nukkit.math.NukkitMath;
 import cn.nukkit.math.Vector3;
@@ -29,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author MagicDroidX
@@ -78,6 +81,11 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
 
     protected Map<GameVersion, BatchPacket> chunkPackets;
 
+    /**
+     * Chunk blobs for clients with the blob cache enabled, dropped when the chunk is changed
+     */
+    protected volatile Map<GameVersion, NetworkChunkSerializer.NetworkChunkBlobs> chunkBlobs;
+
     @Override
     public BaseFullChunk clone() {
         BaseFullChunk chunk;
@@ -109,6 +117,7 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
         if (this.heightMap != null) {
             chunk.heightMap = this.getHeightMapArray().clone();
         }
+        chunk.chunkBlobs = null;
         return chunk;
     }
 
@@ -164,6 +173,19 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
         return pk;
     }
 
+    public NetworkChunkSerializer.NetworkChunkBlobs getChunkBlobs(GameVersion protocol) {
+        Map<GameVersion, NetworkChunkSerializer.NetworkChunkBlobs> chunkBlobs = this.chunkBlobs;
+        return chunkBlobs == null ? null : chunkBlobs.get(protocol);
+    }
+
+    public void setChunkBlobs(GameVersion protocol, NetworkChunkSerializer.NetworkChunkBlobs blobs) {
+        Map<GameVersion, NetworkChunkSerializer.NetworkChunkBlobs> chunkBlobs = this.chunkBlobs;
+        if (chunkBlobs == null) {
+            this.chunkBlobs = chunkBlobs = new ConcurrentHashMap<>();
+        }
+        chunkBlobs.put(protocol, blobs);
+    }
+
     @Override
     public void initChunk() {
         if (this.getProvider() != null && !this.isInit) {
@@ -213,6 +235,15 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
         }
     }
 
+    /**
+     * Whether the entities and block entities of this chunk were already created by {@link #initChunk()}
+     *
+     * @return chunk initialized
+     */
+    public boolean isInit() {
+        return this.isInit;
+    }
+
     @Override
     public final long getIndex() {
         return hash;
@@ -631,6 +662,17 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
     public void setChanged() {
         this.changes++;
         chunkPackets = null;
+        chunkBlobs = null;
+
+        Server server = Server.getInstance();
+        ChunkPacketCache chunkPacketCache = server == null ? null : server.getChunkPacketCache();
+        LevelProvider provider = this.provider;
+        if (chunkPacketCache != null && provider != null) {
+            Level level = provider.getLevel();
+            if (level != null) {
+                chunkPacketCache.invalidate(level, this.getX(), this.getZ());
+            }
+        }
     }
 
     @Override
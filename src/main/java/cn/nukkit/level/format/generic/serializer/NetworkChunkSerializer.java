@@ -14,7 +14,9 @@ import cn.nukkit.level.util.PalettedBlockStorage;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.network.protocol.ProtocolInfo;
+import cn.nukkit.network.protocol.SubChunkPacket;
 import cn.nukkit.utils.BinaryStream;
+import cn.nukkit.utils.Hash;
 import cn.nukkit.utils.ThreadCache;
 import cn.nukkit.utils.Utils;
 import it.unimi.dsi.fastutil.ints.IntSet;
@@ -25,6 +27,7 @@ import lombok.Data;
 
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -36,6 +39,10 @@ public class NetworkChunkSerializer {
 
     private static final byte[] negativeSubChunks;
 
+    private static final byte[] EMPTY_SUB_CHUNK = {8, 0};
+
+    private static final long EMPTY_SUB_CHUNK_BLOB_ID = Hash.xxHash64(EMPTY_SUB_CHUNK);
+
     static {
         // Build up 4 SubChunks for the extended negative height
         BinaryStream stream = new BinaryStream();
@@ -55,12 +62,6 @@ public class NetworkChunkSerializer {
     public static void serialize(ObjectSet<GameVersion> protocols, BaseChunk chunk, Consumer<NetworkChunkSerializerCallback> callback, boolean antiXray, DimensionData dimensionData) {
         for (GameVersion gameVersion : protocols) {
             int protocolId = gameVersion.getProtocol();
-            byte[] blockEntities;
-            if (chunk.getBlockEntities().isEmpty()) {
-                blockEntities = new byte[0];
-            } else {
-                blockEntities = serializeEntities(chunk, protocolId);
-            }
 
             int subChunkCount = 0;
             ChunkSection[] sections = chunk.getSections();
@@ -73,6 +74,20 @@ public class NetworkChunkSerializer {
 
             BinaryStream stream = ThreadCache.binaryStream.get().reset();
             NetworkChunkData networkChunkData = new NetworkChunkData(gameVersion, subChunkCount, antiXray, dimensionData);
+            if (isSubChunkRequestMode(gameVersion)) {
+                // The sub chunks and block entities are sent when the client requests them
+                serializeSubChunkRequestMode(stream, chunk, networkChunkData);
+                callback.accept(new NetworkChunkSerializerCallback(gameVersion, stream, networkChunkData.getChunkSections()));
+                continue;
+            }
+
+            byte[] blockEntities;
+            if (chunk.getBlockEntities().isEmpty()) {
+                blockEntities = new byte[0];
+            } else {
+                blockEntities = serializeEntities(chunk, protocolId);
+            }
+
             if (protocolId >= ProtocolInfo.v1_18_30) {
                 serialize1_18_30(stream, chunk, sections, networkChunkData);
             } else if (protocolId >= ProtocolInfo.v1_18_0) {
@@ -140,6 +155,148 @@ public class NetworkChunkSerializer {
         chunkData.setChunkSections(writtenSections);
     }
 
+    private static void serializeSubChunkRequestMode(BinaryStream stream, BaseChunk chunk, NetworkChunkData chunkData) {
+        DimensionData dimensionData = chunkData.getDimensionData();
+        int maxDimensionSections = dimensionData.getHeight() >> 4;
+        int subChunkCount = Math.min(maxDimensionSections, chunkData.getChunkSections());
+
+        byte[] biomePalettes = serialize3DBiomes(chunk, chunkData.getGameVersion(), maxDimensionSections);
+        stream.reset();
+
+        stream.put(biomePalettes);
+        stream.putByte((byte) 0); // Border blocks
+
+        // The highest sub chunk the client may request, counted from the bottom of the dimension
+        if (dimensionData.getDimensionId() == Level.DIMENSION_OVERWORLD && chunk.getSectionOffset() == 0) {
+            subChunkCount += EXTENDED_NEGATIVE_SUB_CHUNKS;
+        }
+        chunkData.setChunkSections(subChunkCount);
+    }
+
+    /**
+     * Whether chunks are sent to a game version in sub chunk request mode. The chunk packet then only contains the
+     * biomes and the client requests the sub chunks it needs with {@link cn.nukkit.network.protocol.SubChunkRequestPacket}.
+     * <p>
+     * Only the protocols from 1.18.30 to 1.21.80 are supported, they share the SubChunkPacket layout implemented here.
+     *
+     * @param gameVersion game version
+     * @return sub chunk request mode is used
+     */
+    public static boolean isSubChunkRequestMode(GameVersion gameVersion) {
+        int protocol = gameVersion.getProtocol();
+        return Server.getInstance().subChunkRequests && protocol >= ProtocolInfo.v1_18_30 && protocol < ProtocolInfo.v1_21_90;
+    }
+
+    /**
+     * Serialize a sub chunk requested by a client in sub chunk request mode
+     *
+     * @param entry         response entry to fill
+     * @param gameVersion   game version of the client
+     * @param chunk         chunk
+     * @param subChunkY     absolute Y index of the sub chunk
+     * @param antiXray      anti-xray is enabled in the level
+     * @param dimensionData dimension of the level
+     */
+    public static void serializeSubChunk(SubChunkPacket.Entry entry, GameVersion gameVersion, BaseChunk chunk, int subChunkY, boolean antiXray, DimensionData dimensionData) {
+        if (subChunkY < dimensionData.getMinSectionY() || subChunkY > dimensionData.getMaxSectionY()) {
+            entry.result = SubChunkPacket.RESULT_Y_INDEX_OUT_OF_BOUNDS;
+            return;
+        }
+
+        ChunkSection[] sections = chunk.getSections();
+        int index = subChunkY + chunk.getSectionOffset();
+        if (index < 0 || index >= sections.length || sections[index].isEmpty()) {
+            entry.result = SubChunkPacket.RESULT_SUCCESS_ALL_AIR;
+            return;
+        }
+
+        // Uses the network cache of the section, which is written in the version 8 format
+        BinaryStream sectionStream = new BinaryStream();
+        sections[index].writeTo(gameVersion, sectionStream, antiXray);
+        byte[] storages = sectionStream.getBuffer();
+
+        BinaryStream stream = new BinaryStream(storages.length + 1);
+        stream.putByte((byte) 9); // SubChunk version
+        stream.putByte(storages[1]); // Layers
+        stream.putByte((byte) subChunkY);
+        stream.put(Arrays.copyOfRange(storages, 2, storages.length));
+
+        List<CompoundTag> tagList = new ObjectArrayList<>();
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (blockEntity instanceof BlockEntitySpawnable && blockEntity.getFloorY() >> 4 == subChunkY) {
+                tagList.add(((BlockEntitySpawnable) blockEntity).getSpawnCompound(gameVersion.getProtocol()));
+            }
+        }
+        if (!tagList.isEmpty()) {
+            try {
+                stream.put(NBTIO.write(tagList, ByteOrder.LITTLE_ENDIAN, true));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        entry.result = SubChunkPacket.RESULT_SUCCESS;
+        entry.data = stream.getBuffer();
+    }
+
+    /**
+     * Serialize a chunk for a client with the blob cache enabled. Every sub chunk and the biomes are sent as blobs
+     * identified by their hash, which the client only requests when it does not have them cached. The payload of
+     * the chunk packet only contains the border blocks and the block entities.
+     * <p>
+     * Only supported for 1.18.30 and newer.
+     *
+     * @param gameVersion   game version of the client
+     * @param chunk         chunk
+     * @param antiXray      anti-xray is enabled in the level
+     * @param dimensionData dimension of the level
+     * @return blobs of the chunk
+     */
+    public static NetworkChunkBlobs serializeBlobs(GameVersion gameVersion, BaseChunk chunk, boolean antiXray, DimensionData dimensionData) {
+        int maxDimensionSections = dimensionData.getHeight() >> 4;
+        ChunkSection[] sections = chunk.getSections();
+        int subChunkCount = 0;
+        for (int i = sections.length - 1; i >= 0; i--) {
+            if (!sections[i].isEmpty()) {
+                subChunkCount = i + 1;
+                break;
+            }
+        }
+        subChunkCount = Math.min(maxDimensionSections, subChunkCount);
+
+        // Overworld has negative coordinates, But the anvil world does not support it
+        int negativeCount = dimensionData.getDimensionId() == Level.DIMENSION_OVERWORLD && chunk.getSectionOffset() == 0 ? EXTENDED_NEGATIVE_SUB_CHUNKS : 0;
+
+        int blobCount = negativeCount + subChunkCount + 1;
+        long[] blobIds = new long[blobCount];
+        byte[][] blobs = new byte[blobCount][];
+
+        int blob = 0;
+        for (; blob < negativeCount; blob++) {
+            blobIds[blob] = EMPTY_SUB_CHUNK_BLOB_ID;
+            blobs[blob] = EMPTY_SUB_CHUNK;
+        }
+
+        BinaryStream stream = new BinaryStream();
+        for (int i = 0; i < subChunkCount; i++, blob++) {
+            sections[i].writeTo(gameVersion, stream.reset(), antiXray);
+            blobs[blob] = stream.getBuffer();
+            blobIds[blob] = Hash.xxHash64(blobs[blob]);
+        }
+
+        // The biomes of all sub chunks are the last blob
+        blobs[blob] = serialize3DBiomes(chunk, gameVersion, maxDimensionSections);
+        blobIds[blob] = Hash.xxHash64(blobs[blob]);
+
+        stream.reset();
+        stream.putByte((byte) 0); // Border blocks
+        if (!chunk.getBlockEntities().isEmpty()) {
+            stream.put(serializeEntities(chunk, gameVersion.getProtocol()));
+        }
+
+        return new NetworkChunkBlobs(negativeCount + subChunkCount, blobIds, blobs, stream.getBuffer());
+    }
+
     private static void serialize1_18_0(BinaryStream stream, BaseChunk chunk, ChunkSection[] sections, NetworkChunkData chunkData) {
         DimensionData dimensionData = chunkData.getDimensionData();
         int maxDimensionSections = dimensionData.getHeight() >> 4;
@@ -224,6 +381,15 @@ public class NetworkChunkSerializer {
         private Integer subchunks;
     }
 
+    @AllArgsConstructor
+    @Data
+    public static class NetworkChunkBlobs {
+        private int subChunkCount;
+        private long[] blobIds;
+        private byte[][] blobs;
+        private byte[] payload;
+    }
+
     @AllArgsConstructor
     @Data
     public static class NetworkChunkSerializerCallbackData {
@@ -59,8 +59,17 @@ public class LevelDBProvider implements LevelProvider {
 
     private static final DBProvider JAVA_LDB_PROVIDER = (DBProvider) FeatureBuilder.create(LevelDBProvider.class).addJava("net.daporkchop.ldbjni.java.JavaDBProvider").build();
 
+    /**
+     * Shared by all LevelDB worlds to read and deserialize chunks off the main thread.
+     */
+    private static final ExecutorService CHUNK_LOAD_EXECUTOR = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+            new ThreadFactoryBuilder().setNameFormat("LevelDB Chunk Loader #%d").setDaemon(true).build());
+
     protected final Long2ObjectMap<BaseFullChunk> chunks = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
 
+    private final Long2ObjectMap<AsyncChunkLoad> asyncChunkLoads = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+    private final Queue<AsyncChunkLoad> completedChunkLoads = new ConcurrentLinkedQueue<>();
+
     protected final DB db;
 
     protected Level level;
@@ -403,6 +412,19 @@ public class LevelDBProvider implements LevelProvider {
 
     @Nullable
     public LevelDBChunk readChunk(int chunkX, int chunkZ) {
+        LevelDBChunk chunk = this.readChunkData(chunkX, chunkZ);
+        if (chunk != null) {
+            this.loadBlockTickingQueues(this.readTickingData(chunkX, chunkZ, false), this.readTickingData(chunkX, chunkZ, true));
+        }
+        return chunk;
+    }
+
+    /**
+     * Read and deserialize the chunk without touching the level, this can be called from any thread.
+     * Pending block updates have to be loaded separately.
+     */
+    @Nullable
+    private LevelDBChunk readChunkData(int chunkX, int chunkZ) {
         byte[] versionData = this.db.get(VERSION.getKey(chunkX, chunkZ, this.level.getDimensionData().getDimensionId()));
         if (versionData == null || versionData.length != 1) {
             versionData = this.db.get(VERSION_OLD.getKey(chunkX, chunkZ, this.level.getDimensionData().getDimensionId()));
@@ -436,23 +458,80 @@ public class LevelDBProvider implements LevelProvider {
         BlockEntitySerializer.loadBlockEntities(this.db, chunkBuilder);
         EntitySerializer.loadEntities(this.db, chunkBuilder);
 
-        byte[] tickingData = this.db.get(PENDING_TICKS.getKey(chunkX, chunkZ, this.level.getDimension()));
+        LevelDBChunk chunk = chunkBuilder.build();
+
+        if (chunkVersion <= 2) {
+            chunk.setHeightmapOrBiomesDirty();
+        }
+
+        return chunk;
+    }
+
+    private byte[] readTickingData(int chunkX, int chunkZ, boolean random) {
+        return this.db.get((random ? PENDING_RANDOM_TICKS : PENDING_TICKS).getKey(chunkX, chunkZ, this.level.getDimension()));
+    }
+
+    private void loadBlockTickingQueues(byte[] tickingData, byte[] randomTickingData) {
         if (tickingData != null && tickingData.length != 0) {
             loadBlockTickingQueue(tickingData, false);
         }
 
-        byte[] randomTickingData = this.db.get(PENDING_RANDOM_TICKS.getKey(chunkX, chunkZ, this.level.getDimension()));
         if (randomTickingData != null && randomTickingData.length != 0) {
             loadBlockTickingQueue(randomTickingData, true);
         }
+    }
 
-        LevelDBChunk chunk = chunkBuilder.build();
+    @Override
+    public CompletableFuture<BaseFullChunk> loadChunkAsync(int chunkX, int chunkZ) {
+        long index = Level.chunkHash(chunkX, chunkZ);
+        BaseFullChunk loaded = this.chunks.get(index);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        }
 
-        if (chunkVersion <= 2) {
-            chunk.setHeightmapOrBiomesDirty();
+        synchronized (this.asyncChunkLoads) {
+            AsyncChunkLoad load = this.asyncChunkLoads.get(index);
+            if (load == null) {
+                load = new AsyncChunkLoad(chunkX, chunkZ);
+                this.asyncChunkLoads.put(index, load);
+                AsyncChunkLoad finalLoad = load;
+                load.read = CompletableFuture.runAsync(() -> this.readChunkAsync(finalLoad), CHUNK_LOAD_EXECUTOR);
+            }
+            return load.future;
         }
+    }
 
-        return chunk;
+    private void readChunkAsync(AsyncChunkLoad load) {
+        try {
+            if (!this.closed) {
+                load.chunk = this.readChunkData(load.chunkX, load.chunkZ);
+                if (load.chunk != null) {
+                    load.tickingData = this.readTickingData(load.chunkX, load.chunkZ, false);
+                    load.randomTickingData = this.readTickingData(load.chunkX, load.chunkZ, true);
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Failed to read chunk {}, {}", load.chunkX, load.chunkZ, ex);
+        }
+        this.completedChunkLoads.offer(load);
+    }
+
+    @Override
+    public void processChunkLoads() {
+        AsyncChunkLoad load;
+        while ((load = this.completedChunkLoads.poll()) != null) {
+            long index = Level.chunkHash(load.chunkX, load.chunkZ);
+            this.asyncChunkLoads.remove(index);
+
+            BaseFullChunk chunk = this.chunks.get(index);
+            if (chunk == null && load.chunk != null && !this.closed) {
+                // Loaded synchronously in the meantime otherwise
+                chunk = load.chunk;
+                this.chunks.put(index, chunk);
+                this.loadBlockTickingQueues(load.tickingData, load.randomTickingData);
+            }
+            load.future.complete(chunk);
+        }
     }
 
     @Override
@@ -524,11 +603,11 @@ public class LevelDBProvider implements LevelProvider {
     private WriteBatch save0(int chunkX, int chunkZ, LevelDBChunk chunk) {
         WriteBatch writeBatch = this.db.createWriteBatch();
 
-        if (chunk.isSubChunksDirty()) {
-            ChunkSerializers.serializeChunk(writeBatch, chunk, CURRENT_LEVEL_CHUNK_VERSION);
-        }
+        // Sections track their own changes, only the dirty ones are written
+        chunk.takeSubChunksDirty();
+        ChunkSerializers.serializeChunk(writeBatch, chunk, CURRENT_LEVEL_CHUNK_VERSION);
 
-        if (chunk.isHeightmapOrBiomesDirty()) {
+        if (chunk.takeHeightmapOrBiomesDirty()) {
             if (chunk.has3dBiomes()) {
                 Data3dSerializer.serialize(writeBatch, chunk);
             } else {
@@ -604,6 +683,9 @@ public class LevelDBProvider implements LevelProvider {
             batch.close();
         } catch (Exception e) {
             log.error("Exception in saveChunkCallback for {}", this.getName(), e);
+            // The dirty flags were cleared when the batch was built
+            chunk.setAllDataDirty();
+            chunk.setChanged();
         } finally {
             chunk.writeLock().unlock();
         }
@@ -736,6 +818,19 @@ public class LevelDBProvider implements LevelProvider {
 
             this.unloadChunksUnsafe(true);
             this.closed = true;
+
+            // Chunk reads that are still running need the database
+            AsyncChunkLoad[] pendingLoads;
+            synchronized (this.asyncChunkLoads) {
+                pendingLoads = this.asyncChunkLoads.values().toArray(new AsyncChunkLoad[0]);
+                this.asyncChunkLoads.clear();
+            }
+            for (AsyncChunkLoad load : pendingLoads) {
+                load.read.join();
+                load.future.complete(null);
+            }
+            this.completedChunkLoads.clear();
+
             this.level = null;
             this.executor.shutdown();
             try {
@@ -1075,6 +1170,21 @@ public class LevelDBProvider implements LevelProvider {
         }
     }
 
+    private static class AsyncChunkLoad {
+        private final int chunkX;
+        private final int chunkZ;
+        private final CompletableFuture<BaseFullChunk> future = new CompletableFuture<>();
+        private CompletableFuture<Void> read;
+        private LevelDBChunk chunk;
+        private byte[] tickingData;
+        private byte[] randomTickingData;
+
+        private AsyncChunkLoad(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
     private class AutoCompaction implements Runnable {
         @Override
         public void run() {
@@ -6,6 +6,7 @@ import cn.nukkit.level.format.leveldb.structure.ChunkBuilder;
 import cn.nukkit.level.format.leveldb.structure.LevelDBChunk;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.utils.Hash;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.WriteBatch;
@@ -24,15 +25,20 @@ public class BlockEntitySerializer {
 
         byte[] value = db.get(key);
         if (value == null) {
+            builder.dataLoader((chunk, provider) -> chunk.setBlockEntitiesHash(LevelDBChunk.NO_DATA_HASH));
             return;
         }
 
+        long hash = Hash.xxHash64(value);
         List<CompoundTag> blockEntities = new ObjectArrayList<>();
         try (ByteArrayInputStream stream = new ByteArrayInputStream(value)) {
             while (stream.available() > 0) {
                 blockEntities.add(NBTIO.read(stream, ByteOrder.LITTLE_ENDIAN));
             }
-            builder.dataLoader((chunk, provider) -> chunk.setNbtBlockEntities(blockEntities));
+            builder.dataLoader((chunk, provider) -> {
+                chunk.setNbtBlockEntities(blockEntities);
+                chunk.setBlockEntitiesHash(hash);
+            });
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -41,7 +47,10 @@ public class BlockEntitySerializer {
     public static void saveBlockEntities(WriteBatch db, LevelDBChunk chunk) {
         byte[] key = LevelDBKey.BLOCK_ENTITIES.getKey(chunk.getX(), chunk.getZ(), chunk.getProvider().getLevel().getDimension());
         if (chunk.getBlockEntities().isEmpty()) {
-            db.delete(key);
+            if (chunk.getBlockEntitiesHash() != LevelDBChunk.NO_DATA_HASH) {
+                db.delete(key);
+                chunk.setBlockEntitiesHash(LevelDBChunk.NO_DATA_HASH);
+            }
             return;
         }
 
@@ -59,6 +68,13 @@ public class BlockEntitySerializer {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        // Block entities have no change tracking, the data is compared with the stored data instead
+        long hash = Hash.xxHash64(value);
+        if (hash == chunk.getBlockEntitiesHash()) {
+            return;
+        }
+        chunk.setBlockEntitiesHash(hash);
         db.put(key, value);
     }
 }
@@ -36,7 +36,7 @@ public class ChunkSerializerV3 implements ChunkSerializer {
                 continue;
             }
 
-            if (!section.isDirty()) {
+            if (!section.takeDirty()) {
                 continue;
             }
 
@@ -7,6 +7,7 @@ import cn.nukkit.level.format.leveldb.structure.ChunkBuilder;
 import cn.nukkit.level.format.leveldb.structure.LevelDBChunk;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.utils.Hash;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.WriteBatch;
@@ -27,15 +28,20 @@ public class EntitySerializer {
 
         byte[] value = db.get(key);
         if (value == null) {
+            builder.dataLoader((chunk, provider) -> chunk.setEntitiesHash(LevelDBChunk.NO_DATA_HASH));
             return;
         }
 
+        long hash = Hash.xxHash64(value);
         List<CompoundTag> entityTags = new ObjectArrayList<>();
         try (ByteArrayInputStream stream = new ByteArrayInputStream(value)) {
             while (stream.available() > 0) {
                 deserializeNbt(NBTIO.read(stream, ByteOrder.LITTLE_ENDIAN), entityTags::add);
             }
-            builder.dataLoader((chunk, provider) -> chunk.setNbtEntities(entityTags));
+            builder.dataLoader((chunk, provider) -> {
+                chunk.setNbtEntities(entityTags);
+                chunk.setEntitiesHash(hash);
+            });
         } catch (IOException e) {
             throw new RuntimeException("Unable to deserialize entity NBT", e);
         }
@@ -45,7 +51,10 @@ public class EntitySerializer {
         byte[] key = LevelDBKey.ENTITIES.getKey(chunk.getX(), chunk.getZ(), chunk.getProvider().getLevel().getDimension());
         Collection<Entity> entities = chunk.getEntities().values();
         if (entities.isEmpty()) {
-            db.delete(key);
+            if (chunk.getEntitiesHash() != LevelDBChunk.NO_DATA_HASH) {
+                db.delete(key);
+                chunk.setEntitiesHash(LevelDBChunk.NO_DATA_HASH);
+            }
             return;
         }
 
@@ -62,6 +71,13 @@ public class EntitySerializer {
         } catch (IOException e) {
             throw new RuntimeException("Can not create out stream", e);
         }
+
+        // Entities have no change tracking, the data is compared with the stored data instead
+        long hash = Hash.xxHash64(value);
+        if (hash == chunk.getEntitiesHash()) {
+            return;
+        }
+        chunk.setEntitiesHash(hash);
         db.put(key, value);
     }
 
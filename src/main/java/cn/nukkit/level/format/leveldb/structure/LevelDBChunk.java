@@ -17,6 +17,7 @@ import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
 import cn.nukkit.utils.BinaryStream;
 import cn.nukkit.utils.BlockUpdateEntry;
+import cn.nukkit.utils.Hash;
 import cn.nukkit.utils.Zlib;
 import org.jetbrains.annotations.NotNull;
 
@@ -38,6 +39,18 @@ public class LevelDBChunk extends BaseChunk {
     protected boolean subChunksDirty;
     protected boolean heightmapOrBiomesDirty;
 
+    /**
+     * Hashes of the block entity and entity data stored in the database, used to skip writing them again when they
+     * are unchanged. 0 when the stored data is unknown.
+     */
+    protected long blockEntitiesHash;
+    protected long entitiesHash;
+
+    /**
+     * Hash of empty block entity or entity data, which is stored by deleting the key
+     */
+    public static final long NO_DATA_HASH = Hash.xxHash64(new byte[0]);
+
     private final Lock writeLock = new ReentrantLock();
 
     private final DimensionData dimensionData;
@@ -411,6 +424,10 @@ public class LevelDBChunk extends BaseChunk {
         }*/
     }
 
+    public void onSubChunkBlocksChanged(LevelDBChunkSection subChunk) {
+        this.subChunksDirty = true;
+    }
+
     public boolean isSubChunksDirty() {
         return this.subChunksDirty;
     }
@@ -425,6 +442,17 @@ public class LevelDBChunk extends BaseChunk {
         }
     }
 
+    /**
+     * Clear the sub chunk dirty flag before the sub chunks are saved
+     *
+     * @return whether a sub chunk was changed since the chunk was last saved
+     */
+    public boolean takeSubChunksDirty() {
+        boolean dirty = this.subChunksDirty;
+        this.subChunksDirty = false;
+        return dirty;
+    }
+
     public boolean isHeightmapOrBiomesDirty() {
         return this.heightmapOrBiomesDirty;
     }
@@ -433,6 +461,43 @@ public class LevelDBChunk extends BaseChunk {
         this.heightmapOrBiomesDirty = true;
     }
 
+    /**
+     * Clear the heightmap and biome dirty flag before they are saved
+     *
+     * @return whether the heightmap or biomes were changed since the chunk was last saved
+     */
+    public boolean takeHeightmapOrBiomesDirty() {
+        boolean dirty = this.heightmapOrBiomesDirty;
+        this.heightmapOrBiomesDirty = false;
+        return dirty;
+    }
+
+    public long getBlockEntitiesHash() {
+        return this.blockEntitiesHash;
+    }
+
+    public void setBlockEntitiesHash(long blockEntitiesHash) {
+        this.blockEntitiesHash = blockEntitiesHash;
+    }
+
+    public long getEntitiesHash() {
+        return this.entitiesHash;
+    }
+
+    public void setEntitiesHash(long entitiesHash) {
+        this.entitiesHash = entitiesHash;
+    }
+
+    /**
+     * Write all data of the chunk on the next save, used when a save failed
+     */
+    public void setAllDataDirty() {
+        this.setAllSubChunksDirty();
+        this.setHeightmapOrBiomesDirty();
+        this.blockEntitiesHash = 0;
+        this.entitiesHash = 0;
+    }
+
     @Override
     @Deprecated
     public byte[] toFastBinary() {
@@ -7,6 +7,7 @@ import cn.nukkit.block.custom.container.BlockStorageContainer;
 import cn.nukkit.level.format.ChunkSection;
 import cn.nukkit.level.format.generic.EmptyChunkSection;
 import cn.nukkit.level.format.leveldb.BlockStateMapping;
+import cn.nukkit.level.util.SubChunkNetworkCache;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.network.protocol.ProtocolInfo;
 import cn.nukkit.utils.Binary;
@@ -23,7 +24,7 @@ import java.util.Arrays;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 import static cn.nukkit.level.format.generic.EmptyChunkSection.EMPTY_DATA_ARRAY;
 import static cn.nukkit.level.format.generic.EmptyChunkSection.EMPTY_ID_ARRAY;
@@ -46,7 +47,18 @@ public class LevelDBChunkSection implements ChunkSection {
 
     protected boolean dirty;
 
-    protected ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Incremented whenever the network representation of the section changes
+     */
+    protected long modCount;
+    private SubChunkNetworkCache networkCache = new SubChunkNetworkCache();
+
+    /**
+     * Block reads are optimistic and only take the read lock when they overlap a write. The lock is not reentrant,
+     * methods holding it must only call the unsafe variants of other methods.
+     */
+    private final StampedLock stampedLock = new StampedLock();
+    protected ReadWriteLock lock = stampedLock.asReadWriteLock();
     protected Lock readLock = lock.readLock();
     protected Lock writeLock = lock.writeLock();
     private final ReentrantLock skyLightLock = new ReentrantLock();
@@ -130,17 +142,7 @@ public class LevelDBChunkSection implements ChunkSection {
 
     @Override
     public int getBlockId(int x, int y, int z, int layer) {
-        try {
-            this.readLock.lock();
-
-            if (!this.hasLayerUnsafe(layer)) {
-                return BlockID.AIR;
-            }
-
-            return (this.storages[layer].getBlockState(x, y, z)).getLegacyId();
-        } finally {
-            this.readLock.unlock();
-        }
+        return this.readBlock(BLOCK_ID_READER, x, y, z, layer);
     }
 
     @Override
@@ -172,6 +174,7 @@ public class LevelDBChunkSection implements ChunkSection {
             storage.set(x, y, z, fullId);
 
             dirty = true;
+            modCount++;
             parent.get().onSubChunkBlockChanged(this, x, y, z, layer, previous, fullId);
         } finally {
             this.writeLock.unlock();
@@ -190,17 +193,7 @@ public class LevelDBChunkSection implements ChunkSection {
 
     @Override
     public int getBlockData(int x, int y, int z, int layer) {
-        try {
-            this.readLock.lock();
-
-            if (!this.hasLayerUnsafe(layer)) {
-                return 0;
-            }
-
-            return (this.storages[layer].getBlockState(x, y, z)).getLegacyData();
-        } finally {
-            this.readLock.unlock();
-        }
+        return this.readBlock(BLOCK_DATA_READER, x, y, z, layer);
     }
 
     @Override
@@ -228,6 +221,7 @@ public class LevelDBChunkSection implements ChunkSection {
             storage.set(x, y, z, fullId);
 
             dirty = true;
+            modCount++;
             parent.get().onSubChunkBlockChanged(this, x, y, z, layer, previous, fullId);
         } finally {
             this.writeLock.unlock();
@@ -241,16 +235,31 @@ public class LevelDBChunkSection implements ChunkSection {
 
     @Override
     public int getFullBlock(int x, int y, int z, int layer) {
-        try {
-            this.readLock.lock();
-
-            if (!this.hasLayerUnsafe(layer)) {
-                return BlockID.AIR;
+        return this.readBlock(FULL_BLOCK_READER, x, y, z, layer);
+    }
+
+    /**
+     * Read a block without locking and validate that no write happened meanwhile. Falls back to the read lock if
+     * the section was written, or if the read failed because it saw the section in the middle of a write.
+     */
+    private int readBlock(BlockReader reader, int x, int y, int z, int layer) {
+        long stamp = this.stampedLock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                int value = reader.read(this, x, y, z, layer);
+                if (this.stampedLock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException ignored) {
+                // Retried under the read lock, invalid coordinates fail again there
             }
+        }
 
-            return this.storages[layer].get(x, y, z);
+        stamp = this.stampedLock.readLock();
+        try {
+            return reader.read(this, x, y, z, layer);
         } finally {
-            this.readLock.unlock();
+            this.stampedLock.unlockRead(stamp);
         }
     }
 
@@ -336,6 +345,7 @@ public class LevelDBChunkSection implements ChunkSection {
             }
 
             dirty = true;
+            modCount++;
             parent.get().onSubChunkBlockChanged(this, x, y, z, layer, previous, fullId);
         } finally {
             this.writeLock.unlock();
@@ -376,6 +386,7 @@ public class LevelDBChunkSection implements ChunkSection {
             storage.set(x, y, z, fullId);
 
             dirty = true;
+            modCount++;
             parent.get().onSubChunkBlockChanged(this, x, y, z, layer, previous, fullId);
             return true;
         } finally {
@@ -387,6 +398,48 @@ public class LevelDBChunkSection implements ChunkSection {
         return setFullBlockId( x, y, z, layer, (blockId << Block.DATA_BITS) | (meta & Block.DATA_MASK));
     }
 
+    /**
+     * Set a range of blocks of a layer to one state, see {@link StateBlockStorage#setRange(int, int, BlockStateSnapshot)}.
+     * Filling the whole section resets the palette of the layer.
+     *
+     * @param layer     layer
+     * @param fromIndex first block index, inclusive
+     * @param toIndex   last block index, exclusive
+     * @param state     state
+     */
+    public void setBlockStateRange(int layer, int fromIndex, int toIndex, BlockStateSnapshot state) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+
+        try {
+            this.writeLock.lock();
+
+            if (!this.hasLayerUnsafe(layer)) {
+                if (state == BlockStateMapping.get().getState(0, 0)) {
+                    return;
+                }
+                this.createLayerUnsafe(layer);
+            }
+
+            StateBlockStorage storage = this.storages[layer];
+            if (fromIndex == 0 && toIndex == StateBlockStorage.SECTION_SIZE) {
+                storage.fill(state);
+            } else {
+                storage.setRange(fromIndex, toIndex, state);
+            }
+
+            dirty = true;
+            modCount++;
+            LevelDBChunk parent = this.parent.get();
+            if (parent != null) {
+                parent.onSubChunkBlocksChanged(this);
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
     @Override
     public int getBlockSkyLight(int x, int y, int z) {
         if (this.skyLight == null) {
@@ -573,31 +626,29 @@ public class LevelDBChunkSection implements ChunkSection {
         try {
             this.readLock.lock();
 
-            for (StateBlockStorage storage : this.storages) {
-                if (storage == null) {
-                    continue;
-                }
+            return this.isEmptyUnsafe();
+        } finally {
+            this.readLock.unlock();
+        }
+    }
 
-                if (!storage.isEmpty()) {
-                    return false;
-                }
+    protected boolean isEmptyUnsafe() {
+        for (StateBlockStorage storage : this.storages) {
+            if (storage == null) {
+                continue;
             }
 
-            return true;
-        } finally {
-            this.readLock.unlock();
+            if (!storage.isEmpty()) {
+                return false;
+            }
         }
+
+        return true;
     }
 
     @Override
     public boolean hasLayer(int layer) {
-        try {
-            this.readLock.lock();
-
-            return this.hasLayerUnsafe(layer);
-        } finally {
-            this.readLock.unlock();
-        }
+        return this.readBlock(HAS_LAYER_READER, 0, 0, 0, layer) != 0;
     }
 
     @Override
@@ -670,6 +721,8 @@ public class LevelDBChunkSection implements ChunkSection {
     }
 
     protected void createLayerUnsafe(int layer) {
+        this.modCount++;
+
         StateBlockStorage[] storages;
         if (this.storages.length <= layer) {
             storages = Arrays.copyOf(this.storages, layer + 1);
@@ -691,14 +744,22 @@ public class LevelDBChunkSection implements ChunkSection {
         try {
             this.readLock.lock();
 
-            int layers = this.hasLayer(1) ? 2 : 1;
+            byte[] encoded = this.networkCache.get(this.modCount, gameVersion, antiXray);
+            if (encoded == null) {
+                int layers = this.hasLayerUnsafe(1) ? 2 : 1;
+
+                BinaryStream sectionStream = new BinaryStream(1024);
+                sectionStream.putByte((byte) 8);
+                sectionStream.putByte((byte) layers);
 
-            stream.putByte((byte) 8);
-            stream.putByte((byte) layers);
+                for (int i = 0; i < layers; i++) {
+                    this.storages[i].writeTo(gameVersion, sectionStream, antiXray);
+                }
 
-            for (int i = 0; i < layers; i++) {
-                this.storages[i].writeTo(gameVersion, stream, antiXray);
+                encoded = sectionStream.getBuffer();
+                this.networkCache.put(this.modCount, gameVersion, antiXray, encoded);
             }
+            stream.put(encoded);
         } finally {
             this.readLock.unlock();
         }
@@ -713,22 +774,26 @@ public class LevelDBChunkSection implements ChunkSection {
         try {
             this.writeLock.lock();
 
-            if (this.isEmpty()) {
+            if (this.isEmptyUnsafe()) {
                 return false;
             }
 
             boolean dirty = false;
+            // Light is not saved, only changes to the storages need the section to be saved again
+            boolean storagesChanged = false;
             boolean checkRemove = true;
             for (int i = this.storages.length - 1; i >= 0; i--) {
                 StateBlockStorage storage = this.storages[i];
                 if (storage == null) {
                     continue;
                 }
-                dirty |= storage.compress();
+                storagesChanged |= storage.compress();
 
                 if (checkRemove) {
                     if (storage.isEmpty() && i > 0) {
                         this.storages = Arrays.copyOfRange(this.storages, 0, i);
+                        this.modCount++;
+                        storagesChanged = true;
                     } else {
                         checkRemove = false;
                     }
@@ -770,9 +835,9 @@ public class LevelDBChunkSection implements ChunkSection {
                 }
             }
 
-            this.dirty |= dirty;
+            this.dirty |= storagesChanged;
 
-            return dirty;
+            return dirty || storagesChanged;
         } finally {
             this.writeLock.unlock();
         }
@@ -792,7 +857,11 @@ public class LevelDBChunkSection implements ChunkSection {
                 }
                 storages[i] = storage.copy();
             }
-            return new LevelDBChunkSection(null, this.y, storages, this.blockLight, this.skyLight, this.compressedLight, this.hasBlockLight, this.hasSkyLight);
+            LevelDBChunkSection section = new LevelDBChunkSection(null, this.y, storages, this.blockLight, this.skyLight, this.compressedLight, this.hasBlockLight, this.hasSkyLight);
+            // Copies are made for chunk sending, let them fill the cache of this section
+            section.modCount = this.modCount;
+            section.networkCache = this.networkCache;
+            return section;
         } finally {
             this.readLock.unlock();
         }
@@ -807,4 +876,34 @@ public class LevelDBChunkSection implements ChunkSection {
     public void setDirty() {
         this.dirty = true;
     }
+
+    /**
+     * Clear the dirty flag before the section is saved. Changes made after this call mark the section dirty again,
+     * so they are written by the next save.
+     *
+     * @return whether the section was changed since it was last saved
+     */
+    public boolean takeDirty() {
+        try {
+            this.writeLock.lock();
+            boolean dirty = this.dirty;
+            this.dirty = false;
+            return dirty;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    private static final BlockReader HAS_LAYER_READER = (section, x, y, z, layer) -> section.hasLayerUnsafe(layer) ? 1 : 0;
+    private static final BlockReader BLOCK_ID_READER = (section, x, y, z, layer) ->
+            section.hasLayerUnsafe(layer) ? section.storages[layer].getBlockState(x, y, z).getLegacyId() : BlockID.AIR;
+    private static final BlockReader BLOCK_DATA_READER = (section, x, y, z, layer) ->
+            section.hasLayerUnsafe(layer) ? section.storages[layer].getBlockState(x, y, z).getLegacyData() : 0;
+    private static final BlockReader FULL_BLOCK_READER = (section, x, y, z, layer) ->
+            section.hasLayerUnsafe(layer) ? section.storages[layer].get(x, y, z) : BlockID.AIR;
+
+    @FunctionalInterface
+    private interface BlockReader {
+        int read(LevelDBChunkSection section, int x, int y, int z, int layer);
+    }
 }
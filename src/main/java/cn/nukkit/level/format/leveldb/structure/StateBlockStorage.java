@@ -12,13 +12,17 @@ import cn.nukkit.level.format.anvil.util.NibbleArray;
 import cn.nukkit.level.format.leveldb.BlockStateMapping;
 import cn.nukkit.level.util.BitArray;
 import cn.nukkit.level.util.BitArrayVersion;
-import cn.nukkit.level.util.PalettedBlockStorage;
 import cn.nukkit.math.BlockVector3;
+import cn.nukkit.network.protocol.ProtocolInfo;
 import cn.nukkit.utils.BinaryStream;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import lombok.extern.log4j.Log4j2;
 import org.cloudburstmc.nbt.NBTInputStream;
 import org.cloudburstmc.nbt.NBTOutputStream;
@@ -28,16 +32,27 @@ import org.cloudburstmc.nbt.NbtUtils;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 import static cn.nukkit.level.format.leveldb.LevelDBConstants.SUB_CHUNK_SIZE;
 
 @Log4j2
 public class StateBlockStorage {
 
-    private static final int SECTION_SIZE = 16 * 16 * 16;
+    public static final int SECTION_SIZE = 16 * 16 * 16;
 
     private List<BlockStateSnapshot> palette;
     private BitArray bitArray;
+    /**
+     * Palette index by state, built on first use. States are shared instances, so they are compared by identity.
+     */
+    private Reference2IntOpenHashMap<BlockStateSnapshot> paletteIndex;
+
+    /**
+     * Last state looked up by legacy full ID, blocks are often set to the same state many times in a row
+     */
+    private int lastFullId = -1;
+    private BlockStateSnapshot lastState;
 
     //用于兼容1.13以下版本
     private byte[] blockIds;
@@ -68,7 +83,30 @@ public class StateBlockStorage {
     }
 
     public void writeToStorage(ByteBuf byteBuf) {
-        int paletteSize = this.palette.size();
+        List<BlockStateSnapshot> palette = this.palette;
+        BitArray bitArray = this.bitArray;
+
+        int[] remap = this.getUsedPaletteRemap();
+        if (remap != null) {
+            // States that are no longer used are not saved
+            palette = new ObjectArrayList<>(this.palette.size());
+            for (int i = 0; i < remap.length; i++) {
+                if (remap[i] != -1) {
+                    palette.add(this.palette.get(i));
+                }
+            }
+
+            BitArrayVersion version = BitArrayVersion.V1;
+            while (version.getMaxEntryValue() < palette.size() - 1) {
+                version = version.next();
+            }
+            bitArray = version.createPalette(SECTION_SIZE);
+            for (int i = 0; i < SECTION_SIZE; i++) {
+                bitArray.set(i, remap[this.bitArray.get(i)]);
+            }
+        }
+
+        int paletteSize = palette.size();
         BitArrayVersion version = paletteSize <= 1 ? BitArrayVersion.V0 : bitArray.getVersion();
         byteBuf.writeByte(getPaletteHeader(version, false));
 
@@ -84,7 +122,7 @@ public class StateBlockStorage {
         try {
             outputStream = NbtUtils.createWriterLE(new ByteBufOutputStream(byteBuf));
 
-            for (BlockStateSnapshot state : this.palette) {
+            for (BlockStateSnapshot state : palette) {
                 outputStream.writeTag(state.getVanillaState());
             }
         } catch (Exception e) {
@@ -108,6 +146,7 @@ public class StateBlockStorage {
         }
 
         this.palette.clear();
+        this.paletteIndex = null;
 
         BitArrayVersion version = BitArrayVersion.get(header >> 1, true);
 
@@ -213,11 +252,59 @@ public class StateBlockStorage {
     }
 
     public void set(int x, int y, int z, int value) {
-        this.set(elementIndex(x, y, z), BlockStateMapping.get().getBlockStateFromFullId(value));
+        this.set(elementIndex(x, y, z), this.getStateFromFullId(value));
     }
 
     public void set(BlockVector3 pos, int value) {
-        this.set(elementIndex(pos.x, pos.y, pos.z), BlockStateMapping.get().getBlockStateFromFullId(value));
+        this.set(elementIndex(pos.x, pos.y, pos.z), this.getStateFromFullId(value));
+    }
+
+    /**
+     * Set a range of blocks to one state. Blocks are indexed by {@link #elementIndex(int, int, int)}, so a range
+     * aligned to 16 covers whole columns.
+     *
+     * @param fromIndex first index, inclusive
+     * @param toIndex   last index, exclusive
+     * @param value     state
+     */
+    public void setRange(int fromIndex, int toIndex, BlockStateSnapshot value) {
+        Objects.checkFromToIndex(fromIndex, toIndex, SECTION_SIZE);
+
+        int paletteIndex = this.getOrAdd(value);
+        for (int i = fromIndex; i < toIndex; i++) {
+            this.bitArray.set(i, paletteIndex);
+        }
+        // Computed again when needed
+        this.blockIds = null;
+        this.blockData = null;
+    }
+
+    /**
+     * Set all blocks to one state. The palette is reset, so states used before are dropped.
+     *
+     * @param value state
+     */
+    public void fill(BlockStateSnapshot value) {
+        this.palette = new ObjectArrayList<>(16);
+        this.palette.add(BlockStateMapping.get().getState(0, 0));
+        this.paletteIndex = null;
+        this.bitArray = BitArrayVersion.V1.createPalette(SECTION_SIZE);
+        this.blockIds = null;
+        this.blockData = null;
+
+        if (value != this.palette.get(0)) {
+            this.setRange(0, SECTION_SIZE, value);
+        }
+    }
+
+    private BlockStateSnapshot getStateFromFullId(int fullId) {
+        BlockStateSnapshot state = this.lastState;
+        if (state == null || this.lastFullId != fullId) {
+            state = BlockStateMapping.get().getBlockStateFromFullId(fullId);
+            this.lastFullId = fullId;
+            this.lastState = state;
+        }
+        return state;
     }
 
     @Deprecated
@@ -225,22 +312,73 @@ public class StateBlockStorage {
         this.writeTo(GameVersion.byProtocol(protocol, Server.getInstance().onlyNetEaseMode), stream, antiXray);
     }
 
+    /**
+     * Write the storage in the network format of a game version. Only the palette is translated to runtime IDs,
+     * the stored indices are sent as they are unless several states share a runtime ID.
+     *
+     * @param protocol game version
+     * @param stream   stream to write to
+     * @param antiXray replace ores with stone
+     */
     public void writeTo(GameVersion protocol, BinaryStream stream, boolean antiXray) {
-        PalettedBlockStorage palettedBlockStorage = PalettedBlockStorage.createFromBlockPalette(protocol);
-
-        for (int i = 0; i < SECTION_SIZE; i++) {
-            int fullId = get(i);
-            int id = fullId >> Block.DATA_BITS;
-            int meta = fullId & Block.DATA_MASK;
+        int paletteSize = this.palette.size();
+        IntList runtimeIds = new IntArrayList(paletteSize);
+        Int2IntOpenHashMap indexByRuntimeId = new Int2IntOpenHashMap(paletteSize);
+        indexByRuntimeId.defaultReturnValue(-1);
+        // Palette index -> network palette index, only used when states were merged
+        int[] remap = null;
+
+        for (int i = 0; i < paletteSize; i++) {
+            BlockStateSnapshot state = this.palette.get(i);
+            int id = state.getLegacyId();
+            int meta = state.getLegacyData();
             if (antiXray && id < Block.MAX_BLOCK_ID && Level.xrayableBlocks[id]) {
                 id = Block.STONE;
                 meta = 0;
             }
             int runtimeId = GlobalBlockPalette.getOrCreateRuntimeId(protocol, id, meta);
-            palettedBlockStorage.setBlock(i, runtimeId);
+
+            int index = indexByRuntimeId.putIfAbsent(runtimeId, runtimeIds.size());
+            if (index == -1) {
+                index = runtimeIds.size();
+                runtimeIds.add(runtimeId);
+            } else if (remap == null) {
+                remap = new int[paletteSize];
+                for (int j = 0; j < i; j++) {
+                    remap[j] = j;
+                }
+            }
+
+            if (remap != null) {
+                remap[i] = index;
+            }
         }
 
-        palettedBlockStorage.writeTo(stream);
+        BitArray bitArray = this.bitArray;
+        BitArrayVersion version = bitArray.getVersion();
+        if (version == BitArrayVersion.V0 && protocol.getProtocol() < ProtocolInfo.v1_18_0) {
+            // Single state storages are sent with one bit per block to older clients
+            version = BitArrayVersion.V1;
+            bitArray = version.createPalette(SECTION_SIZE);
+        } else if (remap != null) {
+            BitArray remapped = version.createPalette(SECTION_SIZE);
+            for (int i = 0; i < SECTION_SIZE; i++) {
+                remapped.set(i, remap[bitArray.get(i)]);
+            }
+            bitArray = remapped;
+        }
+
+        stream.putByte((byte) getPaletteHeader(version, true));
+        if (version != BitArrayVersion.V0) {
+            for (int word : bitArray.getWords()) {
+                stream.putLInt(word);
+            }
+            stream.putVarInt(runtimeIds.size());
+        }
+
+        for (int i = 0; i < runtimeIds.size(); i++) {
+            stream.putVarInt(runtimeIds.getInt(i));
+        }
     }
 
     private void grow(BitArrayVersion version) {
@@ -255,7 +393,7 @@ public class StateBlockStorage {
      * @return palette index
      */
     private int getOrAdd(BlockStateSnapshot snapshot) {
-        int index = this.palette.indexOf(snapshot);
+        int index = this.getPaletteIndex().getInt(snapshot);
         if (index != -1) {
             return index;
         }
@@ -263,17 +401,101 @@ public class StateBlockStorage {
         index = this.palette.size();
         BitArrayVersion version = this.bitArray.getVersion();
         if (index > version.getMaxEntryValue()) {
-            BitArrayVersion next = version.next();
-            if (next != null) {
+            // Drop the states that are no longer used before growing the bit array
+            if (this.compactPalette()) {
+                index = this.palette.size();
+            }
+
+            if (index > version.getMaxEntryValue()) {
+                BitArrayVersion next = version.next();
+                if (next == null) {
+                    throw new IndexOutOfBoundsException("too many elements");
+                }
                 this.grow(next);
-            } else if (!this.compress()) {
-                throw new IndexOutOfBoundsException("too many elements");
             }
         }
         this.palette.add(snapshot);
+        this.getPaletteIndex().put(snapshot, index);
         return index;
     }
 
+    private Reference2IntOpenHashMap<BlockStateSnapshot> getPaletteIndex() {
+        Reference2IntOpenHashMap<BlockStateSnapshot> paletteIndex = this.paletteIndex;
+        if (paletteIndex == null) {
+            paletteIndex = new Reference2IntOpenHashMap<>(this.palette.size());
+            paletteIndex.defaultReturnValue(-1);
+            for (int i = this.palette.size() - 1; i >= 0; i--) {
+                // The first index wins like with List#indexOf
+                paletteIndex.put(this.palette.get(i), i);
+            }
+            this.paletteIndex = paletteIndex;
+        }
+        return paletteIndex;
+    }
+
+    /**
+     * Get the palette indices after removing the states that are not used by any block. The first state is kept.
+     *
+     * @return new index by palette index, -1 for unused states, or null if all states are used
+     */
+    private int[] getUsedPaletteRemap() {
+        int size = this.palette.size();
+        if (size <= 1) {
+            return null;
+        }
+
+        boolean[] used = new boolean[size];
+        used[0] = true;
+        int usedCount = 1;
+        for (int i = 0; i < SECTION_SIZE && usedCount < size; i++) {
+            int paletteIndex = this.bitArray.get(i);
+            if (!used[paletteIndex]) {
+                used[paletteIndex] = true;
+                usedCount++;
+            }
+        }
+
+        if (usedCount == size) {
+            return null;
+        }
+
+        int[] remap = new int[size];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            remap[i] = used[i] ? next++ : -1;
+        }
+        return remap;
+    }
+
+    /**
+     * Remove the states that are not used by any block from the palette, keeping the bit array version
+     *
+     * @return whether states were removed
+     */
+    private boolean compactPalette() {
+        int[] remap = this.getUsedPaletteRemap();
+        if (remap == null) {
+            return false;
+        }
+
+        List<BlockStateSnapshot> newPalette = new ObjectArrayList<>(this.palette.size());
+        for (int i = 0; i < remap.length; i++) {
+            if (remap[i] != -1) {
+                newPalette.add(this.palette.get(i));
+            }
+        }
+
+        BitArray newBitArray = this.bitArray.getVersion().createPalette(SECTION_SIZE);
+        for (int i = 0; i < SECTION_SIZE; i++) {
+            newBitArray.set(i, remap[this.bitArray.get(i)]);
+        }
+
+        this.palette = newPalette;
+        this.paletteIndex = null;
+        this.bitArray = newBitArray;
+        return true;
+    }
+
     public boolean isEmpty() {
         if (this.palette.size() == 1) {
             return true;
@@ -334,21 +556,26 @@ public class StateBlockStorage {
 
 //            Arrays.fill(this.bitArray.getWords(), 0);
             this.bitArray = BitArrayVersion.V1.createPalette(SECTION_SIZE);
+            this.paletteIndex = null;
             return true;
         }
 
         BitArrayVersion version = BitArrayVersion.V2;
         BitArray newArray = version.createPalette(SECTION_SIZE);
         List<BlockStateSnapshot> newPalette = new ObjectArrayList<>(count);
+        Reference2IntOpenHashMap<BlockStateSnapshot> newPaletteIndex = new Reference2IntOpenHashMap<>(count);
+        newPaletteIndex.defaultReturnValue(-1);
         newPalette.add(this.palette.get(0));
+        newPaletteIndex.put(this.palette.get(0), 0);
         for (int i = 0; i < SECTION_SIZE; i++) {
             int paletteIndex = this.bitArray.get(i);
             BlockStateSnapshot snapshot = this.palette.get(paletteIndex);
-            int newIndex = newPalette.indexOf(snapshot);
+            int newIndex = newPaletteIndex.getInt(snapshot);
 
             if (newIndex == -1) {
                 newIndex = newPalette.size();
                 newPalette.add(snapshot);
+                newPaletteIndex.put(snapshot, newIndex);
 
                 if (newIndex > version.getMaxEntryValue()) {
                     version = version.next();
@@ -364,6 +591,7 @@ public class StateBlockStorage {
         }
         this.bitArray = newArray;
         this.palette = newPalette;
+        this.paletteIndex = newPaletteIndex;
         return true;
     }
 
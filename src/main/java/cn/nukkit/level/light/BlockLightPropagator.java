@@ -0,0 +1,143 @@
+package cn.nukkit.level.light;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Flood fill of block light from changed blocks. Positions are packed into longs with {@link #key(int, int, int)} and
+ * queued in primitive ring buffers, the light level of removals is kept in the low 4 bits of the key.
+ * <p>
+ * The queues and visited sets are reused between updates, so a propagator must only be used by one thread at a time.
+ */
+public class BlockLightPropagator {
+
+    private static final long LEVEL_MASK = 0xf;
+
+    private final LongArrayFIFOQueue removalQueue = new LongArrayFIFOQueue();
+    private final LongArrayFIFOQueue spreadQueue = new LongArrayFIFOQueue();
+    private final LongOpenHashSet removalVisited = new LongOpenHashSet();
+    private final LongOpenHashSet spreadVisited = new LongOpenHashSet();
+
+    /**
+     * Pack a position. X and Z take 25 bits each and Y 10 bits, which covers coordinates up to 16 million blocks from
+     * the world origin and Y from -512 to 511. The lowest 4 bits are left free for a light level.
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return packed position
+     */
+    public static long key(int x, int y, int z) {
+        return ((long) x << 39) | (((long) z & 0x1ffffff) << 14) | (((long) y & 0x3ff) << 4);
+    }
+
+    public static int keyX(long key) {
+        return (int) (key >> 39);
+    }
+
+    public static int keyY(long key) {
+        return (int) (key << 50 >> 54);
+    }
+
+    public static int keyZ(long key) {
+        return (int) (key << 25 >> 39);
+    }
+
+    /**
+     * Recalculate the block light around changed blocks
+     *
+     * @param storage   blocks and light
+     * @param positions positions of the changed blocks packed with {@link #key(int, int, int)}
+     * @param count     number of positions to use from the array
+     */
+    public void update(LightStorage storage, long[] positions, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                long key = positions[i] & ~LEVEL_MASK;
+                int x = keyX(key);
+                int y = keyY(key);
+                int z = keyZ(key);
+
+                int oldLevel = storage.getBlockLight(x, y, z);
+                int newLevel = storage.getLightEmission(x, y, z);
+                if (oldLevel != newLevel) {
+                    storage.setBlockLight(x, y, z, newLevel & 0x0f);
+                    if (newLevel < oldLevel) {
+                        this.removalVisited.add(key);
+                        this.removalQueue.enqueue(key | oldLevel);
+                    } else {
+                        this.spreadVisited.add(key);
+                        this.spreadQueue.enqueue(key);
+                    }
+                }
+            }
+
+            while (!this.removalQueue.isEmpty()) {
+                long node = this.removalQueue.dequeueLong();
+                int x = keyX(node);
+                int y = keyY(node);
+                int z = keyZ(node);
+                int lightLevel = (int) (node & LEVEL_MASK);
+
+                this.computeRemove(storage, x - 1, y, z, lightLevel);
+                this.computeRemove(storage, x + 1, y, z, lightLevel);
+                this.computeRemove(storage, x, y - 1, z, lightLevel);
+                this.computeRemove(storage, x, y + 1, z, lightLevel);
+                this.computeRemove(storage, x, y, z - 1, lightLevel);
+                this.computeRemove(storage, x, y, z + 1, lightLevel);
+            }
+
+            while (!this.spreadQueue.isEmpty()) {
+                long node = this.spreadQueue.dequeueLong();
+                int x = keyX(node);
+                int y = keyY(node);
+                int z = keyZ(node);
+
+                int lightLevel = storage.getBlockLight(x, y, z) - storage.getLightFilter(x, y, z);
+                if (lightLevel >= 1) {
+                    this.computeSpread(storage, x - 1, y, z, lightLevel);
+                    this.computeSpread(storage, x + 1, y, z, lightLevel);
+                    this.computeSpread(storage, x, y - 1, z, lightLevel);
+                    this.computeSpread(storage, x, y + 1, z, lightLevel);
+                    this.computeSpread(storage, x, y, z - 1, lightLevel);
+                    this.computeSpread(storage, x, y, z + 1, lightLevel);
+                }
+            }
+        } finally {
+            this.removalQueue.clear();
+            this.spreadQueue.clear();
+            this.removalVisited.clear();
+            this.spreadVisited.clear();
+        }
+    }
+
+    private void computeRemove(LightStorage storage, int x, int y, int z, int currentLight) {
+        int current = storage.getBlockLight(x, y, z);
+        if (current != 0 && current < currentLight) {
+            storage.setBlockLight(x, y, z, 0);
+            if (current > 1) {
+                long key = key(x, y, z);
+                if (this.removalVisited.add(key)) {
+                    this.removalQueue.enqueue(key | current);
+                }
+            }
+        } else if (current >= currentLight) {
+            long key = key(x, y, z);
+            if (this.spreadVisited.add(key)) {
+                this.spreadQueue.enqueue(key);
+            }
+        }
+    }
+
+    private void computeSpread(LightStorage storage, int x, int y, int z, int currentLight) {
+        int current = storage.getBlockLight(x, y, z);
+        if (current < currentLight - 1) {
+            storage.setBlockLight(x, y, z, currentLight);
+
+            long key = key(x, y, z);
+            if (this.spreadVisited.add(key) && currentLight > 1) {
+                this.spreadQueue.enqueue(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package cn.nukkit.level.light;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.Chunk;
+import cn.nukkit.level.format.ChunkSection;
+import cn.nukkit.level.format.FullChunk;
+
+/**
+ * Light storage backed by the loaded chunks of a level. The last used chunk and section are cached, as light
+ * propagation mostly moves between neighbouring blocks. Unloaded chunks are never loaded and read as air without light.
+ * <p>
+ * Not thread safe, every thread needs its own instance.
+ */
+public class LevelLightStorage implements LightStorage {
+
+    private final Level level;
+    private final int minY;
+    private final int maxY;
+
+    private FullChunk chunk;
+    private int chunkX;
+    private int chunkZ;
+    private boolean chunkCached;
+
+    private ChunkSection section;
+    private int sectionY;
+
+    public LevelLightStorage(Level level) {
+        this.level = level;
+        this.minY = level.getMinBlockY();
+        this.maxY = level.getMaxBlockY();
+    }
+
+    @Override
+    public int getMinY() {
+        return this.minY;
+    }
+
+    @Override
+    public int getMaxY() {
+        return this.maxY;
+    }
+
+    @Override
+    public int getLightEmission(int x, int y, int z) {
+        return Block.getBlockLight(this.getBlockId(x, y, z));
+    }
+
+    @Override
+    public int getLightFilter(int x, int y, int z) {
+        int id = this.getBlockId(x, y, z);
+        return id >= Block.MAX_BLOCK_ID ? 15 : Block.lightFilter[id];
+    }
+
+    @Override
+    public boolean blocksSkyLight(int x, int y, int z) {
+        int id = this.getBlockId(x, y, z);
+        return id >= Block.MAX_BLOCK_ID || Block.lightFilter[id] > 1 || Block.diffusesSkyLight[id];
+    }
+
+    @Override
+    public boolean isSectionEmpty(int x, int y, int z) {
+        if (y < this.minY || y > this.maxY) {
+            return true;
+        }
+        ChunkSection section = this.section(x, y, z);
+        return section != null ? section.isEmpty() : this.chunk(x >> 4, z >> 4) == null;
+    }
+
+    @Override
+    public boolean canStoreLight(int x, int y, int z) {
+        return y >= this.minY && y <= this.maxY && this.chunk(x >> 4, z >> 4) != null;
+    }
+
+    @Override
+    public int getBlockLight(int x, int y, int z) {
+        if (y < this.minY || y > this.maxY) {
+            return 0;
+        }
+        ChunkSection section = this.section(x, y, z);
+        if (section != null) {
+            return section.getBlockLight(x & 0x0f, y & 0x0f, z & 0x0f);
+        }
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        return chunk == null ? 0 : chunk.getBlockLight(x & 0x0f, y, z & 0x0f);
+    }
+
+    @Override
+    public void setBlockLight(int x, int y, int z, int level) {
+        if (y < this.minY || y > this.maxY) {
+            return;
+        }
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        if (chunk != null) {
+            ChunkSection section = this.section(x, y, z);
+            chunk.setBlockLight(x & 0x0f, y, z & 0x0f, level & 0x0f);
+            if (section != null && section.isEmpty()) {
+                // The chunk may have replaced the empty section
+                this.section = null;
+            }
+        }
+    }
+
+    @Override
+    public int getBlockSkyLight(int x, int y, int z) {
+        if (y < this.minY || y > this.maxY) {
+            return 0;
+        }
+        // Through the chunk, LevelDB chunks derive the sky light of sections without stored light
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        return chunk == null ? 0 : chunk.getBlockSkyLight(x & 0x0f, y, z & 0x0f);
+    }
+
+    @Override
+    public void setBlockSkyLight(int x, int y, int z, int level) {
+        if (y < this.minY || y > this.maxY) {
+            return;
+        }
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        if (chunk != null) {
+            ChunkSection section = this.section(x, y, z);
+            chunk.setBlockSkyLight(x & 0x0f, y, z & 0x0f, level & 0x0f);
+            if (section != null && section.isEmpty()) {
+                this.section = null;
+            }
+        }
+    }
+
+    private int getBlockId(int x, int y, int z) {
+        if (y < this.minY || y > this.maxY) {
+            return Block.AIR;
+        }
+        ChunkSection section = this.section(x, y, z);
+        if (section != null) {
+            return section.getBlockId(x & 0x0f, y & 0x0f, z & 0x0f);
+        }
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        return chunk == null ? Block.AIR : chunk.getBlockId(x & 0x0f, y, z & 0x0f);
+    }
+
+    private FullChunk chunk(int chunkX, int chunkZ) {
+        if (!this.chunkCached || this.chunkX != chunkX || this.chunkZ != chunkZ) {
+            this.chunk = this.level.getChunkIfLoaded(chunkX, chunkZ);
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.chunkCached = true;
+            this.section = null;
+        }
+        return this.chunk;
+    }
+
+    /**
+     * @return section of the position or null if the chunk is not loaded or doesn't have sections
+     */
+    private ChunkSection section(int x, int y, int z) {
+        FullChunk chunk = this.chunk(x >> 4, z >> 4);
+        if (!(chunk instanceof Chunk)) {
+            return null;
+        }
+        int sectionY = y >> 4;
+        if (this.section == null || this.sectionY != sectionY) {
+            this.section = ((Chunk) chunk).getSection(sectionY);
+            this.sectionY = sectionY;
+        }
+        return this.section;
+    }
+}
@@ -0,0 +1,100 @@
+package cn.nukkit.level.light;
+
+import it.unimi.dsi.fastutil.longs.Long2ByteMap;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+
+/**
+ * Light storage that records the light changes instead of writing them, so light can be calculated off the main thread
+ * and the result applied to the level later. Blocks and unchanged light are read from the underlying storage.
+ */
+public class LightChanges implements LightStorage {
+
+    private final LightStorage storage;
+    private final Long2ByteOpenHashMap blockLight = new Long2ByteOpenHashMap();
+    private final Long2ByteOpenHashMap skyLight = new Long2ByteOpenHashMap();
+
+    public LightChanges(LightStorage storage) {
+        this.storage = storage;
+        this.blockLight.defaultReturnValue((byte) -1);
+        this.skyLight.defaultReturnValue((byte) -1);
+    }
+
+    @Override
+    public int getMinY() {
+        return this.storage.getMinY();
+    }
+
+    @Override
+    public int getMaxY() {
+        return this.storage.getMaxY();
+    }
+
+    @Override
+    public int getLightEmission(int x, int y, int z) {
+        return this.storage.getLightEmission(x, y, z);
+    }
+
+    @Override
+    public int getLightFilter(int x, int y, int z) {
+        return this.storage.getLightFilter(x, y, z);
+    }
+
+    @Override
+    public boolean blocksSkyLight(int x, int y, int z) {
+        return this.storage.blocksSkyLight(x, y, z);
+    }
+
+    @Override
+    public boolean isSectionEmpty(int x, int y, int z) {
+        return this.storage.isSectionEmpty(x, y, z);
+    }
+
+    @Override
+    public boolean canStoreLight(int x, int y, int z) {
+        return this.storage.canStoreLight(x, y, z);
+    }
+
+    @Override
+    public int getBlockLight(int x, int y, int z) {
+        byte level = this.blockLight.get(BlockLightPropagator.key(x, y, z));
+        return level == -1 ? this.storage.getBlockLight(x, y, z) : level;
+    }
+
+    @Override
+    public void setBlockLight(int x, int y, int z, int level) {
+        if (!this.storage.canStoreLight(x, y, z)) {
+            return;
+        }
+        this.blockLight.put(BlockLightPropagator.key(x, y, z), (byte) (level & 0x0f));
+    }
+
+    @Override
+    public int getBlockSkyLight(int x, int y, int z) {
+        byte level = this.skyLight.get(BlockLightPropagator.key(x, y, z));
+        return level == -1 ? this.storage.getBlockSkyLight(x, y, z) : level;
+    }
+
+    @Override
+    public void setBlockSkyLight(int x, int y, int z, int level) {
+        if (!this.storage.canStoreLight(x, y, z)) {
+            return;
+        }
+        this.skyLight.put(BlockLightPropagator.key(x, y, z), (byte) (level & 0x0f));
+    }
+
+    /**
+     * Write the recorded changes
+     *
+     * @param target storage to write to
+     */
+    public void apply(LightStorage target) {
+        for (Long2ByteMap.Entry entry : this.blockLight.long2ByteEntrySet()) {
+            long key = entry.getLongKey();
+            target.setBlockLight(BlockLightPropagator.keyX(key), BlockLightPropagator.keyY(key), BlockLightPropagator.keyZ(key), entry.getByteValue());
+        }
+        for (Long2ByteMap.Entry entry : this.skyLight.long2ByteEntrySet()) {
+            long key = entry.getLongKey();
+            target.setBlockSkyLight(BlockLightPropagator.keyX(key), BlockLightPropagator.keyY(key), BlockLightPropagator.keyZ(key), entry.getByteValue());
+        }
+    }
+}
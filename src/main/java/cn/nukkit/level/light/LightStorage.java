@@ -0,0 +1,110 @@
+package cn.nukkit.level.light;
+
+/**
+ * Blocks and light values the light propagation works on
+ */
+public interface LightStorage {
+
+    /**
+     * @return lowest Y of the world
+     */
+    int getMinY();
+
+    /**
+     * @return highest Y of the world
+     */
+    int getMaxY();
+
+    /**
+     * Get the light emitted by the block at a position
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return light level 0-15
+     */
+    int getLightEmission(int x, int y, int z);
+
+    /**
+     * Get how much light the block at a position takes away from light passing through it
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return light filter 0-15
+     */
+    int getLightFilter(int x, int y, int z);
+
+    /**
+     * Check whether the block at a position stops direct sky light, which is the case for blocks that filter light or
+     * diffuse sky light
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return whether the block stops direct sky light
+     */
+    boolean blocksSkyLight(int x, int y, int z);
+
+    /**
+     * Check whether the section of a position contains only air, so a column scan can skip it
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return whether the section is empty
+     */
+    default boolean isSectionEmpty(int x, int y, int z) {
+        return false;
+    }
+
+    /**
+     * Check whether light can be stored at a position
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return false outside the world and in unloaded chunks
+     */
+    boolean canStoreLight(int x, int y, int z);
+
+    /**
+     * Get the block light at a position, 0 outside the world and in unloaded chunks
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return light level 0-15
+     */
+    int getBlockLight(int x, int y, int z);
+
+    /**
+     * Set the block light at a position, ignored outside the world and in unloaded chunks
+     *
+     * @param x     block X
+     * @param y     block Y
+     * @param z     block Z
+     * @param level light level 0-15
+     */
+    void setBlockLight(int x, int y, int z, int level);
+
+    /**
+     * Get the sky light at a position, 0 outside the world and in unloaded chunks
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     * @return light level 0-15
+     */
+    int getBlockSkyLight(int x, int y, int z);
+
+    /**
+     * Set the sky light at a position, ignored outside the world and in unloaded chunks
+     *
+     * @param x     block X
+     * @param y     block Y
+     * @param z     block Z
+     * @param level light level 0-15
+     */
+    void setBlockSkyLight(int x, int y, int z, int level);
+}
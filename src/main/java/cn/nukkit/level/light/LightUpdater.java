@@ -0,0 +1,148 @@
+package cn.nukkit.level.light;
+
+import cn.nukkit.Server;
+import cn.nukkit.level.Level;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the block light and sky light updates of a level and processes them once per tick as one batch.
+ * <p>
+ * With asynchronous updates the batch is calculated on the compute thread pool while the level ticks, and the light
+ * changes are written to the chunks by {@link #mergeResults()} on the level thread. Only one batch runs at a time,
+ * updates queued meanwhile go into the next batch.
+ */
+@Log4j2
+public class LightUpdater {
+
+    private final Level level;
+    private final BlockLightPropagator blockLightPropagator = new BlockLightPropagator();
+    private final SkyLightPropagator skyLightPropagator = new SkyLightPropagator();
+
+    private LongOpenHashSet queuedBlockLight = new LongOpenHashSet();
+    private LongOpenHashSet queuedSkyLight = new LongOpenHashSet();
+    private CompletableFuture<LightChanges> running;
+
+    public LightUpdater(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Queue a block light update for the next batch
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     */
+    public synchronized void queueBlockLight(int x, int y, int z) {
+        this.queuedBlockLight.add(BlockLightPropagator.key(x, y, z));
+    }
+
+    /**
+     * Queue a sky light update for the next batch
+     *
+     * @param x block X
+     * @param y block Y
+     * @param z block Z
+     */
+    public synchronized void queueSkyLight(int x, int y, int z) {
+        this.queuedSkyLight.add(BlockLightPropagator.key(x, y, z));
+    }
+
+    /**
+     * @return whether updates are queued or being calculated
+     */
+    public synchronized boolean hasPendingUpdates() {
+        return !this.queuedBlockLight.isEmpty() || !this.queuedSkyLight.isEmpty() || this.running != null;
+    }
+
+    /**
+     * Start processing the queued updates, unless the previous batch is still running
+     *
+     * @param async calculate the light off the current thread
+     */
+    public void startBatch(boolean async) {
+        if (this.running != null) {
+            return;
+        }
+
+        long[] blockLight;
+        long[] skyLight;
+        synchronized (this) {
+            if (this.queuedBlockLight.isEmpty() && this.queuedSkyLight.isEmpty()) {
+                return;
+            }
+            blockLight = sortedPositions(this.queuedBlockLight);
+            skyLight = sortedPositions(this.queuedSkyLight);
+            this.queuedBlockLight = new LongOpenHashSet();
+            this.queuedSkyLight = new LongOpenHashSet();
+        }
+
+        if (!async) {
+            this.update(new LevelLightStorage(this.level), blockLight, skyLight);
+            return;
+        }
+
+        this.running = CompletableFuture.supplyAsync(() -> {
+            LightChanges changes = new LightChanges(new LevelLightStorage(this.level));
+            this.update(changes, blockLight, skyLight);
+            return changes;
+        }, Server.getInstance().computeThreadPool);
+    }
+
+    /**
+     * Write the light changes of the running batch to the level if it is done
+     */
+    public void mergeResults() {
+        CompletableFuture<LightChanges> running = this.running;
+        if (running == null || !running.isDone()) {
+            return;
+        }
+        this.running = null;
+
+        try {
+            running.join().apply(new LevelLightStorage(this.level));
+        } catch (Exception e) {
+            log.error("Failed to update light in level {}", this.level.getName(), e);
+        }
+    }
+
+    /**
+     * Process all queued updates on the current thread, waiting for the running batch first
+     */
+    public void updateNow() {
+        CompletableFuture<LightChanges> running = this.running;
+        if (running != null) {
+            try {
+                running.join();
+            } catch (Exception ignored) {
+            }
+            this.mergeResults();
+        }
+        this.startBatch(false);
+    }
+
+    private void update(LightStorage storage, long[] blockLight, long[] skyLight) {
+        if (blockLight.length > 0) {
+            this.blockLightPropagator.update(storage, blockLight, blockLight.length);
+        }
+        if (skyLight.length > 0) {
+            this.skyLightPropagator.update(storage, skyLight, skyLight.length);
+        }
+    }
+
+    /**
+     * Sorted by chunk, so the storage mostly finds the chunk it used last
+     */
+    private static long[] sortedPositions(LongOpenHashSet queued) {
+        long[] positions = queued.toLongArray();
+        LongArrays.quickSort(positions, (a, b) -> {
+            int compare = Integer.compare(BlockLightPropagator.keyX(a) >> 4, BlockLightPropagator.keyX(b) >> 4);
+            return compare != 0 ? compare : Integer.compare(BlockLightPropagator.keyZ(a) >> 4, BlockLightPropagator.keyZ(b) >> 4);
+        });
+        return positions;
+    }
+}
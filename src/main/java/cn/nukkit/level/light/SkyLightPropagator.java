@@ -0,0 +1,191 @@
+package cn.nukkit.level.light;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import static cn.nukkit.level.light.BlockLightPropagator.*;
+
+/**
+ * Incremental sky light updates for changed blocks.
+ * <p>
+ * Blocks at and above the sky light height of their column, one above the highest block that
+ * {@link LightStorage#blocksSkyLight(int, int, int) stops sky light}, get full sky light. Other blocks get the highest
+ * sky light of their neighbours minus their light filter, which is taken as at least 1.
+ * <p>
+ * The columns of changed blocks are updated first: blocks that came into direct sky light are lit, blocks that lost it
+ * are darkened, which covers the difference between the old and the new height. Empty sections are skipped while
+ * looking for the height and the update of a column stops at the first block that already had the right light. After
+ * that the changed blocks below the height are darkened, the darkness spreads to the blocks lit by them, and the light
+ * from the remaining lit blocks at the edges is spread again.
+ * <p>
+ * The queues are reused between updates, so a propagator must only be used by one thread at a time.
+ */
+public class SkyLightPropagator {
+
+    private static final long LEVEL_MASK = 0xf;
+
+    private final LongArrayFIFOQueue removalQueue = new LongArrayFIFOQueue();
+    private final LongArrayFIFOQueue spreadQueue = new LongArrayFIFOQueue();
+    private final Long2IntOpenHashMap columnHeights = new Long2IntOpenHashMap();
+    private final LongArrayList relight = new LongArrayList();
+
+    /**
+     * Update the sky light around changed blocks
+     *
+     * @param storage   blocks and light
+     * @param positions positions of the changed blocks packed with {@link BlockLightPropagator#key(int, int, int)}
+     * @param count     number of positions to use from the array
+     */
+    public void update(LightStorage storage, long[] positions, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                long key = positions[i];
+                int x = keyX(key);
+                int y = keyY(key);
+                int z = keyZ(key);
+                if (!storage.canStoreLight(x, y, z)) {
+                    continue;
+                }
+
+                int height = this.updateColumn(storage, x, z);
+                if (y < height) {
+                    int current = storage.getBlockSkyLight(x, y, z);
+                    if (current > 0) {
+                        storage.setBlockSkyLight(x, y, z, 0);
+                        this.removalQueue.enqueue((key & ~LEVEL_MASK) | current);
+                    }
+                    this.relight.add(key & ~LEVEL_MASK);
+                }
+            }
+
+            while (!this.removalQueue.isEmpty()) {
+                long node = this.removalQueue.dequeueLong();
+                int x = keyX(node);
+                int y = keyY(node);
+                int z = keyZ(node);
+                int lightLevel = (int) (node & LEVEL_MASK);
+
+                this.computeRemove(storage, x - 1, y, z, lightLevel);
+                this.computeRemove(storage, x + 1, y, z, lightLevel);
+                this.computeRemove(storage, x, y - 1, z, lightLevel);
+                this.computeRemove(storage, x, y + 1, z, lightLevel);
+                this.computeRemove(storage, x, y, z - 1, lightLevel);
+                this.computeRemove(storage, x, y, z + 1, lightLevel);
+            }
+
+            // Changed blocks may be lit by a neighbour that wasn't darkened
+            for (int i = 0, size = this.relight.size(); i < size; i++) {
+                long key = this.relight.getLong(i);
+                int x = keyX(key);
+                int y = keyY(key);
+                int z = keyZ(key);
+                int filter = Math.max(1, storage.getLightFilter(x, y, z));
+                int level = Math.max(Math.max(Math.max(storage.getBlockSkyLight(x - 1, y, z), storage.getBlockSkyLight(x + 1, y, z)),
+                                Math.max(storage.getBlockSkyLight(x, y - 1, z), storage.getBlockSkyLight(x, y + 1, z))),
+                        Math.max(storage.getBlockSkyLight(x, y, z - 1), storage.getBlockSkyLight(x, y, z + 1))) - filter;
+                if (level > storage.getBlockSkyLight(x, y, z)) {
+                    storage.setBlockSkyLight(x, y, z, level);
+                    this.spreadQueue.enqueue(key);
+                }
+            }
+
+            while (!this.spreadQueue.isEmpty()) {
+                long node = this.spreadQueue.dequeueLong();
+                int x = keyX(node);
+                int y = keyY(node);
+                int z = keyZ(node);
+                int lightLevel = storage.getBlockSkyLight(x, y, z);
+                if (lightLevel > 1) {
+                    this.computeSpread(storage, x - 1, y, z, lightLevel);
+                    this.computeSpread(storage, x + 1, y, z, lightLevel);
+                    this.computeSpread(storage, x, y - 1, z, lightLevel);
+                    this.computeSpread(storage, x, y + 1, z, lightLevel);
+                    this.computeSpread(storage, x, y, z - 1, lightLevel);
+                    this.computeSpread(storage, x, y, z + 1, lightLevel);
+                }
+            }
+        } finally {
+            this.removalQueue.clear();
+            this.spreadQueue.clear();
+            this.columnHeights.clear();
+            this.relight.clear();
+        }
+    }
+
+    /**
+     * Find the sky light height of a column
+     *
+     * @return Y above the highest block that stops sky light
+     */
+    public static int getHeight(LightStorage storage, int x, int z) {
+        int minY = storage.getMinY();
+        for (int y = storage.getMaxY(); y >= minY; y--) {
+            if (storage.isSectionEmpty(x, y, z)) {
+                // Continue at the top of the section below
+                y &= ~0x0f;
+                continue;
+            }
+            if (storage.blocksSkyLight(x, y, z)) {
+                return y + 1;
+            }
+        }
+        return minY;
+    }
+
+    /**
+     * Bring the direct sky light of a column in line with its height, once per update
+     *
+     * @return sky light height of the column
+     */
+    private int updateColumn(LightStorage storage, int x, int z) {
+        long column = key(x, 0, z);
+        if (this.columnHeights.containsKey(column)) {
+            return this.columnHeights.get(column);
+        }
+        int height = getHeight(storage, x, z);
+        this.columnHeights.put(column, height);
+
+        // Lit from the height upwards up to the old height, everything above still has full light
+        int maxY = storage.getMaxY();
+        for (int y = height; y <= maxY; y++) {
+            if (storage.getBlockSkyLight(x, y, z) == 15) {
+                break;
+            }
+            storage.setBlockSkyLight(x, y, z, 15);
+            this.spreadQueue.enqueue(key(x, y, z));
+        }
+
+        // Full light below the height was direct sky light before the column got higher
+        int minY = storage.getMinY();
+        for (int y = height - 1; y >= minY; y--) {
+            if (storage.getBlockSkyLight(x, y, z) != 15) {
+                break;
+            }
+            storage.setBlockSkyLight(x, y, z, 0);
+            this.removalQueue.enqueue(key(x, y, z) | 15);
+        }
+        return height;
+    }
+
+    private void computeRemove(LightStorage storage, int x, int y, int z, int currentLight) {
+        int current = storage.getBlockSkyLight(x, y, z);
+        if (current == 0) {
+            return;
+        }
+        if (current < currentLight) {
+            storage.setBlockSkyLight(x, y, z, 0);
+            this.removalQueue.enqueue(key(x, y, z) | current);
+        } else {
+            this.spreadQueue.enqueue(key(x, y, z));
+        }
+    }
+
+    private void computeSpread(LightStorage storage, int x, int y, int z, int currentLight) {
+        int level = currentLight - Math.max(1, storage.getLightFilter(x, y, z));
+        if (level > storage.getBlockSkyLight(x, y, z) && storage.canStoreLight(x, y, z)) {
+            storage.setBlockSkyLight(x, y, z, level);
+            this.spreadQueue.enqueue(key(x, y, z));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package cn.nukkit.level.util;
+
+import cn.nukkit.block.*;
+import cn.nukkit.block.custom.CustomBlockManager;
+import cn.nukkit.math.AxisAlignedBB;
+import cn.nukkit.math.SimpleAxisAlignedBB;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collision shapes of block states, so movement collision can work with the full block ids read from chunk sections
+ * instead of creating a block and a bounding box for every position.
+ * <p>
+ * The shape of a state is worked out once from a block without level at two positions. States whose bounding box
+ * depends on the neighbours or the level (see {@link #LEVEL_DEPENDENT}), on the position, or whose class checks
+ * collision itself are {@link #DYNAMIC} and still have to be checked with the block. Shapes are computed lazily per state, as most of the
+ * possible states never show up in a world.
+ */
+public final class BlockCollisionShapes {
+
+    /**
+     * No bounding box
+     */
+    public static final int EMPTY = 0;
+    /**
+     * Bounding box of the whole block
+     */
+    public static final int FULL = 1;
+    /**
+     * Bounding box relative to the block position that is the same for every block of the state
+     */
+    public static final int STATIC = 2;
+    /**
+     * The block has to be created to get its bounding box
+     */
+    public static final int DYNAMIC = 3;
+
+    /**
+     * Blocks whose bounding box or {@link Block#canPassThrough()} looks at the level, which a block without level can't
+     * tell. Blocks added later that do so must be listed here.
+     */
+    private static final Class<?>[] LEVEL_DEPENDENT = {
+            BlockFence.class,
+            BlockThin.class,
+            BlockWall.class,
+            BlockVine.class,
+            BlockDoor.class,
+            BlockEndGateway.class,
+            BlockBamboo.class
+    };
+
+    private static final Shape DYNAMIC_SHAPE = new Shape(DYNAMIC, false, 0, 0, 0, 0, 0, 0);
+    private static final Shape AIR_SHAPE = new Shape(EMPTY, true, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Shapes by block id and meta, the arrays grow to the highest meta looked up and are replaced instead of modified,
+     * so they can be read without locking
+     */
+    private static final AtomicReferenceArray<Shape[]> SHAPES = new AtomicReferenceArray<>(Block.MAX_BLOCK_ID);
+
+    private BlockCollisionShapes() {
+    }
+
+    /**
+     * Get the collision shape of a block state
+     *
+     * @param fullId block id shifted by {@link Block#DATA_BITS} combined with the meta
+     * @return shape
+     */
+    public static Shape get(int fullId) {
+        int id = fullId >> Block.DATA_BITS;
+        int meta = fullId & Block.DATA_MASK;
+        if (id < 0 || id >= SHAPES.length()) {
+            return DYNAMIC_SHAPE;
+        }
+
+        Shape[] shapes = SHAPES.get(id);
+        if (shapes != null && meta < shapes.length) {
+            Shape shape = shapes[meta];
+            if (shape != null) {
+                return shape;
+            }
+        }
+
+        Shape shape = compute(id, meta);
+        synchronized (SHAPES) {
+            shapes = SHAPES.get(id);
+            if (shapes == null) {
+                shapes = new Shape[meta + 1];
+            } else if (meta >= shapes.length) {
+                shapes = Arrays.copyOf(shapes, meta + 1);
+            } else {
+                // Copied so readers never see a partly written array
+                shapes = shapes.clone();
+            }
+            shapes[meta] = shape;
+            SHAPES.set(id, shapes);
+        }
+        return shape;
+    }
+
+    private static Shape compute(int id, int meta) {
+        if (id == BlockID.AIR) {
+            return AIR_SHAPE;
+        }
+        // Barriers depend on the entity, custom blocks are defined by plugins
+        if (id == BlockID.BARRIER || id >= CustomBlockManager.LOWEST_CUSTOM_BLOCK_ID) {
+            return DYNAMIC_SHAPE;
+        }
+
+        try {
+            Block block = Block.get(id, meta);
+            if (isLevelDependent(block.getClass()) || overridesCollisionCheck(block.getClass())) {
+                return DYNAMIC_SHAPE;
+            }
+
+            boolean passThrough = block.canPassThrough();
+            AxisAlignedBB bb = block.getBoundingBox();
+
+            Block moved = Block.get(id, meta);
+            moved.x = 16;
+            moved.y = 64;
+            moved.z = -16;
+            if (moved.canPassThrough() != passThrough) {
+                return DYNAMIC_SHAPE;
+            }
+            AxisAlignedBB movedBB = moved.getBoundingBox();
+
+            if (bb == null || movedBB == null) {
+                return bb == movedBB ? new Shape(EMPTY, passThrough, 0, 0, 0, 0, 0, 0) : DYNAMIC_SHAPE;
+            }
+
+            if (bb.getMinX() != movedBB.getMinX() - 16 || bb.getMaxX() != movedBB.getMaxX() - 16
+                    || bb.getMinY() != movedBB.getMinY() - 64 || bb.getMaxY() != movedBB.getMaxY() - 64
+                    || bb.getMinZ() != movedBB.getMinZ() + 16 || bb.getMaxZ() != movedBB.getMaxZ() + 16) {
+                return DYNAMIC_SHAPE;
+            }
+
+            boolean full = bb.getMinX() == 0 && bb.getMinY() == 0 && bb.getMinZ() == 0
+                    && bb.getMaxX() == 1 && bb.getMaxY() == 1 && bb.getMaxZ() == 1;
+            return new Shape(full ? FULL : STATIC, passThrough, bb.getMinX(), bb.getMinY(), bb.getMinZ(), bb.getMaxX(), bb.getMaxY(), bb.getMaxZ());
+        } catch (Throwable t) {
+            // Needs the level or neighbours
+            return DYNAMIC_SHAPE;
+        }
+    }
+
+    private static boolean isLevelDependent(Class<?> blockClass) {
+        for (Class<?> dependent : LEVEL_DEPENDENT) {
+            if (dependent.isAssignableFrom(blockClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overridesCollisionCheck(Class<?> blockClass) {
+        try {
+            return blockClass.getMethod("collidesWithBB", AxisAlignedBB.class).getDeclaringClass() != Block.class
+                    || blockClass.getMethod("collidesWithBB", AxisAlignedBB.class, boolean.class).getDeclaringClass() != Block.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Collision shape of a block state
+     */
+    public static final class Shape {
+
+        private final int type;
+        private final boolean passThrough;
+        private final double minX;
+        private final double minY;
+        private final double minZ;
+        private final double maxX;
+        private final double maxY;
+        private final double maxZ;
+
+        private Shape(int type, boolean passThrough, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            this.type = type;
+            this.passThrough = passThrough;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        /**
+         * @return {@link #EMPTY}, {@link #FULL}, {@link #STATIC} or {@link #DYNAMIC}
+         */
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * @return whether {@link Block#canPassThrough()} is true for the state, not known for dynamic shapes
+         */
+        public boolean canPassThrough() {
+            return passThrough;
+        }
+
+        /**
+         * Check whether the shape of a block at a position intersects with a bounding box, like
+         * {@link Block#collidesWithBB(AxisAlignedBB)}. Must not be used for dynamic shapes.
+         *
+         * @param x  block X
+         * @param y  block Y
+         * @param z  block Z
+         * @param bb bounding box
+         * @return whether they intersect
+         */
+        public boolean intersects(int x, int y, int z, AxisAlignedBB bb) {
+            return this.type != EMPTY
+                    && bb.getMaxX() > x + this.minX && bb.getMinX() < x + this.maxX
+                    && bb.getMaxY() > y + this.minY && bb.getMinY() < y + this.maxY
+                    && bb.getMaxZ() > z + this.minZ && bb.getMinZ() < z + this.maxZ;
+        }
+
+        /**
+         * Create the bounding box of a block at a position. Must not be used for dynamic or empty shapes.
+         *
+         * @param x block X
+         * @param y block Y
+         * @param z block Z
+         * @return bounding box
+         */
+        public AxisAlignedBB toBoundingBox(int x, int y, int z) {
+            return new SimpleAxisAlignedBB(x + this.minX, y + this.minY, z + this.minZ, x + this.maxX, y + this.maxY, z + this.maxZ);
+        }
+    }
+}
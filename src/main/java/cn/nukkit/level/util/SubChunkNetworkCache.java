@@ -0,0 +1,41 @@
+package cn.nukkit.level.util;
+
+import cn.nukkit.GameVersion;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Network encoded block storages of a chunk section by game version and anti-xray mode.
+ * <p>
+ * The cache is shared by a section and the copies made of it for asynchronous chunk sending. Entries belong to one
+ * modification count of the section: reading with another count misses and storing with a newer count discards the
+ * entries of the older one.
+ */
+public class SubChunkNetworkCache {
+
+    private long modCount = -1;
+    private final Map<GameVersion, byte[]> encoded = new EnumMap<>(GameVersion.class);
+    private final Map<GameVersion, byte[]> encodedAntiXray = new EnumMap<>(GameVersion.class);
+
+    public synchronized byte[] get(long modCount, GameVersion gameVersion, boolean antiXray) {
+        if (this.modCount != modCount) {
+            return null;
+        }
+        return (antiXray ? this.encodedAntiXray : this.encoded).get(gameVersion);
+    }
+
+    public synchronized void put(long modCount, GameVersion gameVersion, boolean antiXray, byte[] bytes) {
+        if (modCount < this.modCount) {
+            // Encoded from an outdated copy
+            return;
+        }
+
+        if (modCount > this.modCount) {
+            this.encoded.clear();
+            this.encodedAntiXray.clear();
+            this.modCount = modCount;
+        }
+        (antiXray ? this.encodedAntiXray : this.encoded).put(gameVersion, bytes);
+    }
+}
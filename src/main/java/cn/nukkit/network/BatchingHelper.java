@@ -7,6 +7,7 @@ import cn.nukkit.event.server.BatchPacketsEvent;
 import cn.nukkit.network.protocol.BatchPacket;
 import cn.nukkit.network.protocol.DataPacket;
 import cn.nukkit.network.protocol.ProtocolInfo;
+import cn.nukkit.network.session.SharedBatchPacket;
 import cn.nukkit.utils.Binary;
 import cn.nukkit.utils.BinaryStream;
 import cn.nukkit.utils.SnappyCompression;
@@ -16,24 +17,47 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import lombok.extern.log4j.Log4j2;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 主要处理服务器广播数据包
  * 因为每个玩家的协议版本不同，所以在这个线程提前根据玩家协议进行编码
+ * <p>
+ * Broadcasts are taken in order by the "Batching Executor" thread, the version groups of a broadcast are encoded and
+ * compressed concurrently on the encoder pool.
  */
+@Log4j2
 public class BatchingHelper {
 
     private final ExecutorService threadedExecutor;
+    private final ExecutorService encodingExecutor;
+
+    private final Map<GameVersion, Statistics> statistics = new ConcurrentHashMap<>();
 
     public BatchingHelper() {
         ThreadFactoryBuilder builder = new ThreadFactoryBuilder();
         builder.setNameFormat("Batching Executor");
         this.threadedExecutor = Executors.newSingleThreadExecutor(builder.build());
+
+        ThreadFactoryBuilder encoderBuilder = new ThreadFactoryBuilder();
+        encoderBuilder.setNameFormat("Batching Encoder #%d");
+        encoderBuilder.setDaemon(true);
+        this.encodingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), encoderBuilder.build());
     }
 
+    /**
+     * Send packets to the players. The packets are encoded asynchronously, so they must not be modified afterwards.
+     *
+     * @param players target players
+     * @param packets packets to send
+     */
     public void batchPackets(Player[] players, DataPacket[] packets) {
         if (players == null || packets == null || players.length == 0 || packets.length == 0) {
             return;
@@ -45,19 +69,46 @@ public class BatchingHelper {
             return;
         }
 
-        this.threadedExecutor.execute(() -> this.batchAndSendPackets(players, packets));
+        // Packets sent to the players afterwards are held back until this broadcast was queued in their sessions
+        Reference2ObjectMap<Player, Object> barriers = new Reference2ObjectOpenHashMap<>(players.length);
+        for (Player player : players) {
+            if (!barriers.containsKey(player)) {
+                barriers.put(player, player.reserveBatch());
+            }
+        }
+        try {
+            this.threadedExecutor.execute(() -> {
+                try {
+                    this.batchAndSendPackets(players, packets, barriers);
+                } finally {
+                    // Players that didn't get the broadcast
+                    releaseBatches(barriers);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releaseBatches(barriers);
+        }
+    }
+
+    private static void releaseBatches(Reference2ObjectMap<Player, Object> barriers) {
+        for (Reference2ObjectMap.Entry<Player, Object> entry : barriers.reference2ObjectEntrySet()) {
+            entry.getKey().releaseBatch(entry.getValue());
+        }
     }
 
-    private void batchAndSendPackets(Player[] players, DataPacket[] packets) {
+    private void batchAndSendPackets(Player[] players, DataPacket[] packets, Reference2ObjectMap<Player, Object> barriers) {
         //只有一个玩家时直接发送
         //未知原因 注释掉会导致客户端容易闪退
         if (players.length == 1) {
-            for (DataPacket packet : packets) {
-                packet.protocol = players[0].protocol;
-                packet.gameVersion = players[0].getGameVersion();
-                players[0].getNetworkSession().sendPacket(packet);
-           }
-           return;
+            Player player = players[0];
+            player.completeBatch(barriers.get(player), () -> {
+                for (DataPacket packet : packets) {
+                    packet.protocol = player.protocol;
+                    packet.gameVersion = player.getGameVersion();
+                    player.getNetworkSession().sendPacket(packet);
+                }
+            });
+            return;
         }
 
         Object2ObjectMap<GameVersion, ObjectList<Player>> targets = new Object2ObjectOpenHashMap<>();
@@ -65,76 +116,145 @@ public class BatchingHelper {
             targets.computeIfAbsent(player.getGameVersion(), i -> new ObjectArrayList<>()).add(player);
         }
 
-        // Encoded packets by encoding protocol
-        Object2ObjectMap<GameVersion, ObjectList<DataPacket>> encodedPackets = new Object2ObjectOpenHashMap<>();
-
-        for (DataPacket packet : packets) {
-            Object2ObjectMap<GameVersion, GameVersion> encodingProtocols = new Object2ObjectOpenHashMap<>();
-            for (GameVersion gameVersion : targets.keySet()) {
-                // TODO: encode only by encoding protocols
-                // No need to have all versions here
-                encodingProtocols.put(gameVersion, gameVersion);
+        if (targets.size() == 1) {
+            for (Object2ObjectMap.Entry<GameVersion, ObjectList<Player>> entry : targets.object2ObjectEntrySet()) {
+                this.encodeAndSend(entry.getKey(), entry.getValue(), packets, barriers);
             }
+            return;
+        }
 
-            Object2ObjectMap<GameVersion, DataPacket> encodedPacket = new Object2ObjectOpenHashMap<>();
-            for (GameVersion encodingProtocol : encodingProtocols.values()) {
-                if (!encodedPacket.containsKey(encodingProtocol)) {
-                    DataPacket pk = packet.clone();
-                    pk.protocol = encodingProtocol.getProtocol();
-                    pk.gameVersion = encodingProtocol;
-                    pk.tryEncode();
-                    encodedPacket.put(encodingProtocol, pk);
-                }
-            }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[targets.size()];
+        int i = 0;
+        for (Object2ObjectMap.Entry<GameVersion, ObjectList<Player>> entry : targets.object2ObjectEntrySet()) {
+            futures[i++] = CompletableFuture.runAsync(() -> this.encodeAndSend(entry.getKey(), entry.getValue(), packets, barriers), this.encodingExecutor);
+        }
+
+        // Wait for all version groups so packets of the next broadcast can't overtake this one
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            log.error("Failed to batch packets", e.getCause());
+        }
+    }
+
+    private void encodeAndSend(GameVersion gameVersion, ObjectList<Player> finalTargets, DataPacket[] packets, Reference2ObjectMap<Player, Object> barriers) {
+        long start = System.nanoTime();
 
-            for (GameVersion gameVersion : encodingProtocols.values()) {
-                GameVersion encodingGameVersion = encodingProtocols.get(gameVersion);
-                encodedPackets.computeIfAbsent(gameVersion, i -> new ObjectArrayList<>()).add(encodedPacket.get(encodingGameVersion));
+        BinaryStream batched = new BinaryStream();
+        for (DataPacket packet : packets) {
+            if (packet instanceof BatchPacket) {
+                throw new RuntimeException("Cannot batch BatchPacket");
             }
+            byte[] buf = this.getEncodedBuffer(packet, gameVersion);
+            batched.putUnsignedVarInt(buf.length);
+            batched.put(buf);
         }
 
-        for (GameVersion gameVersion : targets.keySet()) {
-            ObjectList<DataPacket> packetList = encodedPackets.get(gameVersion);
-            ObjectList<Player> finalTargets = targets.get(gameVersion);
+        long encoded = System.nanoTime();
 
-            BinaryStream batched = new BinaryStream();
-            for (DataPacket packet : packetList) {
-                if (packet instanceof BatchPacket) {
-                    throw new RuntimeException("Cannot batch BatchPacket");
-                }
-                packet.tryEncode();
-                byte[] buf = packet.getBuffer();
-                batched.putUnsignedVarInt(buf.length);
-                batched.put(buf);
+        SharedBatchPacket pk = null;
+        SharedBatchPacket uncompressed = null;
+        try {
+            byte[] bytes = Binary.appendBytes(batched.getBuffer());
+            byte[] payload;
+            if (Server.getInstance().useSnappy && gameVersion.getProtocol() >= ProtocolInfo.v1_19_30_23) {
+                payload = SnappyCompression.compress(bytes);
+            } else if (gameVersion.getProtocol() >= ProtocolInfo.v1_16_0) {
+                payload = Zlib.deflateRaw(bytes, Server.getInstance().networkCompressionLevel);
+            } else {
+                payload = Zlib.deflatePre16Packet(bytes, Server.getInstance().networkCompressionLevel);
             }
+            pk = new SharedBatchPacket(payload);
 
-            try {
-                byte[] bytes = Binary.appendBytes(batched.getBuffer());
-                BatchPacket pk = new BatchPacket();
-                if (Server.getInstance().useSnappy && gameVersion.getProtocol() >= ProtocolInfo.v1_19_30_23) {
-                    pk.payload = SnappyCompression.compress(bytes);
-                } else if (gameVersion.getProtocol() >= ProtocolInfo.v1_16_0) {
-                    pk.payload = Zlib.deflateRaw(bytes, Server.getInstance().networkCompressionLevel);
-                } else {
-                    pk.payload = Zlib.deflatePre16Packet(bytes, Server.getInstance().networkCompressionLevel);
-                }
-                for (Player player : finalTargets) {
-                    CompressionProvider compressionProvider = player.getNetworkSession().getCompression();
-                    if (compressionProvider == CompressionProvider.NONE) {
-                        BatchPacket batchPacket = new BatchPacket();
-                        batchPacket.payload = bytes;
-                        player.dataPacket(batchPacket);
-                    }else {
-                        player.dataPacket(pk);
+            this.statistics.computeIfAbsent(gameVersion, v -> new Statistics()).record(packets.length, encoded - start, System.nanoTime() - encoded);
+
+            // One frame for every recipient, the players only clone the packet
+            for (Player player : finalTargets) {
+                CompressionProvider compressionProvider = player.getNetworkSession().getCompression();
+                SharedBatchPacket packet;
+                if (compressionProvider == CompressionProvider.NONE) {
+                    if (uncompressed == null) {
+                        uncompressed = new SharedBatchPacket(bytes);
                     }
+                    packet = uncompressed;
+                }else {
+                    packet = pk;
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                player.completeBatch(barriers.get(player), () -> player.dataPacket(packet));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (pk != null) {
+                pk.release();
+            }
+            if (uncompressed != null) {
+                uncompressed.release();
             }
         }
     }
 
+    /**
+     * Encode a packet for one version group of a broadcast. Packets are encoded again for every broadcast, because
+     * plugins reuse and modify packet instances between broadcasts.
+     */
+    private byte[] getEncodedBuffer(DataPacket packet, GameVersion gameVersion) {
+        DataPacket pk = packet.clone();
+        pk.protocol = gameVersion.getProtocol();
+        pk.gameVersion = gameVersion;
+        pk.tryEncode();
+        return pk.getBuffer();
+    }
+
+    /**
+     * Get the encoding and compression statistics of broadcasts by game version
+     *
+     * @return statistics by game version
+     */
+    public Map<GameVersion, Statistics> getStatistics() {
+        return Collections.unmodifiableMap(this.statistics);
+    }
+
+    public void resetStatistics() {
+        this.statistics.clear();
+    }
+
     public void shutdown() {
         this.threadedExecutor.shutdownNow();
+        this.encodingExecutor.shutdownNow();
+    }
+
+    /**
+     * Time spent on broadcasts of one game version
+     */
+    public static class Statistics {
+
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder packets = new LongAdder();
+        private final LongAdder encodeNanos = new LongAdder();
+        private final LongAdder compressNanos = new LongAdder();
+
+        private void record(int packetCount, long encodeTime, long compressTime) {
+            this.batches.increment();
+            this.packets.add(packetCount);
+            this.encodeNanos.add(encodeTime);
+            this.compressNanos.add(compressTime);
+        }
+
+        public long getBatches() {
+            return this.batches.sum();
+        }
+
+        public long getPackets() {
+            return this.packets.sum();
+        }
+
+        public long getEncodeNanos() {
+            return this.encodeNanos.sum();
+        }
+
+        public long getCompressNanos() {
+            return this.compressNanos.sum();
+        }
     }
 }
@@ -7,6 +7,9 @@ import cn.nukkit.network.process.processor.v137.CommandRequestProcessor_v137;
 import cn.nukkit.network.process.processor.v282.SetLocalPlayerAsInitializedProcessor_v282;
 import cn.nukkit.network.process.processor.v340.LecternUpdateProcessor_v340;
 import cn.nukkit.network.process.processor.v422.FilterTextProcessor_v422;
+import cn.nukkit.network.process.processor.v503.ClientCacheBlobStatusProcessor_v503;
+import cn.nukkit.network.process.processor.v503.ClientCacheStatusProcessor_v503;
+import cn.nukkit.network.process.processor.v503.SubChunkRequestProcessor_v503;
 import cn.nukkit.network.process.processor.v527.RequestAbilityProcessor_v527;
 import cn.nukkit.network.process.processor.v554.RequestNetworkSettingsProcessor_v554;
 import cn.nukkit.network.protocol.DataPacket;
@@ -218,6 +221,13 @@ public final class DataPacketManager {
                 FilterTextProcessor_v422.INSTANCE
         );
 
+        registerProcessor(
+                ProtocolInfo.v1_18_30,
+                SubChunkRequestProcessor_v503.INSTANCE,
+                ClientCacheStatusProcessor_v503.INSTANCE,
+                ClientCacheBlobStatusProcessor_v503.INSTANCE
+        );
+
         registerProcessor(
                 ProtocolInfo.v1_19_0,
                 RequestAbilityProcessor_v527.INSTANCE
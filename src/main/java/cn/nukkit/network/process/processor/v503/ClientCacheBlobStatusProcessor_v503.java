@@ -0,0 +1,60 @@
+package cn.nukkit.network.process.processor.v503;
+
+import cn.nukkit.Player;
+import cn.nukkit.PlayerHandle;
+import cn.nukkit.network.process.DataPacketProcessor;
+import cn.nukkit.network.protocol.ClientCacheBlobStatusPacket;
+import cn.nukkit.network.protocol.ClientCacheMissResponsePacket;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.network.protocol.ProtocolInfo;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Sends the blobs the client is missing and forgets the blobs it has cached
+ */
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ClientCacheBlobStatusProcessor_v503 extends DataPacketProcessor<ClientCacheBlobStatusPacket> {
+
+    public static final ClientCacheBlobStatusProcessor_v503 INSTANCE = new ClientCacheBlobStatusProcessor_v503();
+
+    @Override
+    public void handle(@NotNull PlayerHandle playerHandle, @NotNull ClientCacheBlobStatusPacket pk) {
+        Player player = playerHandle.player;
+        if (!player.isClientCacheEnabled()) {
+            return;
+        }
+
+        ClientCacheMissResponsePacket response = new ClientCacheMissResponsePacket();
+        for (long blobId : pk.missingBlobIds) {
+            byte[] blob = player.resolveClientCacheBlob(blobId);
+            if (blob != null) {
+                response.blobs.put(blobId, blob);
+            }
+        }
+
+        for (long blobId : pk.hitBlobIds) {
+            player.resolveClientCacheBlob(blobId);
+        }
+
+        if (!response.blobs.isEmpty()) {
+            player.dataPacket(response);
+        }
+    }
+
+    @Override
+    public int getPacketId() {
+        return ProtocolInfo.toNewProtocolID(ProtocolInfo.CLIENT_CACHE_BLOB_STATUS_PACKET);
+    }
+
+    @Override
+    public Class<? extends DataPacket> getPacketClass() {
+        return ClientCacheBlobStatusPacket.class;
+    }
+
+    @Override
+    public boolean isSupported(int protocol) {
+        return protocol >= ProtocolInfo.v1_18_30;
+    }
+}
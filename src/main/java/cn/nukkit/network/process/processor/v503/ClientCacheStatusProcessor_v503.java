@@ -0,0 +1,45 @@
+package cn.nukkit.network.process.processor.v503;
+
+import cn.nukkit.Player;
+import cn.nukkit.PlayerHandle;
+import cn.nukkit.Server;
+import cn.nukkit.level.format.generic.serializer.NetworkChunkSerializer;
+import cn.nukkit.network.process.DataPacketProcessor;
+import cn.nukkit.network.protocol.ClientCacheStatusPacket;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.network.protocol.ProtocolInfo;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Enables sending chunks as blobs to clients that support the blob cache
+ */
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ClientCacheStatusProcessor_v503 extends DataPacketProcessor<ClientCacheStatusPacket> {
+
+    public static final ClientCacheStatusProcessor_v503 INSTANCE = new ClientCacheStatusProcessor_v503();
+
+    @Override
+    public void handle(@NotNull PlayerHandle playerHandle, @NotNull ClientCacheStatusPacket pk) {
+        Player player = playerHandle.player;
+        // Sub chunk request mode sends the sub chunks without blob ids
+        player.setClientCacheEnabled(pk.supported && Server.getInstance().clientBlobCache
+                && !NetworkChunkSerializer.isSubChunkRequestMode(player.getGameVersion()));
+    }
+
+    @Override
+    public int getPacketId() {
+        return ProtocolInfo.toNewProtocolID(ProtocolInfo.CLIENT_CACHE_STATUS_PACKET);
+    }
+
+    @Override
+    public Class<? extends DataPacket> getPacketClass() {
+        return ClientCacheStatusPacket.class;
+    }
+
+    @Override
+    public boolean isSupported(int protocol) {
+        return protocol >= ProtocolInfo.v1_18_30;
+    }
+}
@@ -0,0 +1,82 @@
+package cn.nukkit.network.process.processor.v503;
+
+import cn.nukkit.GameVersion;
+import cn.nukkit.Player;
+import cn.nukkit.PlayerHandle;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseChunk;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.level.format.generic.serializer.NetworkChunkSerializer;
+import cn.nukkit.network.process.DataPacketProcessor;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.network.protocol.ProtocolInfo;
+import cn.nukkit.network.protocol.SubChunkPacket;
+import cn.nukkit.network.protocol.SubChunkRequestPacket;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Serves the sub chunks of chunks that were sent in sub chunk request mode
+ */
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class SubChunkRequestProcessor_v503 extends DataPacketProcessor<SubChunkRequestPacket> {
+
+    public static final SubChunkRequestProcessor_v503 INSTANCE = new SubChunkRequestProcessor_v503();
+
+    @Override
+    public void handle(@NotNull PlayerHandle playerHandle, @NotNull SubChunkRequestPacket pk) {
+        Player player = playerHandle.player;
+        GameVersion gameVersion = player.getGameVersion();
+        if (!NetworkChunkSerializer.isSubChunkRequestMode(gameVersion)) {
+            return;
+        }
+
+        Level level = player.getLevel();
+
+        SubChunkPacket response = new SubChunkPacket();
+        response.dimension = pk.dimension;
+        response.subChunkX = pk.subChunkX;
+        response.subChunkY = pk.subChunkY;
+        response.subChunkZ = pk.subChunkZ;
+
+        for (byte[] offset : pk.offsets) {
+            SubChunkPacket.Entry entry = new SubChunkPacket.Entry(offset[0], offset[1], offset[2], SubChunkPacket.RESULT_CHUNK_NOT_FOUND);
+            response.entries.add(entry);
+
+            if (pk.dimension != level.getDimension()) {
+                entry.result = SubChunkPacket.RESULT_INVALID_DIMENSION;
+                continue;
+            }
+
+            int chunkX = pk.subChunkX + offset[0];
+            int chunkZ = pk.subChunkZ + offset[2];
+            // Only chunks that were sent to the player can be requested
+            if (!Boolean.TRUE.equals(player.usedChunks.get(Level.chunkHash(chunkX, chunkZ)))) {
+                continue;
+            }
+
+            BaseFullChunk chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+            if (chunk instanceof BaseChunk) {
+                NetworkChunkSerializer.serializeSubChunk(entry, gameVersion, (BaseChunk) chunk, pk.subChunkY + offset[1], level.antiXrayEnabled(), level.getDimensionData());
+            }
+        }
+
+        player.dataPacket(response);
+    }
+
+    @Override
+    public int getPacketId() {
+        return ProtocolInfo.toNewProtocolID(ProtocolInfo.SUB_CHUNK_REQUEST_PACKET);
+    }
+
+    @Override
+    public Class<? extends DataPacket> getPacketClass() {
+        return SubChunkRequestPacket.class;
+    }
+
+    @Override
+    public boolean isSupported(int protocol) {
+        return protocol >= ProtocolInfo.v1_18_30;
+    }
+}
@@ -28,10 +28,19 @@ public class BatchPacket extends DataPacket {
         setBuffer(null);
     }
 
+    /**
+     * Whether the payload is immutable and can be shared between clones
+     *
+     * @return payload is shared
+     */
+    protected boolean isPayloadShared() {
+        return false;
+    }
+
     @Override
     public BatchPacket clone() {
         BatchPacket packet = (BatchPacket) super.clone();
-        if (this.payload != null) {
+        if (this.payload != null && !this.isPayloadShared()) {
             packet.payload = this.payload.clone();
         }
         return packet;
@@ -0,0 +1,47 @@
+package cn.nukkit.network.protocol;
+
+import lombok.ToString;
+
+/**
+ * Sent by clients with the blob cache enabled to report which blobs of received chunks they are missing
+ */
+@ToString
+public class ClientCacheBlobStatusPacket extends DataPacket {
+
+    public static final byte NETWORK_ID = ProtocolInfo.CLIENT_CACHE_BLOB_STATUS_PACKET;
+
+    /**
+     * Packets with more blob ids than this are cut off
+     */
+    public static final int MAX_BLOB_IDS = 4096;
+
+    @ToString.Exclude
+    public long[] missingBlobIds;
+    @ToString.Exclude
+    public long[] hitBlobIds;
+
+    @Override
+    public byte pid() {
+        return NETWORK_ID;
+    }
+
+    @Override
+    public void decode() {
+        int missCount = (int) Math.min(this.getUnsignedVarInt(), MAX_BLOB_IDS);
+        int hitCount = (int) Math.min(this.getUnsignedVarInt(), MAX_BLOB_IDS);
+
+        this.missingBlobIds = new long[missCount];
+        for (int i = 0; i < missCount; i++) {
+            this.missingBlobIds[i] = this.getLLong();
+        }
+
+        this.hitBlobIds = new long[hitCount];
+        for (int i = 0; i < hitCount; i++) {
+            this.hitBlobIds[i] = this.getLLong();
+        }
+    }
+
+    @Override
+    public void encode() {
+    }
+}
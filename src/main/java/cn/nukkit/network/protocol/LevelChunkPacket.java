@@ -30,6 +30,7 @@ public class LevelChunkPacket extends DataPacket {
     public boolean requestSubChunks;
     /**
      * v1.18.0?10 and above
+     * Highest sub chunk the client may request, negative for no limit
      */
     public int subChunkLimit;
     public long[] blobIds;
@@ -55,7 +56,7 @@ public class LevelChunkPacket extends DataPacket {
                     this.putUnsignedVarInt(-1);
                 } else {
                     this.putUnsignedVarInt(-2);
-                    this.putUnsignedVarInt(this.subChunkLimit);
+                    this.putLShort(this.subChunkLimit);
                 }
             }else {
                 this.putUnsignedVarInt(this.subChunkCount);
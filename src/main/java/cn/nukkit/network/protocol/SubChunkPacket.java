@@ -0,0 +1,99 @@
+package cn.nukkit.network.protocol;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Response to {@link SubChunkRequestPacket}. Only the batched layout of v1.18.10 and newer is supported.
+ */
+@ToString
+public class SubChunkPacket extends DataPacket {
+
+    public static final byte NETWORK_ID = ProtocolInfo.SUB_CHUNK_PACKET;
+
+    public static final byte RESULT_UNDEFINED = 0;
+    public static final byte RESULT_SUCCESS = 1;
+    public static final byte RESULT_CHUNK_NOT_FOUND = 2;
+    public static final byte RESULT_INVALID_DIMENSION = 3;
+    public static final byte RESULT_PLAYER_NOT_FOUND = 4;
+    public static final byte RESULT_Y_INDEX_OUT_OF_BOUNDS = 5;
+    public static final byte RESULT_SUCCESS_ALL_AIR = 6;
+
+    public static final byte HEIGHT_MAP_NO_DATA = 0;
+    public static final byte HEIGHT_MAP_HAS_DATA = 1;
+    public static final byte HEIGHT_MAP_TOO_HIGH = 2;
+    public static final byte HEIGHT_MAP_TOO_LOW = 3;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    public boolean cacheEnabled;
+    public int dimension;
+    public int subChunkX;
+    public int subChunkY;
+    public int subChunkZ;
+    @ToString.Exclude
+    public final List<Entry> entries = new ObjectArrayList<>();
+
+    @Override
+    public byte pid() {
+        return NETWORK_ID;
+    }
+
+    @Override
+    public void decode() {
+    }
+
+    @Override
+    public void encode() {
+        this.reset();
+        this.putBoolean(this.cacheEnabled);
+        this.putVarInt(this.dimension);
+        this.putVarInt(this.subChunkX);
+        this.putVarInt(this.subChunkY);
+        this.putVarInt(this.subChunkZ);
+        this.putLInt(this.entries.size());
+        for (Entry entry : this.entries) {
+            this.putByte(entry.offsetX);
+            this.putByte(entry.offsetY);
+            this.putByte(entry.offsetZ);
+            this.putByte(entry.result);
+            if (!this.cacheEnabled || entry.result != RESULT_SUCCESS_ALL_AIR) {
+                this.putByteArray(entry.data == null ? EMPTY : entry.data);
+            }
+            this.putByte(entry.heightMapType);
+            if (entry.heightMapType == HEIGHT_MAP_HAS_DATA) {
+                this.put(entry.heightMap);
+            }
+            if (this.cacheEnabled) {
+                this.putLLong(entry.blobId);
+            }
+        }
+    }
+
+    public static class Entry {
+
+        public byte offsetX;
+        public byte offsetY;
+        public byte offsetZ;
+        public byte result;
+        /**
+         * Sub chunk storages followed by the block entities of the sub chunk
+         */
+        public byte[] data;
+        public byte heightMapType = HEIGHT_MAP_NO_DATA;
+        /**
+         * 256 bytes of heights relative to the sub chunk, only sent with {@link #HEIGHT_MAP_HAS_DATA}
+         */
+        public byte[] heightMap;
+        public long blobId;
+
+        public Entry(byte offsetX, byte offsetY, byte offsetZ, byte result) {
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.offsetZ = offsetZ;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cn.nukkit.network.protocol;
+
+import lombok.ToString;
+
+/**
+ * Sent by the client to request the sub chunks of a chunk sent in sub chunk request mode.
+ * <p>
+ * Since v1.18.10 the client requests a batch of sub chunks as offsets from one position.
+ */
+@ToString
+public class SubChunkRequestPacket extends DataPacket {
+
+    public static final byte NETWORK_ID = ProtocolInfo.SUB_CHUNK_REQUEST_PACKET;
+
+    /**
+     * Requests with more offsets than this are cut off
+     */
+    public static final int MAX_OFFSETS = 4096;
+
+    public int dimension;
+    public int subChunkX;
+    public int subChunkY;
+    public int subChunkZ;
+    /**
+     * Offsets (x, y, z) of the requested sub chunks from the requested position
+     *
+     * @since v486 1.18.10
+     */
+    @ToString.Exclude
+    public byte[][] offsets;
+
+    @Override
+    public byte pid() {
+        return NETWORK_ID;
+    }
+
+    @Override
+    public void decode() {
+        this.dimension = this.getVarInt();
+        this.subChunkX = this.getVarInt();
+        this.subChunkY = this.getVarInt();
+        this.subChunkZ = this.getVarInt();
+
+        if (this.protocol >= ProtocolInfo.v1_18_10) {
+            int count = Math.min(this.getLInt(), MAX_OFFSETS);
+            this.offsets = new byte[Math.max(count, 0)][];
+            for (int i = 0; i < this.offsets.length; i++) {
+                this.offsets[i] = new byte[]{(byte) this.getByte(), (byte) this.getByte(), (byte) this.getByte()};
+            }
+        } else {
+            this.offsets = new byte[][]{{0, 0, 0}};
+        }
+    }
+
+    @Override
+    public void encode() {
+    }
+}
@@ -38,6 +38,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -183,6 +184,7 @@ public class RakNetPlayerSession extends SimpleChannelInboundHandler<RakMessage>
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         this.disconnect("Disconnected from Server"); // TODO: timeout reason
+        this.releaseOutbound();
     }
 
     @Override
@@ -218,8 +220,20 @@ public class RakNetPlayerSession extends SimpleChannelInboundHandler<RakMessage>
 
                 log.error("[{}] Unable to encode packet", this.player.getName(), e);
             }
+        } else if (packet instanceof SharedBatchPacket shared && this.encryptionCipher == null && shared.frame == null) {
+            boolean ci = this.compressionInitialized && this.player.protocol >= ProtocolInfo.v1_20_60;
+            shared.frame = shared.retainedFrame(ci ? this.compressionOut.getPrefix() : null);
         }
         this.outbound.offer(packet);
+
+        if (!this.channel.isActive()) {
+            // Closed after the check above, channelInactive may have released the queue already
+            try {
+                this.channel.eventLoop().execute(this::releaseOutbound);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down
+            }
+        }
     }
 
     @Override
@@ -237,6 +251,7 @@ public class RakNetPlayerSession extends SimpleChannelInboundHandler<RakMessage>
 
     private void networkTick() {
         if (!this.channel.isActive()) {
+            this.releaseOutbound();
             return;
         }
 
@@ -255,7 +270,21 @@ public class RakNetPlayerSession extends SimpleChannelInboundHandler<RakMessage>
                     } catch (Exception e) {
                         log.error("Unable to compress disconnect packet", e);
                     }
+                    this.releaseOutbound();
                     return; // Disconnected
+                } else if (packet instanceof SharedBatchPacket shared && shared.frame != null) {
+                    if (!toBatch.isEmpty()) {
+                        this.sendPackets(toBatch);
+                        toBatch.clear();
+                    }
+
+                    if (this.encryptionCipher == null) {
+                        this.channel.writeAndFlush(shared.frame); // Released by netty once written
+                        shared.frame = null;
+                    } else {
+                        shared.releaseFrame();
+                        this.sendPacket(shared.payload);
+                    }
                 } else if (packet instanceof BatchPacket) {
                     if (!toBatch.isEmpty()) {
                         this.sendPackets(toBatch);
@@ -276,6 +305,15 @@ public class RakNetPlayerSession extends SimpleChannelInboundHandler<RakMessage>
         }
     }
 
+    private void releaseOutbound() {
+        DataPacket packet;
+        while ((packet = this.outbound.poll()) != null) {
+            if (packet instanceof SharedBatchPacket shared) {
+                shared.releaseFrame();
+            }
+        }
+    }
+
     public void serverTick() {
         DataPacket packet;
         while ((packet = this.inbound.poll()) != null) {
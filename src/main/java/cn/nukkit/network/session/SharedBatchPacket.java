@@ -0,0 +1,88 @@
+package cn.nukkit.network.session;
+
+import cn.nukkit.network.protocol.BatchPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Compressed batch shared by all recipients of a broadcast.
+ * <p>
+ * The payload is not copied when the packet is cloned for each player. Unencrypted sessions write a retained duplicate
+ * of one framed buffer per compression prefix instead of building their own copy, encrypted sessions still encrypt the
+ * payload themselves. The creator has to call {@link #release()} once the packet was passed to all recipients.
+ */
+public class SharedBatchPacket extends BatchPacket {
+
+    private static final int NO_PREFIX = -1;
+
+    /**
+     * Framed payloads by compression prefix, shared with all clones
+     */
+    private final Int2ObjectMap<ByteBuf> frames;
+
+    /**
+     * Frame retained by the session this clone was queued in
+     */
+    ByteBuf frame;
+
+    public SharedBatchPacket(byte[] payload) {
+        this.payload = payload;
+        this.frames = new Int2ObjectOpenHashMap<>();
+    }
+
+    @Override
+    protected boolean isPayloadShared() {
+        return true;
+    }
+
+    /**
+     * Get a retained duplicate of the framed payload, which has to be released by the caller.
+     *
+     * @param prefix compression prefix or null if the session doesn't write one
+     * @return framed payload
+     */
+    ByteBuf retainedFrame(Byte prefix) {
+        int key = prefix == null ? NO_PREFIX : prefix & 0xff;
+        synchronized (this.frames) {
+            ByteBuf frame = this.frames.get(key);
+            if (frame == null) {
+                frame = ByteBufAllocator.DEFAULT.directBuffer((prefix == null ? 1 : 2) + this.payload.length);
+                frame.writeByte(0xfe);
+                if (prefix != null) {
+                    frame.writeByte(prefix);
+                }
+                frame.writeBytes(this.payload);
+                this.frames.put(key, frame);
+            }
+            return frame.retainedDuplicate();
+        }
+    }
+
+    void releaseFrame() {
+        if (this.frame != null) {
+            this.frame.release();
+            this.frame = null;
+        }
+    }
+
+    /**
+     * Release the framed payloads. Sessions keep their own reference until the frame is written.
+     */
+    public void release() {
+        synchronized (this.frames) {
+            for (ByteBuf frame : this.frames.values()) {
+                frame.release();
+            }
+            this.frames.clear();
+        }
+    }
+
+    @Override
+    public SharedBatchPacket clone() {
+        SharedBatchPacket packet = (SharedBatchPacket) super.clone();
+        packet.frame = null;
+        return packet;
+    }
+}
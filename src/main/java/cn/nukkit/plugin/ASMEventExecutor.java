@@ -0,0 +1,145 @@
+package cn.nukkit.plugin;
+
+import cn.nukkit.event.Event;
+import cn.nukkit.event.Listener;
+import cn.nukkit.utils.DynamicClassLoader;
+import cn.nukkit.utils.EventException;
+import lombok.extern.log4j.Log4j2;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Calls an event handler method from a class generated for the handler, so the call is a plain virtual call the JIT
+ * can inline instead of going through reflection or a method handle held in a field.
+ * <p>
+ * The class is defined by a class loader of its own with the class loader of the listener as parent, so it can see the
+ * listener and the event and is unloaded together with the executor.
+ */
+@Log4j2
+public abstract class ASMEventExecutor implements EventExecutor {
+
+    private static final String SUPER_NAME = Type.getInternalName(ASMEventExecutor.class);
+    private static final String INVOKE_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Listener.class), Type.getType(Event.class));
+    private static final AtomicInteger GENERATED = new AtomicInteger();
+
+    private final Method method;
+    private final Class<?> eventClass;
+
+    protected ASMEventExecutor(Method method) {
+        this.method = method;
+        this.eventClass = method.getParameterTypes()[0];
+    }
+
+    /**
+     * Create an executor for an event handler method. Falls back to {@link MethodHandleEventExecutor} for handlers the
+     * generated class can't call directly: static or non-public methods and methods of non-public classes.
+     *
+     * @param method event handler method with one event parameter
+     * @return event executor
+     */
+    public static EventExecutor create(Method method) {
+        if (!canGenerate(method)) {
+            return MethodHandleEventExecutor.create(method);
+        }
+
+        Class<?> declaringClass = method.getDeclaringClass();
+        String name = "cn.nukkit.plugin.generated.EventExecutor" + GENERATED.incrementAndGet();
+        try {
+            Class<?> executorClass = new DynamicClassLoader(declaringClass.getClassLoader()).defineClass(name, generate(name, method));
+            return (EventExecutor) executorClass.getConstructor(Method.class).newInstance(method);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.debug("Unable to generate an event executor for {}, using a method handle", method, e);
+            return MethodHandleEventExecutor.create(method);
+        }
+    }
+
+    /**
+     * Check whether a class in another package and class loader may call the handler
+     */
+    private static boolean canGenerate(Method method) {
+        if (method.getParameterCount() != 1) {
+            return false;
+        }
+
+        Class<?> declaringClass = method.getDeclaringClass();
+        int modifiers = method.getModifiers();
+        return !Modifier.isStatic(modifiers) && Modifier.isPublic(modifiers)
+                && declaringClass.getClassLoader() != null
+                && isAccessible(declaringClass) && isAccessible(method.getParameterTypes()[0]);
+    }
+
+    private static boolean isAccessible(Class<?> clazz) {
+        return Modifier.isPublic(clazz.getModifiers()) && clazz.getModule().isExported(clazz.getPackageName());
+    }
+
+    private static byte[] generate(String name, Method method) {
+        String internalName = name.replace('.', '/');
+        Class<?> declaringClass = method.getDeclaringClass();
+        boolean isInterface = declaringClass.isInterface();
+        Class<?> returnType = method.getReturnType();
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null, SUPER_NAME, null);
+
+        MethodVisitor constructor = classWriter.visitMethod(ACC_PUBLIC, "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Method.class)), null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitVarInsn(ALOAD, 1);
+        constructor.visitMethodInsn(INVOKESPECIAL, SUPER_NAME, "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Method.class)), false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        MethodVisitor invoke = classWriter.visitMethod(ACC_PROTECTED, "invoke", INVOKE_DESCRIPTOR, null, null);
+        invoke.visitCode();
+        invoke.visitVarInsn(ALOAD, 1);
+        invoke.visitTypeInsn(CHECKCAST, Type.getInternalName(declaringClass));
+        invoke.visitVarInsn(ALOAD, 2);
+        invoke.visitTypeInsn(CHECKCAST, Type.getInternalName(method.getParameterTypes()[0]));
+        invoke.visitMethodInsn(isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL, Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method), isInterface);
+        if (returnType == long.class || returnType == double.class) {
+            invoke.visitInsn(POP2);
+        } else if (returnType != void.class) {
+            invoke.visitInsn(POP);
+        }
+        invoke.visitInsn(RETURN);
+        invoke.visitMaxs(0, 0);
+        invoke.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Call the handler method, implemented by the generated class
+     *
+     * @param listener listener holding the handler
+     * @param event    event of the handler parameter type
+     */
+    protected abstract void invoke(Listener listener, Event event) throws Throwable;
+
+    @Override
+    public void execute(Listener listener, Event event) throws EventException {
+        // Handlers of subclasses get the events of the class that holds the handler list
+        if (!this.eventClass.isInstance(event)) {
+            return;
+        }
+
+        try {
+            this.invoke(listener, event);
+        } catch (Throwable t) {
+            throw new EventException(t);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+}
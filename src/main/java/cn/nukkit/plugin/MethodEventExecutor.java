@@ -14,17 +14,17 @@ import java.lang.reflect.Method;
 public class MethodEventExecutor implements EventExecutor {
 
     private final Method method;
+    private final Class<?>[] params;
 
     public MethodEventExecutor(Method method) {
         this.method = method;
+        this.params = method.getParameterTypes();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void execute(Listener listener, Event event) throws EventException {
         try {
-            Class<Event>[] params = (Class<Event>[]) method.getParameterTypes();
-            for (Class<Event> param : params) {
+            for (Class<?> param : params) {
                 if (param.isAssignableFrom(event.getClass())) {
                     method.invoke(listener, event);
                     break;
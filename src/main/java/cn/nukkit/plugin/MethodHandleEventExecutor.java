@@ -0,0 +1,76 @@
+package cn.nukkit.plugin;
+
+import cn.nukkit.event.Event;
+import cn.nukkit.event.Listener;
+import cn.nukkit.utils.EventException;
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls an event handler method through a {@link MethodHandle} instead of {@link Method#invoke}, which skips the
+ * access checks and argument boxing of reflection on every call.
+ * <p>
+ * The handle is taken from the accessible {@link Method}, so it works for listeners of every plugin class loader. Used
+ * for handlers {@link ASMEventExecutor} can't call directly.
+ */
+@Log4j2
+public class MethodHandleEventExecutor implements EventExecutor {
+
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Method method;
+    private final Class<?> eventClass;
+    private final MethodHandle handle;
+
+    private MethodHandleEventExecutor(Method method, MethodHandle handle) {
+        this.method = method;
+        this.eventClass = method.getParameterTypes()[0];
+        this.handle = handle;
+    }
+
+    /**
+     * Create an executor for an event handler method. Falls back to {@link MethodEventExecutor} for static methods or
+     * when the method isn't accessible.
+     *
+     * @param method event handler method with one event parameter
+     * @return event executor
+     */
+    public static EventExecutor create(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+            return new MethodEventExecutor(method);
+        }
+
+        try {
+            method.setAccessible(true);
+            // Access is checked against the method, not the lookup class
+            MethodHandle handle = MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+            return new MethodHandleEventExecutor(method, handle);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Unable to create an event executor for {}, using reflection", method, e);
+            return new MethodEventExecutor(method);
+        }
+    }
+
+    @Override
+    public void execute(Listener listener, Event event) throws EventException {
+        // Handlers of subclasses get the events of the class that holds the handler list
+        if (!this.eventClass.isInstance(event)) {
+            return;
+        }
+
+        try {
+            this.handle.invokeExact((Object) listener, (Object) event);
+        } catch (Throwable t) {
+            throw new EventException(t);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+}
@@ -44,6 +44,11 @@ public class PluginManager {
 
     protected final Map<String, PluginLoader> fileAssociations = new HashMap<>();
 
+    /**
+     * Handler lists by event class. The handler list of an event class never changes, so it is only looked up once.
+     */
+    private final Map<Class<? extends Event>, HandlerList> handlerLists = new ConcurrentHashMap<>();
+
     public PluginManager(Server server, SimpleCommandMap commandMap) {
         this.server = server;
         this.commandMap = commandMap;
@@ -577,7 +582,7 @@ public class PluginManager {
                     break;
                 }
             }
-            this.registerEvent(eventClass, listener, eh.priority(), new MethodEventExecutor(method), plugin, eh.ignoreCancelled());
+            this.registerEvent(eventClass, listener, eh.priority(), ASMEventExecutor.create(method), plugin, eh.ignoreCancelled());
         }
     }
 
@@ -598,7 +603,31 @@ public class PluginManager {
         }
     }
 
+    /**
+     * Check whether any listener is registered for an event, so the event doesn't have to be created when nobody
+     * listens to it. Listeners of disabled plugins are counted as well.
+     *
+     * @param event event class
+     * @return whether the event has listeners
+     */
+    public boolean hasListeners(Class<? extends Event> event) {
+        try {
+            return this.getEventListeners(event).getRegisteredListeners().length != 0;
+        } catch (IllegalAccessException e) {
+            return false;
+        }
+    }
+
     private HandlerList getEventListeners(Class<? extends Event> type) throws IllegalAccessException {
+        HandlerList handlerList = this.handlerLists.get(type);
+        if (handlerList == null) {
+            handlerList = this.findEventListeners(type);
+            this.handlerLists.put(type, handlerList);
+        }
+        return handlerList;
+    }
+
+    private HandlerList findEventListeners(Class<? extends Event> type) throws IllegalAccessException {
         try {
             Method method = getRegistrationClass(type).getDeclaredMethod("getHandlers");
             method.setAccessible(true);
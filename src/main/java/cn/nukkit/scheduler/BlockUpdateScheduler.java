@@ -3,6 +3,7 @@ package cn.nukkit.scheduler;
 import cn.nukkit.block.Block;
 import cn.nukkit.level.Level;
 import cn.nukkit.math.AxisAlignedBB;
+import cn.nukkit.math.NukkitMath;
 import cn.nukkit.math.SimpleAxisAlignedBB;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.BlockUpdateEntry;
@@ -15,16 +16,30 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Scheduled block updates of a level.
+ * <p>
+ * Entries are indexed by the tick they are due in, by the chunk they are in and by (position, block) so that
+ * membership checks and removals don't have to scan all queued ticks and chunk saving only looks at nearby entries.
+ * Modifications are expected to happen on the level thread, reads are safe from any thread.
+ */
 public class BlockUpdateScheduler {
 
     private final Level level;
     private long lastTick;
     private final Long2ObjectNonBlockingMap<Set<BlockUpdateEntry>> queuedUpdates;
+    private final Long2ObjectNonBlockingMap<Set<BlockUpdateEntry>> chunkUpdates;
+    /**
+     * Queued entries mapped to the tick they are queued in
+     */
+    private final Map<BlockUpdateEntry, Long> queuedTicks;
 
     private Set<BlockUpdateEntry> pendingUpdates;
 
     public BlockUpdateScheduler(Level level, long currentTick) {
         queuedUpdates = new Long2ObjectNonBlockingMap<>();
+        chunkUpdates = new Long2ObjectNonBlockingMap<>();
+        queuedTicks = new ConcurrentHashMap<>();
         lastTick = currentTick;
         this.level = level;
     }
@@ -54,6 +69,12 @@ public class BlockUpdateScheduler {
             lastTick = tick;
             Set<BlockUpdateEntry> updates = pendingUpdates = queuedUpdates.remove(tick);
             if (updates != null) {
+                // Unindex the whole tick first so that the updates can be scheduled again while performing
+                for (BlockUpdateEntry entry : updates) {
+                    queuedTicks.remove(entry);
+                    removeFromChunk(entry);
+                }
+
                 for (BlockUpdateEntry entry : updates) {
                     if (level.isAreaLoaded(new SimpleAxisAlignedBB(entry.pos, entry.pos))) {
                         Block block = level.getBlock(entry.pos, entry.block.layer);
@@ -74,13 +95,23 @@ public class BlockUpdateScheduler {
     public Set<BlockUpdateEntry> getPendingBlockUpdates(AxisAlignedBB boundingBox) {
         Set<BlockUpdateEntry> set = new HashSet<>();
 
-        for (Set<BlockUpdateEntry> tickSet : this.queuedUpdates.values()) {
-            for (BlockUpdateEntry update : tickSet) {
-                Vector3 pos = update.pos;
+        int minChunkX = NukkitMath.floorDouble(boundingBox.getMinX()) >> 4;
+        int maxChunkX = NukkitMath.floorDouble(boundingBox.getMaxX()) >> 4;
+        int minChunkZ = NukkitMath.floorDouble(boundingBox.getMinZ()) >> 4;
+        int maxChunkZ = NukkitMath.floorDouble(boundingBox.getMaxZ()) >> 4;
 
-                if (pos.getX() >= boundingBox.getMinX() && pos.getX() < boundingBox.getMaxX() &&
-                        pos.getZ() >= boundingBox.getMinZ() && pos.getZ() < boundingBox.getMaxZ()) {
-                    set.add(update);
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) > chunkUpdates.size()) {
+            // Fewer chunks with updates than chunks in the bounding box
+            for (Set<BlockUpdateEntry> chunkSet : chunkUpdates.values()) {
+                collect(chunkSet, boundingBox, set);
+            }
+        } else {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    Set<BlockUpdateEntry> chunkSet = chunkUpdates.get(Level.chunkHash(chunkX, chunkZ));
+                    if (chunkSet != null) {
+                        collect(chunkSet, boundingBox, set);
+                    }
                 }
             }
         }
@@ -88,6 +119,17 @@ public class BlockUpdateScheduler {
         return set;
     }
 
+    private static void collect(Set<BlockUpdateEntry> updates, AxisAlignedBB boundingBox, Set<BlockUpdateEntry> result) {
+        for (BlockUpdateEntry update : updates) {
+            Vector3 pos = update.pos;
+
+            if (pos.getX() >= boundingBox.getMinX() && pos.getX() < boundingBox.getMaxX() &&
+                    pos.getZ() >= boundingBox.getMinZ() && pos.getZ() < boundingBox.getMaxZ()) {
+                result.add(update);
+            }
+        }
+    }
+
     public boolean isBlockTickPending(Vector3 pos, Block block) {
         Set<BlockUpdateEntry> tmpUpdates = pendingUpdates;
         if (tmpUpdates == null || tmpUpdates.isEmpty()) return false;
@@ -98,42 +140,91 @@ public class BlockUpdateScheduler {
         return Math.max(entry.delay, lastTick + 1);
     }
 
+    private static long chunkHash(Vector3 pos) {
+        return Level.chunkHash(pos.getFloorX() >> 4, pos.getFloorZ() >> 4);
+    }
+
+    /**
+     * Queue a block update. Nothing is changed if an update for the same position and block is already queued.
+     *
+     * @param entry block update entry
+     */
     public void add(BlockUpdateEntry entry) {
         long time = getMinTime(entry);
+        if (queuedTicks.putIfAbsent(entry, time) != null) {
+            return;
+        }
+
         Set<BlockUpdateEntry> updateSet = queuedUpdates.get(time);
         if (updateSet == null) {
             Set<BlockUpdateEntry> tmp = queuedUpdates.putIfAbsent(time, updateSet = ConcurrentHashMap.newKeySet());
             if (tmp != null) updateSet = tmp;
         }
         updateSet.add(entry);
+
+        long chunkHash = chunkHash(entry.pos);
+        Set<BlockUpdateEntry> chunkSet = chunkUpdates.get(chunkHash);
+        if (chunkSet == null) {
+            Set<BlockUpdateEntry> tmp = chunkUpdates.putIfAbsent(chunkHash, chunkSet = ConcurrentHashMap.newKeySet());
+            if (tmp != null) chunkSet = tmp;
+        }
+        chunkSet.add(entry);
     }
 
     public boolean contains(BlockUpdateEntry entry) {
-        for (Map.Entry<Long, Set<BlockUpdateEntry>> tickUpdateSet : queuedUpdates.entrySet()) {
-            if (tickUpdateSet.getValue().contains(entry)) {
-                return true;
+        return queuedTicks.containsKey(entry);
+    }
+
+    public boolean remove(BlockUpdateEntry entry) {
+        Long queuedTick = queuedTicks.remove(entry);
+        if (queuedTick == null) {
+            return false;
+        }
+
+        long time = queuedTick;
+        Set<BlockUpdateEntry> updateSet = queuedUpdates.get(time);
+        if (updateSet != null) {
+            updateSet.remove(entry);
+            if (updateSet.isEmpty()) {
+                queuedUpdates.remove(time, updateSet);
             }
         }
-        return false;
+        removeFromChunk(entry);
+        return true;
     }
 
-    public boolean remove(BlockUpdateEntry entry) {
-        for (Map.Entry<Long, Set<BlockUpdateEntry>> tickUpdateSet : queuedUpdates.entrySet()) {
-            if (tickUpdateSet.getValue().remove(entry)) {
-                return true;
+    private void removeFromChunk(BlockUpdateEntry entry) {
+        long chunkHash = chunkHash(entry.pos);
+        Set<BlockUpdateEntry> chunkSet = chunkUpdates.get(chunkHash);
+        if (chunkSet != null) {
+            chunkSet.remove(entry);
+            if (chunkSet.isEmpty()) {
+                chunkUpdates.remove(chunkHash, chunkSet);
             }
         }
-        return false;
     }
 
     @Deprecated
-    @SuppressWarnings("SuspiciousMethodCalls")
     public boolean remove(Vector3 pos) {
-        for (Set<BlockUpdateEntry> tickUpdateSet : queuedUpdates.values()) {
-            if (tickUpdateSet.remove(pos)) {
-                return true;
+        Set<BlockUpdateEntry> chunkSet = chunkUpdates.get(chunkHash(pos));
+        if (chunkSet == null) {
+            return false;
+        }
+
+        for (BlockUpdateEntry entry : chunkSet) {
+            if (entry.pos.equals(pos)) {
+                return remove(entry);
             }
         }
         return false;
     }
+
+    /**
+     * Get the number of queued block updates
+     *
+     * @return queued block updates
+     */
+    public int size() {
+        return queuedTicks.size();
+    }
 }
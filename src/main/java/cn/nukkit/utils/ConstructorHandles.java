@@ -0,0 +1,65 @@
+package cn.nukkit.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Public constructors of a class as method handles, looked up once per class.
+ * <p>
+ * Every handle takes its arguments as an {@code Object[]} and returns the new instance as {@link Object}, so it can be
+ * called with {@link MethodHandle#invokeExact(Object...)}. Arguments of the wrong type fail with a
+ * {@link ClassCastException} or {@link NullPointerException} instead of an {@link IllegalArgumentException}.
+ */
+public final class ConstructorHandles {
+
+    private static final MethodHandle[] EMPTY = new MethodHandle[0];
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final ClassValue<ConstructorHandles> HANDLES = new ClassValue<>() {
+        @Override
+        protected ConstructorHandles computeValue(Class<?> type) {
+            return new ConstructorHandles(type);
+        }
+    };
+
+    private final MethodHandle[][] byParameterCount;
+
+    private ConstructorHandles(Class<?> type) {
+        List<List<MethodHandle>> handles = new ArrayList<>();
+        for (Constructor<?> constructor : type.getConstructors()) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().unreflectConstructor(constructor);
+            } catch (IllegalAccessException e) {
+                // Public constructor of a class that isn't accessible, reflection couldn't call it either
+                continue;
+            }
+            int count = constructor.getParameterCount();
+            while (handles.size() <= count) {
+                handles.add(new ArrayList<>());
+            }
+            handles.get(count).add(handle.asSpreader(Object[].class, count).asType(SPREAD_TYPE));
+        }
+
+        this.byParameterCount = new MethodHandle[handles.size()][];
+        for (int i = 0; i < handles.size(); i++) {
+            this.byParameterCount[i] = handles.get(i).toArray(EMPTY);
+        }
+    }
+
+    /**
+     * Get the constructors of a class with the given number of parameters
+     *
+     * @param type           class to create
+     * @param parameterCount number of parameters
+     * @return constructors taking {@code Object[]} and returning {@code Object}, may be empty
+     */
+    public static MethodHandle[] get(Class<?> type, int parameterCount) {
+        MethodHandle[][] byParameterCount = HANDLES.get(type).byParameterCount;
+        return parameterCount < byParameterCount.length ? byParameterCount[parameterCount] : EMPTY;
+    }
+}
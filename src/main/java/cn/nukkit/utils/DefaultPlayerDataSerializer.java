@@ -5,6 +5,9 @@ import com.google.common.base.Preconditions;
 import lombok.RequiredArgsConstructor;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -34,10 +37,74 @@ public class DefaultPlayerDataSerializer implements PlayerDataSerializer {
 
     }
 
+    /**
+     * The data is written to a temporary file that replaces the data file when the stream is closed, so a failed or
+     * interrupted save never leaves a partly written data file behind.
+     */
     @Override
     public OutputStream write(String name, UUID uuid) throws IOException {
         Preconditions.checkNotNull(name, "name");
         File file = new File(dataPath  + "players/" + name + ".dat");
-        return new FileOutputStream(file);
+        File tempFile = new File(dataPath  + "players/" + name + ".dat.tmp");
+        return new AtomicFileOutputStream(tempFile, file);
+    }
+
+    private static class AtomicFileOutputStream extends FilterOutputStream {
+
+        private final File tempFile;
+        private final File file;
+        private boolean failed;
+        private boolean closed;
+
+        private AtomicFileOutputStream(File tempFile, File file) throws IOException {
+            super(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            this.tempFile = tempFile;
+            this.file = file;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                this.out.write(b);
+            } catch (IOException e) {
+                this.failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                this.out.write(b, off, len);
+            } catch (IOException e) {
+                this.failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+
+            try {
+                super.close();
+            } catch (IOException e) {
+                this.failed = true;
+                throw e;
+            } finally {
+                if (this.failed) {
+                    Files.deleteIfExists(this.tempFile.toPath());
+                }
+            }
+
+            try {
+                Files.move(this.tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(this.tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
     }
 }
@@ -2,8 +2,16 @@ package cn.nukkit.utils;
 
 public class DynamicClassLoader extends ClassLoader {
 
+    public DynamicClassLoader() {
+        super();
+    }
+
+    public DynamicClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
     public Class<?> defineClass(String name, byte[] b) {
         return defineClass(name, b, 0, b.length);
     }
 
-}
\ No newline at end of file
+}
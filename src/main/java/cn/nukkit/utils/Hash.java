@@ -5,6 +5,12 @@ package cn.nukkit.utils;
  */
 public class Hash {
 
+    private static final long XXH_PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long XXH_PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long XXH_PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long XXH_PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long XXH_PRIME64_5 = 0x27D4EB2F165667C5L;
+
     public static long hashBlock(int x, int y, int z) {
         return ((long) y << 52) + (((long) z & 0x3ffffff) << 26) + ((long) x & 0x3ffffff);
     }
@@ -20,4 +26,93 @@ public class Hash {
     public static int hashBlockZ(long triple) {
         return (int) ((((triple >> 26) & 0x3ffffff) << 38) >> 38);
     }
+
+    /**
+     * XXH64 hash with seed 0, as used by the client blob cache
+     *
+     * @param data data to hash
+     * @return hash
+     */
+    public static long xxHash64(byte[] data) {
+        int length = data.length;
+        int offset = 0;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = XXH_PRIME64_1 + XXH_PRIME64_2;
+            long v2 = XXH_PRIME64_2;
+            long v3 = 0;
+            long v4 = -XXH_PRIME64_1;
+            int limit = length - 32;
+            do {
+                v1 = xxh64Round(v1, getLongLE(data, offset));
+                v2 = xxh64Round(v2, getLongLE(data, offset + 8));
+                v3 = xxh64Round(v3, getLongLE(data, offset + 16));
+                v4 = xxh64Round(v4, getLongLE(data, offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = xxh64MergeRound(hash, v1);
+            hash = xxh64MergeRound(hash, v2);
+            hash = xxh64MergeRound(hash, v3);
+            hash = xxh64MergeRound(hash, v4);
+        } else {
+            hash = XXH_PRIME64_5;
+        }
+
+        hash += length;
+
+        while (offset + 8 <= length) {
+            hash ^= xxh64Round(0, getLongLE(data, offset));
+            hash = Long.rotateLeft(hash, 27) * XXH_PRIME64_1 + XXH_PRIME64_4;
+            offset += 8;
+        }
+        if (offset + 4 <= length) {
+            hash ^= (getIntLE(data, offset) & 0xffffffffL) * XXH_PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * XXH_PRIME64_2 + XXH_PRIME64_3;
+            offset += 4;
+        }
+        while (offset < length) {
+            hash ^= (data[offset] & 0xff) * XXH_PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * XXH_PRIME64_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= XXH_PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= XXH_PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long xxh64Round(long acc, long input) {
+        acc += input * XXH_PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * XXH_PRIME64_1;
+    }
+
+    private static long xxh64MergeRound(long acc, long value) {
+        acc ^= xxh64Round(0, value);
+        return acc * XXH_PRIME64_1 + XXH_PRIME64_4;
+    }
+
+    private static long getLongLE(byte[] data, int offset) {
+        return (data[offset] & 0xffL)
+                | (data[offset + 1] & 0xffL) << 8
+                | (data[offset + 2] & 0xffL) << 16
+                | (data[offset + 3] & 0xffL) << 24
+                | (data[offset + 4] & 0xffL) << 32
+                | (data[offset + 5] & 0xffL) << 40
+                | (data[offset + 6] & 0xffL) << 48
+                | (data[offset + 7] & 0xffL) << 56;
+    }
+
+    private static int getIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xff)
+                | (data[offset + 1] & 0xff) << 8
+                | (data[offset + 2] & 0xff) << 16
+                | (data[offset + 3] & 0xff) << 24;
+    }
 }
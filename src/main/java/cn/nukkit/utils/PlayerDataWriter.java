@@ -0,0 +1,247 @@
+package cn.nukkit.utils;
+
+import cn.nukkit.Server;
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompoundTag;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Writes player data on a background thread.
+ * <p>
+ * The data is queued as a snapshot taken on the caller's thread and compressed and written by the writer thread.
+ * Saving a player again while the previous data is still queued replaces the queued data, so only the latest data is
+ * written. Queued data is returned by {@link #getPending(String, PlayerDataSerializer)}, so reading player data
+ * always sees the latest save.
+ * <p>
+ * {@link #write(PlayerDataSerializer, String, UUID, CompoundTag)} writes on the caller's thread instead and replaces
+ * the queued data of that player. Writes of the same player hold a lock per name, so they are never reordered.
+ */
+@Log4j2
+public class PlayerDataWriter {
+
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final Striped<Lock> locks = Striped.lock(64);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Player Data Writer").setDaemon(true).build());
+
+    private final AtomicLong completedWrites = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private volatile long lastWriteNanos;
+
+    /**
+     * Queue player data to be written
+     *
+     * @param serializer serializer to write with
+     * @param name       name of player or {@link UUID} as {@link String}
+     * @param uuid       uuid of player, could be null if name is used
+     * @param tag        player data, must not be modified after queueing
+     * @return future completed when the data or newer data of the same player was written
+     */
+    public CompletableFuture<Void> queue(PlayerDataSerializer serializer, String name, UUID uuid, CompoundTag tag) {
+        PendingWrite write = new PendingWrite(serializer, name, uuid, tag);
+        if (this.executor.isShutdown()) {
+            this.write(write);
+            return write.done;
+        }
+
+        PendingWrite previous = this.pending.put(name, write);
+        if (previous != null) {
+            // The previous data wasn't written yet, the writer picks up the new data instead
+            this.coalescedWrites.incrementAndGet();
+            write.done.whenComplete((result, error) -> previous.done.complete(null));
+        } else {
+            this.scheduleWrite(name);
+        }
+        return write.done;
+    }
+
+    /**
+     * Write player data on the caller's thread. Queued data of the player is replaced without waiting for the data of
+     * other players.
+     *
+     * @param serializer serializer to write with
+     * @param name       name of player or {@link UUID} as {@link String}
+     * @param uuid       uuid of player, could be null if name is used
+     * @param tag        player data
+     */
+    public void write(PlayerDataSerializer serializer, String name, UUID uuid, CompoundTag tag) {
+        PendingWrite write = new PendingWrite(serializer, name, uuid, tag);
+        Lock lock = this.locks.get(name);
+        lock.lock();
+        try {
+            // Queued while writing so reads see the data until it is on disk
+            PendingWrite previous = this.pending.put(name, write);
+            if (previous != null) {
+                this.coalescedWrites.incrementAndGet();
+            }
+            this.write(write);
+            if (previous != null) {
+                previous.done.complete(null);
+            }
+            // Newer data queued meanwhile was left for the writer
+            if (!this.pending.remove(name, write)) {
+                this.scheduleWrite(name);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the queued player data that wasn't written yet
+     *
+     * @param name       name of player or {@link UUID} as {@link String}
+     * @param serializer serializer the data is read with
+     * @return queued data or null
+     */
+    public CompoundTag getPending(String name, PlayerDataSerializer serializer) {
+        PendingWrite write = this.pending.get(name);
+        return write != null && write.serializer == serializer ? write.tag : null;
+    }
+
+    /**
+     * Wait until all queued player data was written
+     */
+    public void flush() {
+        while (!this.pending.isEmpty()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (PendingWrite write : this.pending.values()) {
+                futures.add(write.done);
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    /**
+     * Write all queued player data and stop the writer thread. Player data queued afterwards is written directly.
+     */
+    public void shutdown() {
+        this.flush();
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Player data writer didn't finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+        log.debug("Player data writer stopped: {} writes, {} coalesced, {} failed, {} ms average write time",
+                this.getCompletedWrites(), this.getCoalescedWrites(), this.getFailedWrites(), this.getAverageWriteTime());
+    }
+
+    /**
+     * @return number of players with data waiting to be written
+     */
+    public int getQueueDepth() {
+        return this.pending.size();
+    }
+
+    public long getCompletedWrites() {
+        return this.completedWrites.get();
+    }
+
+    /**
+     * @return number of saves replaced by a newer save of the same player before they were written
+     */
+    public long getCoalescedWrites() {
+        return this.coalescedWrites.get();
+    }
+
+    public long getFailedWrites() {
+        return this.failedWrites.get();
+    }
+
+    /**
+     * @return time the last write took in milliseconds
+     */
+    public double getLastWriteTime() {
+        return this.lastWriteNanos / 1_000_000d;
+    }
+
+    /**
+     * @return average time a write took in milliseconds
+     */
+    public double getAverageWriteTime() {
+        long writes = this.completedWrites.get() + this.failedWrites.get();
+        return writes == 0 ? 0 : this.totalWriteNanos.get() / 1_000_000d / writes;
+    }
+
+    private void scheduleWrite(String name) {
+        try {
+            this.executor.execute(() -> this.writeLatest(name));
+        } catch (RejectedExecutionException e) {
+            // Shut down, write directly
+            this.writeLatest(name);
+        }
+    }
+
+    private void writeLatest(String name) {
+        Lock lock = this.locks.get(name);
+        lock.lock();
+        try {
+            // Looked up under the lock, a direct write may have replaced and written the data meanwhile
+            PendingWrite write = this.pending.get(name);
+            if (write == null) {
+                return;
+            }
+            this.write(write);
+
+            // Stays queued until written, so reads never see older data. Newer data queued meanwhile needs another write.
+            if (!this.pending.remove(name, write)) {
+                this.scheduleWrite(name);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(PendingWrite write) {
+        long start = System.nanoTime();
+        try {
+            // Compressed before the stream is opened, so nothing is written if the data can't be serialized
+            byte[] data = NBTIO.writeGZIPCompressed(write.tag, ByteOrder.BIG_ENDIAN);
+            try (OutputStream stream = write.serializer.write(write.name, write.uuid)) {
+                stream.write(data);
+            }
+            this.completedWrites.incrementAndGet();
+        } catch (Exception e) {
+            this.failedWrites.incrementAndGet();
+            log.error(Server.getInstance().getLanguage().translateString("nukkit.data.saveError", write.name, e));
+        } finally {
+            long time = System.nanoTime() - start;
+            this.lastWriteNanos = time;
+            this.totalWriteNanos.addAndGet(time);
+            write.done.complete(null);
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final PlayerDataSerializer serializer;
+        private final String name;
+        private final UUID uuid;
+        private final CompoundTag tag;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(PlayerDataSerializer serializer, String name, UUID uuid, CompoundTag tag) {
+            this.serializer = serializer;
+            this.name = name;
+            this.uuid = uuid;
+            this.tag = tag;
+        }
+    }
+}
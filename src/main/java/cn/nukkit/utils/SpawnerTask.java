@@ -14,7 +14,6 @@ import cn.nukkit.level.GameRule;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.Position;
 import cn.nukkit.level.format.generic.BaseFullChunk;
-import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.spawners.*;
 
 import java.util.HashMap;
@@ -194,16 +193,13 @@ public class SpawnerTask implements Runnable {
         }
         int max = getMaxSpawns(networkId, level.getDimension() == Level.DIMENSION_NETHER, level.getDimension() == Level.DIMENSION_THE_END);
         if (max == 0) return false;
-        int count = 0;
-        for (Entity entity : level.getEntities()) {
-            if (entity.isAlive() && entity.getNetworkId() == networkId && new Vector3(player.x, entity.y, player.z).distanceSquared(entity) < 16384) { // 128 blocks
-                count++;
-                if (count > max) {
-                    return false;
-                }
+        int[] count = new int[1];
+        level.getEntityIndex().forEachInColumn(player.x, player.z, 128, Entity.class, entity -> {
+            if (entity.isAlive() && entity.getNetworkId() == networkId) {
+                count[0]++;
             }
-        }
-        return count < max;
+        });
+        return count[0] < max;
     }
 
     /**
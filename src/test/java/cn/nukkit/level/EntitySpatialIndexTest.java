@@ -0,0 +1,77 @@
+package cn.nukkit.level;
+
+import cn.nukkit.entity.Entity;
+import cn.nukkit.math.AxisAlignedBB;
+import cn.nukkit.math.SimpleAxisAlignedBB;
+import cn.nukkit.utils.Identifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EntitySpatialIndexTest {
+
+    @Test
+    public void testTallEntity() {
+        EntitySpatialIndex index = new EntitySpatialIndex();
+        // Position in section y 3, bounding box up to y 68 in section y 4
+        TestEntity entity = new TestEntity(0.5, 60, 0.5, 0.6, 8);
+        index.update(entity);
+        Assertions.assertEquals(1, index.size());
+
+        List<Entity> found = new ArrayList<>();
+        index.forEach(new SimpleAxisAlignedBB(0, 67, 0, 1, 67.5, 1), Entity.class, found::add);
+        Assertions.assertEquals(List.of(entity), found);
+
+        // Above the bounding box
+        found.clear();
+        index.forEach(new SimpleAxisAlignedBB(0, 68.5, 0, 1, 69, 1), Entity.class, found::add);
+        Assertions.assertTrue(found.isEmpty());
+
+        index.remove(entity);
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testWideEntity() {
+        EntitySpatialIndex index = new EntitySpatialIndex();
+        // Position in section x 0, bounding box reaches into section x -1
+        TestEntity entity = new TestEntity(1, 64, 8, 16, 4);
+        index.update(entity);
+
+        Assertions.assertTrue(index.anyMatch(new SimpleAxisAlignedBB(-6, 64, 8, -5, 65, 9), Entity.class, null));
+        Assertions.assertFalse(index.anyMatch(new SimpleAxisAlignedBB(-9, 64, 8, -8, 65, 9), Entity.class, null));
+    }
+
+    public static class TestEntity extends Entity {
+
+        private final AxisAlignedBB bb;
+
+        /**
+         * Entity without a level, the index only needs the position and the bounding box
+         */
+        private TestEntity(double x, double y, double z, double width, double height) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.bb = new SimpleAxisAlignedBB(x - width / 2, y, z - width / 2, x + width / 2, y + height, z + width / 2);
+        }
+
+        @Override
+        public AxisAlignedBB getBoundingBox() {
+            return this.bb;
+        }
+
+        @Override
+        public int getNetworkId() {
+            return -1;
+        }
+
+        @Override
+        public Identifier getIdentifier() {
+            // No entity properties to look up
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package cn.nukkit.level.light;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+/**
+ * Compares the block light propagation with the boxed queue algorithm it replaced
+ */
+public class BlockLightPropagatorTest {
+
+    @Test
+    public void testAgainstPreviousAlgorithm() {
+        Random random = new Random(42);
+        TestLightStorage expected = new TestLightStorage(random);
+        TestLightStorage actual = expected.copy();
+        TestLightStorage recorded = expected.copy();
+        BlockLightPropagator propagator = new BlockLightPropagator();
+
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(20);
+            long[] positions = new long[count];
+            for (int i = 0; i < count; i++) {
+                int x = random.nextInt(TestLightStorage.SIZE_X);
+                int y = random.nextInt(TestLightStorage.SIZE_Y);
+                int z = random.nextInt(TestLightStorage.SIZE_Z);
+                int emission = random.nextInt(4) == 0 ? 1 + random.nextInt(15) : 0;
+                int filter = random.nextInt(3) == 0 ? 15 : 1;
+                expected.setBlock(x, y, z, emission, filter, false);
+                actual.setBlock(x, y, z, emission, filter, false);
+                recorded.setBlock(x, y, z, emission, filter, false);
+                positions[i] = BlockLightPropagator.key(x, y, z);
+            }
+
+            previousAlgorithm(expected, positions);
+            propagator.update(actual, positions, count);
+            LightChanges changes = new LightChanges(recorded);
+            propagator.update(changes, positions, count);
+            changes.apply(recorded);
+
+            Assertions.assertArrayEquals(expected.blockLight, actual.blockLight, "Light differs after round " + round);
+            Assertions.assertArrayEquals(expected.blockLight, recorded.blockLight, "Recorded light differs after round " + round);
+        }
+    }
+
+    @Test
+    public void testKey() {
+        int[][] positions = {{0, 0, 0}, {-1, -64, -1}, {16000000, 511, -16000000}, {-16000000, -512, 16000000}, {123, 319, -456}};
+        for (int[] position : positions) {
+            long key = BlockLightPropagator.key(position[0], position[1], position[2]);
+            Assertions.assertEquals(0, key & 0xf);
+            Assertions.assertEquals(position[0], BlockLightPropagator.keyX(key | 0xf));
+            Assertions.assertEquals(position[1], BlockLightPropagator.keyY(key | 0xf));
+            Assertions.assertEquals(position[2], BlockLightPropagator.keyZ(key | 0xf));
+        }
+    }
+
+    /**
+     * The algorithm of Level#updateBlockLight before the primitive queues, on a light storage
+     */
+    private static void previousAlgorithm(LightStorage storage, long[] positions) {
+        Queue<Long> lightPropagationQueue = new LinkedList<>();
+        Queue<Object[]> lightRemovalQueue = new LinkedList<>();
+        Set<Long> visited = new HashSet<>();
+        Set<Long> removalVisited = new HashSet<>();
+
+        for (long position : positions) {
+            int x = BlockLightPropagator.keyX(position);
+            int y = BlockLightPropagator.keyY(position);
+            int z = BlockLightPropagator.keyZ(position);
+            int oldLevel = storage.getBlockLight(x, y, z);
+            int newLevel = storage.getLightEmission(x, y, z);
+            if (oldLevel != newLevel) {
+                storage.setBlockLight(x, y, z, newLevel & 0x0f);
+                long hash = BlockLightPropagator.key(x, y, z);
+                if (newLevel < oldLevel) {
+                    removalVisited.add(hash);
+                    lightRemovalQueue.add(new Object[]{hash, oldLevel});
+                } else {
+                    visited.add(hash);
+                    lightPropagationQueue.add(hash);
+                }
+            }
+        }
+
+        while (!lightRemovalQueue.isEmpty()) {
+            Object[] val = lightRemovalQueue.poll();
+            long node = (long) val[0];
+            int x = BlockLightPropagator.keyX(node);
+            int y = BlockLightPropagator.keyY(node);
+            int z = BlockLightPropagator.keyZ(node);
+            int lightLevel = (int) val[1];
+
+            int[][] sides = {{x - 1, y, z}, {x + 1, y, z}, {x, y - 1, z}, {x, y + 1, z}, {x, y, z - 1}, {x, y, z + 1}};
+            for (int[] side : sides) {
+                int current = storage.getBlockLight(side[0], side[1], side[2]);
+                long index = BlockLightPropagator.key(side[0], side[1], side[2]);
+                if (current != 0 && current < lightLevel) {
+                    storage.setBlockLight(side[0], side[1], side[2], 0);
+                    if (current > 1 && !removalVisited.contains(index)) {
+                        removalVisited.add(index);
+                        lightRemovalQueue.add(new Object[]{index, current});
+                    }
+                } else if (current >= lightLevel && !visited.contains(index)) {
+                    visited.add(index);
+                    lightPropagationQueue.add(index);
+                }
+            }
+        }
+
+        while (!lightPropagationQueue.isEmpty()) {
+            long node = lightPropagationQueue.poll();
+            int x = BlockLightPropagator.keyX(node);
+            int y = BlockLightPropagator.keyY(node);
+            int z = BlockLightPropagator.keyZ(node);
+
+            int lightLevel = storage.getBlockLight(x, y, z) - storage.getLightFilter(x, y, z);
+            if (lightLevel >= 1) {
+                int[][] sides = {{x - 1, y, z}, {x + 1, y, z}, {x, y - 1, z}, {x, y + 1, z}, {x, y, z - 1}, {x, y, z + 1}};
+                for (int[] side : sides) {
+                    int current = storage.getBlockLight(side[0], side[1], side[2]);
+                    if (current < lightLevel - 1) {
+                        storage.setBlockLight(side[0], side[1], side[2], lightLevel);
+                        long index = BlockLightPropagator.key(side[0], side[1], side[2]);
+                        if (!visited.contains(index)) {
+                            visited.add(index);
+                            if (lightLevel > 1) {
+                                lightPropagationQueue.add(index);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cn.nukkit.level.light;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * Compares incremental sky light updates with the sky light calculated from scratch
+ */
+public class SkyLightPropagatorTest {
+
+    @Test
+    public void testAgainstFullCalculation() {
+        Random random = new Random(7);
+        TestLightStorage expected = new TestLightStorage(random);
+        calculate(expected);
+        TestLightStorage actual = expected.copy();
+        TestLightStorage recorded = expected.copy();
+        SkyLightPropagator propagator = new SkyLightPropagator();
+
+        for (int round = 0; round < 100; round++) {
+            int count = 1 + random.nextInt(round % 10 == 0 ? 200 : 10);
+            long[] positions = new long[count];
+            for (int i = 0; i < count; i++) {
+                int x = random.nextInt(TestLightStorage.SIZE_X);
+                int y = random.nextInt(TestLightStorage.SIZE_Y);
+                int z = random.nextInt(TestLightStorage.SIZE_Z);
+                int type = random.nextInt(4);
+                int filter = type == 0 ? 15 : type == 1 ? 2 : 1;
+                boolean diffuse = type == 2;
+                expected.setBlock(x, y, z, 0, filter, diffuse);
+                actual.setBlock(x, y, z, 0, filter, diffuse);
+                recorded.setBlock(x, y, z, 0, filter, diffuse);
+                positions[i] = BlockLightPropagator.key(x, y, z);
+            }
+
+            calculate(expected);
+            propagator.update(actual, positions, count);
+            LightChanges changes = new LightChanges(recorded);
+            propagator.update(changes, positions, count);
+            changes.apply(recorded);
+
+            Assertions.assertArrayEquals(expected.skyLight, actual.skyLight, "Sky light differs after round " + round);
+            Assertions.assertArrayEquals(expected.skyLight, recorded.skyLight, "Recorded sky light differs after round " + round);
+        }
+    }
+
+    /**
+     * Calculate the sky light of the whole world: full light from the height of each column up, spread from there
+     */
+    private static void calculate(TestLightStorage storage) {
+        Arrays.fill(storage.skyLight, (byte) 0);
+        Queue<int[]> queue = new ArrayDeque<>();
+        for (int x = 0; x < TestLightStorage.SIZE_X; x++) {
+            for (int z = 0; z < TestLightStorage.SIZE_Z; z++) {
+                for (int y = TestLightStorage.SIZE_Y - 1; y >= 0 && !storage.blocksSkyLight(x, y, z); y--) {
+                    storage.setBlockSkyLight(x, y, z, 15);
+                    queue.add(new int[]{x, y, z});
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int[] node = queue.poll();
+            int light = storage.getBlockSkyLight(node[0], node[1], node[2]);
+            int[][] sides = {{node[0] - 1, node[1], node[2]}, {node[0] + 1, node[1], node[2]}, {node[0], node[1] - 1, node[2]},
+                    {node[0], node[1] + 1, node[2]}, {node[0], node[1], node[2] - 1}, {node[0], node[1], node[2] + 1}};
+            for (int[] side : sides) {
+                if (!storage.canStoreLight(side[0], side[1], side[2])) {
+                    continue;
+                }
+                int level = light - Math.max(1, storage.getLightFilter(side[0], side[1], side[2]));
+                if (level > storage.getBlockSkyLight(side[0], side[1], side[2])) {
+                    storage.setBlockSkyLight(side[0], side[1], side[2], level);
+                    queue.add(side);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package cn.nukkit.level.light;
+
+import java.util.Random;
+
+/**
+ * Light storage of a small world in arrays, blocks outside the world can't store light
+ */
+class TestLightStorage implements LightStorage {
+
+    static final int SIZE_X = 40;
+    static final int SIZE_Y = 48;
+    static final int SIZE_Z = 40;
+
+    private final byte[] emission;
+    private final byte[] filter;
+    private final boolean[] diffuse;
+    final byte[] blockLight;
+    final byte[] skyLight;
+
+    private TestLightStorage(byte[] emission, byte[] filter, boolean[] diffuse, byte[] blockLight, byte[] skyLight) {
+        this.emission = emission;
+        this.filter = filter;
+        this.diffuse = diffuse;
+        this.blockLight = blockLight;
+        this.skyLight = skyLight;
+    }
+
+    /**
+     * Create a world with random opaque blocks, the top section is left empty
+     */
+    TestLightStorage(Random random) {
+        this(new byte[SIZE_X * SIZE_Y * SIZE_Z], new byte[SIZE_X * SIZE_Y * SIZE_Z], new boolean[SIZE_X * SIZE_Y * SIZE_Z],
+                new byte[SIZE_X * SIZE_Y * SIZE_Z], new byte[SIZE_X * SIZE_Y * SIZE_Z]);
+        for (int x = 0; x < SIZE_X; x++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int y = 0; y < SIZE_Y; y++) {
+                    this.filter[index(x, y, z)] = (byte) (y < SIZE_Y - 16 && random.nextInt(5) == 0 ? 15 : 1);
+                }
+            }
+        }
+    }
+
+    TestLightStorage copy() {
+        return new TestLightStorage(this.emission.clone(), this.filter.clone(), this.diffuse.clone(), this.blockLight.clone(), this.skyLight.clone());
+    }
+
+    void setBlock(int x, int y, int z, int emission, int filter, boolean diffuse) {
+        int index = index(x, y, z);
+        this.emission[index] = (byte) emission;
+        this.filter[index] = (byte) filter;
+        this.diffuse[index] = diffuse;
+    }
+
+    static int index(int x, int y, int z) {
+        if (x < 0 || x >= SIZE_X || y < 0 || y >= SIZE_Y || z < 0 || z >= SIZE_Z) {
+            return -1;
+        }
+        return (x * SIZE_Z + z) * SIZE_Y + y;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxY() {
+        return SIZE_Y - 1;
+    }
+
+    @Override
+    public int getLightEmission(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index == -1 ? 0 : this.emission[index];
+    }
+
+    @Override
+    public int getLightFilter(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index == -1 ? 1 : this.filter[index];
+    }
+
+    @Override
+    public boolean blocksSkyLight(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index != -1 && (this.filter[index] > 1 || this.diffuse[index]);
+    }
+
+    @Override
+    public boolean isSectionEmpty(int x, int y, int z) {
+        int minX = x & ~0x0f;
+        int minY = y & ~0x0f;
+        int minZ = z & ~0x0f;
+        for (int bx = minX; bx < minX + 16; bx++) {
+            for (int bz = minZ; bz < minZ + 16; bz++) {
+                for (int by = minY; by < minY + 16; by++) {
+                    int index = index(bx, by, bz);
+                    if (index != -1 && (this.filter[index] != 1 || this.diffuse[index] || this.emission[index] != 0)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean canStoreLight(int x, int y, int z) {
+        return index(x, y, z) != -1;
+    }
+
+    @Override
+    public int getBlockLight(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index == -1 ? 0 : this.blockLight[index];
+    }
+
+    @Override
+    public void setBlockLight(int x, int y, int z, int level) {
+        int index = index(x, y, z);
+        if (index != -1) {
+            this.blockLight[index] = (byte) (level & 0x0f);
+        }
+    }
+
+    @Override
+    public int getBlockSkyLight(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index == -1 ? 0 : this.skyLight[index];
+    }
+
+    @Override
+    public void setBlockSkyLight(int x, int y, int z, int level) {
+        int index = index(x, y, z);
+        if (index != -1) {
+            this.skyLight[index] = (byte) (level & 0x0f);
+        }
+    }
+}
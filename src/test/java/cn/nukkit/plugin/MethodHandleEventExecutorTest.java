@@ -0,0 +1,85 @@
+package cn.nukkit.plugin;
+
+import cn.nukkit.event.Event;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.Listener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+public class MethodHandleEventExecutorTest {
+
+    @Test
+    public void testListenerOfOtherClassLoader() throws Exception {
+        // Loaded like a plugin listener, by a class loader of its own
+        Class<?> listenerClass = new ListenerClassLoader().loadClass(TestListener.class.getName());
+        Assertions.assertNotSame(TestListener.class, listenerClass);
+        Assertions.assertNotSame(MethodHandleEventExecutorTest.class.getClassLoader(), listenerClass.getClassLoader());
+
+        Method method = listenerClass.getDeclaredMethod("onTest", TestEvent.class);
+        EventExecutor executor = MethodHandleEventExecutor.create(method);
+        Assertions.assertInstanceOf(MethodHandleEventExecutor.class, executor);
+
+        TestEvent event = new TestEvent();
+        executor.execute((Listener) listenerClass.getConstructor().newInstance(), event);
+        Assertions.assertEquals(1, event.calls);
+    }
+
+    public static class TestEvent extends Event {
+
+        private int calls;
+
+        public void called() {
+            this.calls++;
+        }
+    }
+
+    public static class TestListener implements Listener {
+
+        public TestListener() {
+        }
+
+        // Package-private handlers can't be reached across class loaders without setAccessible
+        @EventHandler
+        void onTest(TestEvent event) {
+            event.called();
+        }
+    }
+
+    /**
+     * Defines {@link TestListener} itself and delegates every other class to the test class loader
+     */
+    private static class ListenerClassLoader extends ClassLoader {
+
+        private ListenerClassLoader() {
+            super(MethodHandleEventExecutorTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(TestListener.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (this.getClassLoadingLock(name)) {
+                Class<?> loaded = this.findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+
+                try (InputStream stream = this.getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    if (stream == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    byte[] bytes = stream.readAllBytes();
+                    return this.defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+    }
+}
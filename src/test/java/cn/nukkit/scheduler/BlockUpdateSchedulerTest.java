@@ -0,0 +1,81 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockDirt;
+import cn.nukkit.block.BlockStone;
+import cn.nukkit.math.SimpleAxisAlignedBB;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.utils.BlockUpdateEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockUpdateSchedulerTest {
+
+    private BlockUpdateScheduler scheduler;
+
+    @BeforeEach
+    void setup() {
+        scheduler = new BlockUpdateScheduler(null, 0);
+    }
+
+    private static BlockUpdateEntry entry(int x, int y, int z, Block block, long delay) {
+        return new BlockUpdateEntry(new Vector3(x, y, z), block, delay, 0);
+    }
+
+    @Test
+    void testContainsAndRemove() {
+        Block stone = new BlockStone();
+        scheduler.add(entry(1, 64, 1, stone, 10));
+        scheduler.add(entry(1, 64, 1, stone, 20)); // Already queued
+
+        assertEquals(1, scheduler.size());
+        assertTrue(scheduler.contains(new BlockUpdateEntry(new Vector3(1, 64, 1), stone)));
+        assertFalse(scheduler.contains(new BlockUpdateEntry(new Vector3(1, 64, 1), new BlockDirt())));
+        assertFalse(scheduler.contains(new BlockUpdateEntry(new Vector3(2, 64, 1), stone)));
+
+        assertTrue(scheduler.remove(new BlockUpdateEntry(new Vector3(1, 64, 1), stone)));
+        assertFalse(scheduler.remove(new BlockUpdateEntry(new Vector3(1, 64, 1), stone)));
+        assertEquals(0, scheduler.size());
+        assertTrue(scheduler.getPendingBlockUpdates(new SimpleAxisAlignedBB(0, 0, 0, 16, 256, 16)).isEmpty());
+    }
+
+    @Test
+    void testPendingBlockUpdatesByChunk() {
+        Block stone = new BlockStone();
+        for (int x = -64; x < 64; x += 3) {
+            for (int z = -64; z < 64; z += 5) {
+                scheduler.add(entry(x, 10, z, stone, 5 + (x & 7)));
+            }
+        }
+
+        Set<BlockUpdateEntry> updates = scheduler.getPendingBlockUpdates(new SimpleAxisAlignedBB(-2, 0, -2, 18, 256, 18));
+        assertFalse(updates.isEmpty());
+        int expected = 0;
+        for (int x = -64; x < 64; x += 3) {
+            for (int z = -64; z < 64; z += 5) {
+                if (x >= -2 && x < 18 && z >= -2 && z < 18) {
+                    expected++;
+                    assertTrue(updates.contains(new BlockUpdateEntry(new Vector3(x, 10, z), stone)));
+                }
+            }
+        }
+        assertEquals(expected, updates.size());
+
+        // Bounding box larger than the amount of chunks with updates
+        Set<BlockUpdateEntry> all = scheduler.getPendingBlockUpdates(new SimpleAxisAlignedBB(-10000, 0, -10000, 10000, 256, 10000));
+        assertEquals(scheduler.size(), all.size());
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    void testRemoveByPosition() {
+        scheduler.add(entry(-17, 5, 33, new BlockStone(), 3));
+        assertFalse(scheduler.remove(new Vector3(-17, 6, 33)));
+        assertTrue(scheduler.remove(new Vector3(-17, 5, 33)));
+        assertEquals(0, scheduler.size());
+    }
+}
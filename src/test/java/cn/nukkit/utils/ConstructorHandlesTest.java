@@ -0,0 +1,61 @@
+package cn.nukkit.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+
+public class ConstructorHandlesTest {
+
+    @Test
+    public void testParameterCount() {
+        Assertions.assertEquals(1, ConstructorHandles.get(Target.class, 0).length);
+        Assertions.assertEquals(2, ConstructorHandles.get(Target.class, 2).length);
+        Assertions.assertEquals(0, ConstructorHandles.get(Target.class, 1).length);
+        Assertions.assertEquals(0, ConstructorHandles.get(Target.class, 5).length);
+        Assertions.assertSame(ConstructorHandles.get(Target.class, 2), ConstructorHandles.get(Target.class, 2));
+    }
+
+    @Test
+    public void testCreate() throws Throwable {
+        Object[] args = {"a", 3};
+        Target target = null;
+        for (MethodHandle constructor : ConstructorHandles.get(Target.class, 2)) {
+            try {
+                target = (Target) (Object) constructor.invokeExact(args);
+            } catch (ClassCastException ignored) {
+                // The other constructor with two parameters
+            }
+        }
+        Assertions.assertNotNull(target);
+        Assertions.assertEquals("a3", target.value);
+
+        // Primitive parameter, null can't be passed
+        boolean failed = false;
+        for (MethodHandle constructor : ConstructorHandles.get(Target.class, 2)) {
+            try {
+                Object ignored = constructor.invokeExact(new Object[]{"a", null});
+            } catch (NullPointerException | ClassCastException e) {
+                failed = true;
+            }
+        }
+        Assertions.assertTrue(failed);
+    }
+
+    public static class Target {
+
+        private final String value;
+
+        public Target() {
+            this.value = "";
+        }
+
+        public Target(String name, int count) {
+            this.value = name + count;
+        }
+
+        public Target(String name, String suffix) {
+            this.value = name + suffix;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package cn.nukkit.utils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * @author LT_Name
  */
@@ -29,6 +31,15 @@ public class HashTest {
         }
     }
 
+    @Test
+    public void testXxHash64() {
+        Assertions.assertEquals(0xEF46DB3751D8E999L, Hash.xxHash64(new byte[0]));
+        Assertions.assertEquals(0xD24EC4F1A98C6E5BL, Hash.xxHash64("a".getBytes(StandardCharsets.US_ASCII)));
+        Assertions.assertEquals(0x44BC2CF5AD770999L, Hash.xxHash64("abc".getBytes(StandardCharsets.US_ASCII)));
+        // Longer than one 32 byte stripe
+        Assertions.assertEquals(0xFBCEA83C8A378BF1L, Hash.xxHash64("Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)));
+    }
+
     public static void testHashBlock(int x, int y, int z) {
         long triple = Hash.hashBlock(x, y, z);
 